@@ -1,37 +1,40 @@
 package helpermodels;
 
-import jason.asSemantics.DefaultInternalAction;
 import jason.asSemantics.TransitionSystem;
 import jason.asSemantics.Unifier;
 import jason.asSyntax.NumberTerm;
 import jason.asSyntax.Term;
+import jason.eis.LocalMap;
 import jason.eis.MI6Model;
 import jason.eis.Point;
+import jason.eis.metrics.PerceptIngestionEvent;
 
-public class AddDispenser extends DefaultInternalAction {
+public class AddDispenser extends TimedInternalAction {
+  private static final long serialVersionUID = 1L;
 
   @Override
-  public Object execute(TransitionSystem ts, Unifier un, Term[] terms)
+  protected Object executeTimed(TransitionSystem ts, Unifier un, Term[] terms)
     throws Exception {
     try {
       int relX = (int) ((NumberTerm) terms[0]).solve();
       int relY = (int) ((NumberTerm) terms[1]).solve();
       String blockType = terms[2].toString();
 
-      String agName = ts.getUserAgArch().getAgName();
+      String agName = ts.getAgArch().getAgName();
 
       MI6Model model = MI6Model.getInstance();
-      model
-        .getAgentMap(agName)
-        .addDispenser(
-          new Point(relX, relY),
-          blockType,
-          model.getAgentMap(agName).getCurrentPosition()
-        );
+      LocalMap map = agentMap(ts);
+      PerceptIngestionEvent event = new PerceptIngestionEvent();
+      event.begin();
+      long versionBefore = map.getVersion();
+      map.addDispenser(
+        new Point(relX, relY),
+        blockType,
+        map.getCurrentPosition()
+      );
+      commitIngestion(event, agName, "dispenser", map, versionBefore);
 
-      if (MI6Model.DEBUG) {
-        model.logMapState(agName);
-      }
+      model.logMapState(agName);
 
       return true;
     } catch (Exception e) {
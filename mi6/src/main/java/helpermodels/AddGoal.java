@@ -1,35 +1,35 @@
 package helpermodels;
 
-import jason.asSemantics.DefaultInternalAction;
 import jason.asSemantics.TransitionSystem;
 import jason.asSemantics.Unifier;
 import jason.asSyntax.NumberTerm;
 import jason.asSyntax.Term;
+import jason.eis.LocalMap;
 import jason.eis.MI6Model;
 import jason.eis.Point;
+import jason.eis.metrics.PerceptIngestionEvent;
 
-public class AddGoal extends DefaultInternalAction {
+public class AddGoal extends TimedInternalAction {
+  private static final long serialVersionUID = 1L;
 
   @Override
-  public Object execute(TransitionSystem ts, Unifier un, Term[] terms)
+  protected Object executeTimed(TransitionSystem ts, Unifier un, Term[] terms)
     throws Exception {
     try {
       int relX = (int) ((NumberTerm) terms[0]).solve();
       int relY = (int) ((NumberTerm) terms[1]).solve();
 
-      String agName = ts.getUserAgArch().getAgName();
+      String agName = ts.getAgArch().getAgName();
 
       MI6Model model = MI6Model.getInstance();
-      model
-        .getAgentMap(agName)
-        .addGoal(
-          new Point(relX, relY),
-          model.getAgentMap(agName).getCurrentPosition()
-        );
+      LocalMap map = agentMap(ts);
+      PerceptIngestionEvent event = new PerceptIngestionEvent();
+      event.begin();
+      long versionBefore = map.getVersion();
+      map.addGoal(new Point(relX, relY), map.getCurrentPosition());
+      commitIngestion(event, agName, "goal", map, versionBefore);
 
-      if (MI6Model.DEBUG) {
-        model.logMapState(agName);
-      }
+      model.logMapState(agName);
 
       return true;
     } catch (Exception e) {
@@ -1,30 +1,32 @@
 package helpermodels;
 
-import jason.asSemantics.DefaultInternalAction;
 import jason.asSemantics.TransitionSystem;
 import jason.asSemantics.Unifier;
 import jason.asSyntax.Term;
 import jason.eis.LocalMap;
 import jason.eis.MI6Model;
-import jason.eis.movements.AgentCollisionHandler;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
 import java.util.logging.Logger;
 
-public class AddMovementFailure extends DefaultInternalAction {
+public class AddMovementFailure extends TimedInternalAction {
+  private static final long serialVersionUID = 1L;
+
   private static final Logger logger = Logger.getLogger(
     AddMovementFailure.class.getName()
   );
+  private static final SubsystemLog log = AsyncLog.forSubsystem("movement");
   private static MI6Model model = MI6Model.getInstance();
-  private static AgentCollisionHandler collisionHandler = new AgentCollisionHandler();
 
   @Override
-  public Object execute(TransitionSystem ts, Unifier un, Term[] args)
+  protected Object executeTimed(TransitionSystem ts, Unifier un, Term[] args)
     throws Exception {
     try {
-      String agName = ts.getUserAgArch().getAgName();
+      String agName = ts.getAgArch().getAgName();
       String failureType = args[0].toString();
       String attemptedDirection = args[1].toString();
 
-      LocalMap map = model.getAgentMap(agName);
+      LocalMap map = agentMap(ts);
       if (map == null) {
         logger.warning("No map found for agent: " + agName);
         return false;
@@ -32,12 +34,20 @@ public class AddMovementFailure extends DefaultInternalAction {
 
       switch (failureType) {
         case "failed_forbidden":
-          logger.info("Agent " + agName + " hit boundary");
+          log.debug(
+            "Agent %s hit boundary moving %s",
+            agName,
+            attemptedDirection
+          );
           map.handleBoundaryFailure(attemptedDirection);
           break;
         case "failed_path":
-          logger.info("Agent " + agName + " path blocked");
-          map.handlePathFailure();
+          log.debug(
+            "Agent %s path blocked moving %s",
+            agName,
+            attemptedDirection
+          );
+          map.handlePathFailure(attemptedDirection);
           break;
         default:
           logger.warning("Unknown failure type: " + failureType);
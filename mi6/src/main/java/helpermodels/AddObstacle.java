@@ -1,17 +1,19 @@
 package helpermodels;
 
-import jason.asSemantics.DefaultInternalAction;
 import jason.asSemantics.TransitionSystem;
 import jason.asSemantics.Unifier;
 import jason.asSyntax.NumberTerm;
 import jason.asSyntax.Term;
+import jason.eis.LocalMap;
 import jason.eis.MI6Model;
 import jason.eis.Point;
+import jason.eis.metrics.PerceptIngestionEvent;
 
-public class AddObstacle extends DefaultInternalAction {
+public class AddObstacle extends TimedInternalAction {
+  private static final long serialVersionUID = 1L;
 
   @Override
-  public Object execute(TransitionSystem ts, Unifier un, Term[] terms)
+  protected Object executeTimed(TransitionSystem ts, Unifier un, Term[] terms)
     throws Exception {
     try {
       // Get relative coordinates from terms
@@ -19,20 +21,18 @@ public class AddObstacle extends DefaultInternalAction {
       int relY = (int) ((NumberTerm) terms[1]).solve();
 
       // Get the agent name
-      String agName = ts.getUserAgArch().getAgName();
+      String agName = ts.getAgArch().getAgName();
 
       // Get MI6Model instance and add obstacle
       MI6Model model = MI6Model.getInstance();
-      model
-        .getAgentMap(agName)
-        .addObstacle(
-          new Point(relX, relY),
-          model.getAgentMap(agName).getCurrentPosition()
-        );
+      LocalMap map = agentMap(ts);
+      PerceptIngestionEvent event = new PerceptIngestionEvent();
+      event.begin();
+      long versionBefore = map.getVersion();
+      map.addObstacle(new Point(relX, relY), map.getCurrentPosition());
+      commitIngestion(event, agName, "obstacle", map, versionBefore);
 
-      if (MI6Model.DEBUG) {
-        model.logMapState(agName);
-      }
+      model.logMapState(agName);
 
       return true;
     } catch (Exception e) {
@@ -1,16 +1,25 @@
 package helpermodels;
 
-import jason.asSemantics.DefaultInternalAction;
 import jason.asSemantics.TransitionSystem;
 import jason.asSemantics.Unifier;
 import jason.asSyntax.*;
 import jason.eis.LocalMap;
 import jason.eis.MI6Model;
+import jason.eis.MemoryBudget;
 import jason.eis.Point;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
+import jason.eis.metrics.StepMetrics;
+import jason.eis.movements.GuidanceFields;
 import jason.eis.movements.PlannedMovement;
 import jason.eis.movements.RandomMovement;
+import jason.eis.movements.MovementUtils;
 import jason.eis.movements.Search;
+import jason.eis.planning.PlanningExecutor;
+import jason.eis.replay.MatchRecorder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -18,29 +27,34 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class RequestGuidance extends DefaultInternalAction {
+public class RequestGuidance extends TimedInternalAction {
+  private static final long serialVersionUID = 1L;
+
   private static final Logger logger = Logger.getLogger(
     RequestGuidance.class.getName()
   );
-  private static final int PATH_TIMEOUT = Integer.MAX_VALUE; // effectively no timeout
   private static final int RECALCULATION_COOLDOWN = 0; // effectively no cooldown
-  private static final boolean DEBUG = true; // Toggle debug logging
+  private static final SubsystemLog log = AsyncLog.forSubsystem("planning");
 
   private static class PathState {
     List<String> currentPath;
-    List<String> pathHistory;
+    Deque<String> pathHistory; // Last MAX_PATH_HISTORY moves
     long lastFailedAttempt;
     Point targetPosition;
     String targetType;
+    Point expectedPosition; // Where the agent stands if the last returned step succeeded
 
     PathState() {
-      this.pathHistory = new ArrayList<>();
+      this.pathHistory = new ArrayDeque<>();
       this.lastFailedAttempt = 0;
     }
 
     void recordPath(List<String> path) {
       if (this.currentPath != null && !this.currentPath.isEmpty()) {
         pathHistory.addAll(this.currentPath);
+        while (pathHistory.size() > MemoryBudget.MAX_PATH_HISTORY) {
+          pathHistory.removeFirst();
+        }
       }
       this.currentPath = path;
     }
@@ -61,9 +75,9 @@ public class RequestGuidance extends DefaultInternalAction {
   private Term[] terms; // Add this field at class level
 
   @Override
-  public Object execute(TransitionSystem ts, Unifier un, Term[] terms)
+  protected Object executeTimed(TransitionSystem ts, Unifier un, Term[] terms)
     throws Exception {
-    final String agName = ts.getUserAgArch().getAgName();
+    final String agName = ts.getAgArch().getAgName();
     final AtomicReference<Search.TargetType> targetTypeRef = new AtomicReference<>();
 
     // Store terms as class field for use in handleRandomMovement
@@ -72,9 +86,7 @@ public class RequestGuidance extends DefaultInternalAction {
     try {
       MI6Model model = MI6Model.getInstance();
 
-      if (DEBUG) logger.info(
-        String.format("[%s] Starting RequestGuidance execution", agName)
-      );
+      log.debug("[%s] Starting RequestGuidance execution", agName);
 
       // Validate input parameters (target, size, blockDir, outputDir)
       if (terms == null || terms.length != 4) {
@@ -107,8 +119,13 @@ public class RequestGuidance extends DefaultInternalAction {
         )
         : null;
 
+      MatchRecorder recorder = MatchRecorder.get();
+      if (recorder != null) {
+        recorder.recordGuidance(agName, targetTypeStr, size, blockDirection);
+      }
+
       // Get and validate agent map
-      final LocalMap agentMap = model.getAgentMap(agName);
+      final LocalMap agentMap = agentMap(ts);
       if (agentMap == null) {
         logger.warning(String.format("[%s] Agent map is null", agName));
         return handleRandomMovement(agName, un, terms[3]);
@@ -138,112 +155,72 @@ public class RequestGuidance extends DefaultInternalAction {
 
       // Check cooldown period
       if (!pathState.canRetryPathfinding()) {
-        if (DEBUG) {
+        if (log.isDebugEnabled()) {
           long waitTime =
             RECALCULATION_COOLDOWN -
             (System.currentTimeMillis() - pathState.lastFailedAttempt);
-          logger.info(
-            String.format(
-              "[%s] In cooldown period. %dms remaining before retry",
-              agName,
-              waitTime
-            )
+          log.debug(
+            "[%s] In cooldown period. %dms remaining before retry",
+            agName,
+            waitTime
           );
         }
         return handleRandomMovement(agName, un, terms[3]);
       }
 
-      try {
-        CompletableFuture<Search.PathResult> pathFuture = CompletableFuture.supplyAsync(
-          () -> {
-            try {
-              Search.TargetType targetType = convertTargetType(
-                targetTypeStr,
-                agName
-              );
-              Point target = plannedMovement.findNearestTarget(
-                agentMap,
-                agentMap.getCurrentPosition(),
-                targetType,
-                size,
-                blockDirection
-              );
-
-              if (target == null) return null;
-
-              return plannedMovement.calculatePath(
-                agentMap,
-                agentMap.getCurrentPosition(),
-                target,
-                targetType,
-                size,
-                blockDirection
-              );
-            } catch (Exception e) {
-              logger.warning(
-                String.format(
-                  "[%s] Error in path calculation: %s",
-                  agName,
-                  e.getMessage()
-                )
-              );
-              return null;
-            }
-          }
-        );
+      // Plan against a frozen view so percept ingestion can keep writing
+      final LocalMap planningView = agentMap.snapshot();
 
-        Search.PathResult pathResult = pathFuture.get(
-          PATH_TIMEOUT,
-          TimeUnit.MILLISECONDS
-        );
+      Search.PathResult pathResult = planPath(
+        model,
+        agName,
+        planningView,
+        targetTypeStr,
+        size,
+        blockDirection
+      );
 
-        if (
-          pathResult != null &&
-          pathResult.success &&
-          !pathResult.directions.isEmpty()
-        ) {
-          if (DEBUG) {
-            logger.info(
-              String.format(
-                "[%s] Path found! Length: %d, First step: %s",
-                agName,
-                pathResult.directions.size(),
-                pathResult.directions.get(0)
-              )
-            );
-          }
-
-          pathState.recordPath(new ArrayList<>(pathResult.directions));
-          pathState.targetPosition =
-            pathResult.points.get(pathResult.points.size() - 1);
-          pathState.targetType =
-            targetTypeRef.get() != null
-              ? targetTypeRef.get().toString()
-              : "UNKNOWN";
-
-          String nextDirection = pathResult.directions.get(0);
-          pathState.currentPath.remove(0);
-          return returnSingleDirection(nextDirection, un, terms[3]);
-        }
-      } catch (TimeoutException e) {
-        logger.warning(
-          String.format("[%s] Path calculation timed out", agName)
+      if (
+        pathResult != null &&
+        pathResult.success &&
+        !pathResult.directions.isEmpty()
+      ) {
+        log.debug(
+          "[%s] Path found! Length: %d, First step: %s",
+          agName,
+          pathResult.directions.size(),
+          pathResult.directions.get(0)
         );
-      } catch (Exception e) {
-        logger.warning(
-          String.format(
-            "[%s] Error in path calculation: %s",
-            agName,
-            e.getMessage()
-          )
+
+        pathState.recordPath(new ArrayList<>(pathResult.directions));
+        pathState.targetPosition =
+          pathResult.points.get(pathResult.points.size() - 1);
+        pathState.targetType =
+          targetTypeRef.get() != null
+            ? targetTypeRef.get().toString()
+            : "UNKNOWN";
+
+        String nextDirection = pathResult.directions.get(0);
+        pathState.currentPath.remove(0);
+        pathState.expectedPosition =
+          MovementUtils.calculateNextPosition(currentPos, nextDirection);
+        return returnSingleDirection(nextDirection, un, terms[3]);
+      }
+
+      // No fresh path in time, keep following the previous one if still clear
+      String storedDirection = nextStoredDirection(pathState, planningView);
+      if (storedDirection != null) {
+        log.debug(
+          "[%s] Continuing previous path with %s",
+          agName,
+          storedDirection
         );
+        return returnSingleDirection(storedDirection, un, terms[3]);
       }
 
       // Path calculation failed
       pathState.recordFailedAttempt();
-      if (DEBUG) logger.info(
-        String.format("[%s] Falling back to random movement", agName)
-      );
+      log.debug("[%s] Falling back to random movement", agName);
       return handleRandomMovement(agName, un, terms[3]);
     } catch (Exception e) {
       logger.severe(
@@ -258,6 +235,118 @@ public class RequestGuidance extends DefaultInternalAction {
     }
   }
 
+  /**
+   * Plans towards the nearest target of the given type on the planning
+   * pool, bounded by the agent's step deadline. planningView should be a
+   * snapshot the caller owns. Shared with the replay driver.
+   */
+  public static Search.PathResult planPath(
+    MI6Model model,
+    String agName,
+    LocalMap planningView,
+    String targetTypeStr,
+    int size,
+    String blockDirection
+  ) {
+    PlannedMovement plannedMovement = model.getPlannedMovement();
+    Search.TargetType targetType = convertTargetType(targetTypeStr, agName);
+    GuidanceFields guidanceFields = model.getGuidanceFields();
+    guidanceFields.noteTarget(agName, targetType);
+    long planningStart = System.nanoTime();
+
+    // Read off the field built when this step's percepts were applied
+    Search.PathResult fieldPath = guidanceFields.pathFor(
+      agName,
+      planningView,
+      targetType
+    );
+    if (fieldPath != null) {
+      log.debug(
+        "[%s] Path read off the %s field, length %d",
+        agName,
+        targetType,
+        fieldPath.directions.size()
+      );
+      model
+        .getStepMetrics()
+        .record(
+          agName,
+          StepMetrics.Stage.PLANNING,
+          System.nanoTime() - planningStart
+        );
+      return fieldPath;
+    }
+
+    // Plan on the dedicated pool, bounded by this step's deadline
+    PlanningExecutor planningExecutor = model.getPlanningExecutor();
+    Search.PathResult pathResult = planningExecutor.plan(
+      agName,
+      context -> {
+        try {
+          Point target = plannedMovement.findNearestTarget(
+            planningView,
+            planningView.getCurrentPosition(),
+            targetType,
+            size,
+            blockDirection
+          );
+
+          if (target == null || context.shouldStop()) return null;
+
+          // Spend whatever is left of the step improving the path
+          return plannedMovement.calculatePath(
+            planningView,
+            planningView.getCurrentPosition(),
+            target,
+            targetType,
+            size,
+            blockDirection,
+            context.remainingNanos(),
+            context::offer
+          );
+        } catch (Exception e) {
+          logger.warning(
+            String.format(
+              "[%s] Error in path calculation: %s",
+              agName,
+              e.getMessage()
+            )
+          );
+          return null;
+        }
+      },
+      model.getStepClock().getPlanningDeadline(agName)
+    );
+    model
+      .getStepMetrics()
+      .record(
+        agName,
+        StepMetrics.Stage.PLANNING,
+        System.nanoTime() - planningStart
+      );
+    return pathResult;
+  }
+
+  private String nextStoredDirection(PathState pathState, LocalMap map) {
+    if (pathState.currentPath == null || pathState.currentPath.isEmpty()) {
+      return null;
+    }
+    Point position = map.getCurrentPosition();
+    String direction = pathState.currentPath.get(0);
+    Point next = MovementUtils.calculateNextPosition(position, direction);
+    if (
+      !position.equals(pathState.expectedPosition) ||
+      next == null ||
+      map.isForbidden(next)
+    ) {
+      pathState.currentPath = null;
+      return null;
+    }
+    pathState.currentPath.remove(0);
+    pathState.expectedPosition = next;
+    return direction;
+  }
+
   private Object handleRandomMovement(
     String agName,
     Unifier un,
@@ -287,17 +376,13 @@ public class RequestGuidance extends DefaultInternalAction {
       );
       if (randomDir == null) randomDir = "n";
 
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "[%s] Using random movement: direction=%s, size=%d, blockDir=%s",
-            agName,
-            randomDir,
-            size,
-            blockDirection
-          )
-        );
-      }
+      log.debug(
+        "[%s] Using random movement: direction=%s, size=%d, blockDir=%s",
+        agName,
+        randomDir,
+        size,
+        blockDirection
+      );
 
       return returnSingleDirection(randomDir, un, outputTerm);
     } catch (Exception e) {
@@ -318,9 +403,7 @@ public class RequestGuidance extends DefaultInternalAction {
     Term outputTerm
   ) {
     try {
-      if (DEBUG) {
-        logger.info(String.format("Returning single direction: %s", direction));
-      }
+      log.debug("Returning single direction: %s", direction);
       return un.unifies(new Atom(direction), outputTerm);
     } catch (Exception e) {
       logger.severe("Error in direction unification: " + e.getMessage());
@@ -330,7 +413,7 @@ public class RequestGuidance extends DefaultInternalAction {
   }
 
   // Helper method to convert string to enum
-  private Search.TargetType convertTargetType(
+  private static Search.TargetType convertTargetType(
     String targetTypeStr,
     String agName
   ) {
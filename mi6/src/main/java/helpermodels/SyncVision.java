@@ -0,0 +1,154 @@
+package helpermodels;
+
+import jason.asSemantics.TransitionSystem;
+import jason.asSemantics.Unifier;
+import jason.asSyntax.ListTerm;
+import jason.asSyntax.Literal;
+import jason.asSyntax.NumberTerm;
+import jason.asSyntax.StringTerm;
+import jason.asSyntax.Term;
+import jason.eis.LocalMap;
+import jason.eis.LocalMap.EntityType;
+import jason.eis.MI6Model;
+import jason.eis.metrics.PerceptIngestionEvent;
+import jason.eis.percepts.GoalPercept;
+import jason.eis.percepts.ObstaclePercept;
+import jason.eis.percepts.PerceptSnapshot;
+import jason.eis.percepts.ThingPercept;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Applies the agent's whole vision to its map in one call, replacing one
+ * AddObstacle/AddGoal/AddDispenser/AddOtherAgents call per belief. Cells in
+ * vision that are seen empty are cleared.
+ *
+ * helpermodels.SyncVision       re-applies the last percepts received
+ * helpermodels.SyncVision(L)    applies a list of obstacle(X,Y), goal(X,Y)
+ *                               and thing(X,Y,Type,Details) terms, e.g.
+ *                               collected with .findall; only the kinds
+ *                               the list contains are cleared, so a list of
+ *                               obstacles leaves goals, blocks and agents
+ */
+public class SyncVision extends TimedInternalAction {
+  private static final long serialVersionUID = 1L;
+  private static final Logger logger = Logger.getLogger(
+    SyncVision.class.getName()
+  );
+
+  @Override
+  public int getMinArgs() {
+    return 0;
+  }
+
+  @Override
+  public int getMaxArgs() {
+    return 1;
+  }
+
+  @Override
+  protected Object executeTimed(TransitionSystem ts, Unifier un, Term[] terms)
+    throws Exception {
+    try {
+      String agName = ts.getAgArch().getAgName();
+      MI6Model model = MI6Model.getInstance();
+
+      PerceptSnapshot vision = terms.length == 0
+        ? model.getLatestPercepts(agName)
+        : fromTerms(terms[0]);
+      if (vision == null) return true; // Nothing perceived yet
+      Set<EntityType> cleared = terms.length == 0
+        ? LocalMap.CLEARABLE_TYPES
+        : listedTypes(vision);
+
+      LocalMap map = agentMap(ts);
+      PerceptIngestionEvent event = new PerceptIngestionEvent();
+      event.begin();
+      long versionBefore = map.getVersion();
+      map.syncVision(vision, MI6Model.VISION_RANGE, cleared);
+      commitIngestion(event, agName, "vision", map, versionBefore);
+
+      model.logMapState(agName);
+
+      return true;
+    } catch (Exception e) {
+      logger.warning("Error synchronising vision: " + e.getMessage());
+      return false;
+    }
+  }
+
+  private static PerceptSnapshot fromTerms(Term list) throws Exception {
+    if (!list.isList()) {
+      throw new IllegalArgumentException("Expected a list of percepts");
+    }
+
+    List<ThingPercept> things = new ArrayList<>();
+    List<ObstaclePercept> obstacles = new ArrayList<>();
+    List<GoalPercept> goals = new ArrayList<>();
+    for (Term term : (ListTerm) list) {
+      if (!term.isLiteral()) continue;
+      Literal percept = (Literal) term;
+      switch (percept.getFunctor()) {
+        case "obstacle":
+          obstacles.add(
+            new ObstaclePercept(intArg(percept, 0), intArg(percept, 1))
+          );
+          break;
+        case "goal":
+          goals.add(new GoalPercept(intArg(percept, 0), intArg(percept, 1)));
+          break;
+        case "thing":
+          things.add(
+            new ThingPercept(
+              intArg(percept, 0),
+              intArg(percept, 1),
+              percept.getTerm(2).toString(),
+              percept.getArity() > 3 ? textArg(percept, 3) : ""
+            )
+          );
+          break;
+        default:
+          break;
+      }
+    }
+
+    return new PerceptSnapshot(
+      null,
+      things,
+      obstacles,
+      goals,
+      Collections.emptyList(),
+      Collections.emptyList(),
+      null,
+      false
+    );
+  }
+
+  // Types the list says something about; an absent kind is not "seen empty"
+  private static Set<EntityType> listedTypes(PerceptSnapshot vision) {
+    Set<EntityType> types = EnumSet.noneOf(EntityType.class);
+    if (!vision.obstacles().isEmpty()) types.add(EntityType.OBSTACLE);
+    if (!vision.goals().isEmpty()) types.add(EntityType.GOAL);
+    for (ThingPercept thing : vision.things()) {
+      if ("block".equals(thing.type())) types.add(EntityType.BLOCK);
+      if ("entity".equals(thing.type())) types.add(EntityType.AGENT);
+    }
+    return types;
+  }
+
+  private static int intArg(Literal percept, int index) throws Exception {
+    return (int) ((NumberTerm) percept.getTerm(index)).solve();
+  }
+
+  // String terms keep their quotes in toString()
+  private static String textArg(Literal percept, int index) {
+    Term term = percept.getTerm(index);
+    return term.isString()
+      ? ((StringTerm) term).getString()
+      : term.toString();
+  }
+}
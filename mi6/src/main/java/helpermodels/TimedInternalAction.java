@@ -0,0 +1,86 @@
+package helpermodels;
+
+import jason.architecture.AgArch;
+import jason.asSemantics.DefaultInternalAction;
+import jason.asSemantics.TransitionSystem;
+import jason.asSemantics.Unifier;
+import jason.asSyntax.Term;
+import jason.eis.LocalMap;
+import jason.eis.MI6AgArch;
+import jason.eis.MI6Model;
+import jason.eis.metrics.PerceptIngestionEvent;
+import jason.eis.metrics.StepMetrics;
+
+/**
+ * Base class for the team's internal actions. Times every call and records
+ * it as the INTERNAL_ACTION stage of the calling agent's step.
+ */
+public abstract class TimedInternalAction extends DefaultInternalAction {
+  private static final long serialVersionUID = 1L;
+
+  @Override
+  public final Object execute(TransitionSystem ts, Unifier un, Term[] terms)
+    throws Exception {
+    long start = System.nanoTime();
+    try {
+      return executeTimed(ts, un, terms);
+    } finally {
+      MI6Model model = MI6Model.getInstanceOrNull();
+      if (model != null) {
+        model
+          .getStepMetrics()
+          .record(
+            ts.getAgArch().getAgName(),
+            StepMetrics.Stage.INTERNAL_ACTION,
+            System.nanoTime() - start
+          );
+      }
+    }
+  }
+
+  /**
+   * The calling agent's map. Read from the MI6AgArch cache when the agent
+   * runs with that architecture, otherwise looked up in the model.
+   */
+  protected static LocalMap agentMap(TransitionSystem ts) {
+    for (
+      AgArch arch = ts.getAgArch().getFirstAgArch();
+      arch != null;
+      arch = arch.getNextAgArch()
+    ) {
+      if (arch instanceof MI6AgArch) {
+        LocalMap map = ((MI6AgArch) arch).getLocalMap();
+        if (map != null) return map;
+        break;
+      }
+    }
+    return MI6Model.getInstance().getAgentMap(ts.getAgArch().getAgName());
+  }
+
+  /**
+   * Commits a JFR ingestion event for an action that wrote percepts into
+   * the agent's map, counting the map writes since versionBefore.
+   */
+  protected static void commitIngestion(
+    PerceptIngestionEvent event,
+    String agName,
+    String source,
+    LocalMap map,
+    long versionBefore
+  ) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.agent = agName;
+      event.source = source;
+      event.writes = map.getVersion() - versionBefore;
+      event.commit();
+    }
+  }
+
+  protected abstract Object executeTimed(
+    TransitionSystem ts,
+    Unifier un,
+    Term[] terms
+  )
+    throws Exception;
+}
@@ -0,0 +1,283 @@
+package jason.eis;
+
+import jason.eis.movements.Direction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tracks of the other agents the map's agent has seen, one per agent as far
+ * as sightings allow telling them apart. Each step's sightings are matched
+ * to the tracks by nearest neighbour: a sighting can only continue a track
+ * of the same team whose last position is within the steps since of it, and
+ * the closest pairs to each track's predicted position are taken first.
+ * Matched tracks update a smoothed velocity and how often their prediction
+ * was right; the rest coast for a few steps or are dropped once vision
+ * shows they are gone.
+ *
+ * occupancy() turns that into the probability that a cell holds one of the
+ * agents k steps from now: a track keeps to its predicted cell with the
+ * probability its record earns it per step and otherwise may be anywhere
+ * within reach. Positions are in the map's frame. Not thread safe; LocalMap
+ * updates it in syncVision under its position lock and copies it into
+ * snapshots.
+ */
+public final class AgentTracks {
+  private static final int MAX_TRACKS = 64;
+  private static final int MAX_COAST_STEPS = 3; // Unseen steps before dropping
+  private static final int MAX_SPREAD = 3; // Cells the uncertainty reaches
+  private static final double VELOCITY_GAIN = 0.5;
+  private static final double AGREEMENT_GAIN = 0.3;
+  private static final double MIN_HEADING_SPEED = 0.5;
+
+  /** One agent seen in this step's percepts. */
+  public record Sighting(Point position, String team) {}
+
+  public static final class Track {
+    private final int id;
+    private final String team;
+    private int x;
+    private int y;
+    private double vx = 0; // Cells per step
+    private double vy = 0;
+    private double agreement = 0.5; // Smoothed rate of correct predictions
+    private long lastStep;
+    private int hits = 1;
+
+    private Track(int id, String team, Point position, long step) {
+      this.id = id;
+      this.team = team;
+      this.x = position.x;
+      this.y = position.y;
+      this.lastStep = step;
+    }
+
+    private Track(Track other) {
+      this.id = other.id;
+      this.team = other.team;
+      this.x = other.x;
+      this.y = other.y;
+      this.vx = other.vx;
+      this.vy = other.vy;
+      this.agreement = other.agreement;
+      this.lastStep = other.lastStep;
+      this.hits = other.hits;
+    }
+
+    public int id() {
+      return id;
+    }
+
+    public String team() {
+      return team;
+    }
+
+    /** Where the agent was last seen. */
+    public Point position() {
+      return new Point(x, y);
+    }
+
+    public long lastStep() {
+      return lastStep;
+    }
+
+    public int hits() {
+      return hits;
+    }
+
+    public double velocityX() {
+      return vx;
+    }
+
+    public double velocityY() {
+      return vy;
+    }
+
+    /** Main direction of the velocity, null while the agent mostly stays. */
+    public Direction heading() {
+      if (Math.hypot(vx, vy) < MIN_HEADING_SPEED) return null;
+      if (Math.abs(vx) >= Math.abs(vy)) {
+        return vx > 0 ? Direction.EAST : Direction.WEST;
+      }
+      return vy > 0 ? Direction.SOUTH : Direction.NORTH;
+    }
+
+    /** Predicted position at the given step. */
+    public Point predict(long step) {
+      long elapsed = Math.max(0, step - lastStep);
+      return new Point(
+        (int) Math.round(x + vx * elapsed),
+        (int) Math.round(y + vy * elapsed)
+      );
+    }
+
+    // Probability the agent is where predicted after one more step
+    private double keepProbability() {
+      return 0.5 + 0.45 * agreement;
+    }
+
+    private void update(Point seen, long step) {
+      long elapsed = Math.max(1, step - lastStep);
+      Point predicted = predict(step);
+      double hit = predicted.equals(seen) ? 1 : 0;
+      agreement += AGREEMENT_GAIN * (hit - agreement);
+      vx += VELOCITY_GAIN * ((double) (seen.x - x) / elapsed - vx);
+      vy += VELOCITY_GAIN * ((double) (seen.y - y) / elapsed - vy);
+      x = seen.x;
+      y = seen.y;
+      lastStep = step;
+      hits++;
+    }
+  }
+
+  private final List<Track> tracks = new ArrayList<>();
+  private int nextId = 1;
+  private long step = 0; // Of the last observe()
+
+  /** Independent copy, for map snapshots. */
+  public AgentTracks copy() {
+    AgentTracks copy = new AgentTracks();
+    for (Track track : tracks) copy.tracks.add(new Track(track));
+    copy.nextId = nextId;
+    copy.step = step;
+    return copy;
+  }
+
+  /**
+   * Applies one step's sightings. origin is where the map's agent stands and
+   * visionRange its Manhattan vision, used to drop tracks that vision shows
+   * are gone.
+   */
+  public void observe(
+    long step,
+    List<Sighting> sightings,
+    Point origin,
+    int visionRange
+  ) {
+    int trackCount = tracks.size();
+    int sightingCount = sightings.size();
+    boolean[] trackMatched = new boolean[trackCount];
+    boolean[] sightingMatched = new boolean[sightingCount];
+
+    // Candidate pairs as (cost, track, sighting) packed into longs
+    long[] pairs = new long[trackCount * sightingCount];
+    int pairCount = 0;
+    for (int t = 0; t < trackCount; t++) {
+      Track track = tracks.get(t);
+      long elapsed = Math.max(1, step - track.lastStep);
+      Point predicted = track.predict(step);
+      for (int s = 0; s < sightingCount; s++) {
+        Sighting sighting = sightings.get(s);
+        if (!Objects.equals(track.team, sighting.team())) continue;
+        // One move per step, so anything farther is another agent
+        if (distance(track.position(), sighting.position()) > elapsed) continue;
+        long cost = Math.min(0xFFFFF, distance(predicted, sighting.position()));
+        pairs[pairCount++] = (cost << 40) | ((long) t << 20) | s;
+      }
+    }
+    Arrays.sort(pairs, 0, pairCount);
+    for (int i = 0; i < pairCount; i++) {
+      int t = (int) (pairs[i] >>> 20) & 0xFFFFF;
+      int s = (int) pairs[i] & 0xFFFFF;
+      if (trackMatched[t] || sightingMatched[s]) continue;
+      trackMatched[t] = true;
+      sightingMatched[s] = true;
+      tracks.get(t).update(sightings.get(s).position(), step);
+    }
+
+    List<Track> kept = new ArrayList<>(trackCount + sightingCount);
+    for (int t = 0; t < trackCount; t++) {
+      Track track = tracks.get(t);
+      if (trackMatched[t] || isCoasting(track, step, origin, visionRange)) {
+        kept.add(track);
+      }
+    }
+    for (int s = 0; s < sightingCount; s++) {
+      if (sightingMatched[s]) continue;
+      Sighting sighting = sightings.get(s);
+      kept.add(new Track(nextId++, sighting.team(), sighting.position(), step));
+    }
+    if (kept.size() > MAX_TRACKS) {
+      kept.sort((a, b) -> Long.compare(b.lastStep, a.lastStep));
+      kept.subList(MAX_TRACKS, kept.size()).clear();
+    }
+    tracks.clear();
+    tracks.addAll(kept);
+    this.step = step;
+  }
+
+  // Unseen this step: kept while it may have walked out of vision
+  private static boolean isCoasting(
+    Track track,
+    long step,
+    Point origin,
+    int visionRange
+  ) {
+    long elapsed = step - track.lastStep;
+    if (elapsed > MAX_COAST_STEPS) return false;
+    return distance(track.position(), origin) + elapsed > visionRange;
+  }
+
+  /** Step of the latest observe(), 0 before the first. */
+  public long step() {
+    return step;
+  }
+
+  public List<Track> tracks() {
+    return Collections.unmodifiableList(tracks);
+  }
+
+  /** The track last seen at position in the latest step, or null. */
+  public Track trackAt(Point position) {
+    for (Track track : tracks) {
+      if (
+        track.lastStep == step &&
+        track.x == position.x &&
+        track.y == position.y
+      ) {
+        return track;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Probability that cell is occupied by a tracked agent steps after the
+   * latest observed step, from 0 (no tracked agent can be there) to 1.
+   */
+  public double occupancy(Point cell, int steps) {
+    double free = 1.0;
+    for (Track track : tracks) {
+      double p = occupancy(track, cell, this.step + Math.max(0, steps));
+      if (p > 0) free *= 1.0 - p;
+    }
+    return 1.0 - free;
+  }
+
+  private static double occupancy(Track track, Point cell, long atStep) {
+    long elapsed = Math.max(0, atStep - track.lastStep);
+    Point center = track.predict(atStep);
+    int d = distance(center, cell);
+    double keep = Math.pow(track.keepProbability(), elapsed);
+    if (d == 0) return keep;
+    int radius = (int) Math.min(elapsed, MAX_SPREAD);
+    if (d > radius) return 0;
+    // The rest spread evenly over the other cells of the diamond
+    return (1.0 - keep) / (2.0 * radius * (radius + 1));
+  }
+
+  private static int distance(Point a, Point b) {
+    return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      "AgentTracks[%d tracks, step %d]",
+      tracks.size(),
+      step
+    );
+  }
+}
@@ -8,8 +8,16 @@ import eis.iilang.*;
 import jason.JasonException;
 import jason.NoValueException;
 import jason.asSyntax.*;
+import jason.eis.metrics.StepMetrics;
+import jason.eis.percepts.PerceptDecoder;
+import jason.eis.percepts.PerceptSnapshot;
+import jason.eis.percepts.StepPercept;
+import jason.eis.replay.MatchRecorder;
 import jason.environment.Environment;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import massim.eismassim.EnvironmentInterface;
@@ -27,16 +35,22 @@ public class EISAdapter extends Environment implements AgentListener {
     "EISAdapter." + EISAdapter.class.getName()
   );
 
+  // Execution modes, selected by the first environment argument in the .mas2j,
+  // e.g. environment: jason.eis.EISAdapter(virtual) or jason.eis.EISAdapter(20)
+  private static final String VIRTUAL_THREADS_MODE = "virtual";
+  private static final int DEFAULT_POOL_SIZE = 20;
+
   private EnvironmentInterfaceStandard ei;
   private MI6Model model;
-  private Set<String> initializedAgents = new HashSet<>(); // Track initialized agents
+  private Set<String> initializedAgents = ConcurrentHashMap.newKeySet(); // Track initialized agents
 
   public EISAdapter() {
-    super(20);
+    super(DEFAULT_POOL_SIZE);
   }
 
   @Override
   public void init(String[] args) {
+    configureExecution(args);
     ei = new EnvironmentInterface("conf/eismassimconfig.json");
 
     try {
@@ -80,6 +94,39 @@ public class EISAdapter extends Environment implements AgentListener {
     }
   }
 
+  /**
+   * Replaces the fixed action pool when an execution mode is given. In
+   * virtual mode every scheduled action (and its blocking performAction
+   * call) gets its own virtual thread, so the team size no longer has to
+   * match a hand-sized pool.
+   */
+  private void configureExecution(String[] args) {
+    if (args == null || args.length == 0) return;
+
+    String mode = args[0].replace("\"", "").trim();
+    ExecutorService previous = executor;
+    if (VIRTUAL_THREADS_MODE.equalsIgnoreCase(mode)) {
+      executor = Executors.newVirtualThreadPerTaskExecutor();
+      logger.info("Executing agent actions on virtual threads");
+    } else {
+      try {
+        int poolSize = Integer.parseInt(mode);
+        executor = Executors.newFixedThreadPool(poolSize);
+        logger.info("Executing agent actions on " + poolSize + " threads");
+      } catch (NumberFormatException e) {
+        logger.warning(
+          "Unknown execution mode '" +
+          mode +
+          "', keeping a pool of " +
+          DEFAULT_POOL_SIZE +
+          " threads"
+        );
+        return;
+      }
+    }
+    previous.shutdown();
+  }
+
   @Override
   public void handlePercept(String agent, Percept percept) {}
 
@@ -92,6 +139,7 @@ public class EISAdapter extends Environment implements AgentListener {
       logger.info("Initialized agent: " + agName);
     }
 
+    long conversionStart = System.nanoTime();
     Collection<Literal> ps = super.getPercepts(agName);
     List<Literal> percepts = ps == null
       ? new ArrayList<>()
@@ -102,6 +150,18 @@ public class EISAdapter extends Environment implements AgentListener {
     if (ei != null) {
       try {
         Map<String, Collection<Percept>> perMap = ei.getAllPercepts(agName);
+        MatchRecorder recorder = MatchRecorder.get();
+        // Decoded once for the Java side: step clock and map maintenance.
+        // Every reasoning cycle polls, but only a step's first batch is
+        // recorded, as only that one is applied
+        for (Collection<Percept> entityPercepts : perMap.values()) {
+          PerceptSnapshot snapshot = PerceptDecoder.decode(entityPercepts);
+          trackStep(agName, snapshot);
+          boolean applied = model.ingestPercepts(agName, snapshot);
+          if (applied && recorder != null) {
+            recorder.recordPercepts(agName, entityPercepts);
+          }
+        }
         for (String entity : perMap.keySet()) {
           Structure strcEnt = ASSyntax.createStructure(
             "entity",
@@ -119,9 +179,34 @@ public class EISAdapter extends Environment implements AgentListener {
         logger.log(Level.WARNING, "Could not perceive.");
       }
     }
+    model
+      .getStepMetrics()
+      .record(
+        agName,
+        StepMetrics.Stage.PERCEPT_CONVERSION,
+        System.nanoTime() - conversionStart
+      );
     return percepts;
   }
 
+  // Starts the agent's step clock from the step/timestamp/deadline percepts
+  private void trackStep(String agName, PerceptSnapshot snapshot) {
+    if (snapshot.simEnd()) {
+      // Match is over, dump the latency and memory summaries once
+      model.getStepMetrics().logSummaryIfPending();
+      model.logMemoryReportIfPending();
+      model.persistMap(agName);
+      MatchRecorder recorder = MatchRecorder.get();
+      if (recorder != null) recorder.flush();
+    }
+    StepPercept step = snapshot.step();
+    if (step != null) {
+      model
+        .getStepClock()
+        .onStepPercept(agName, step.step(), step.timestamp(), step.deadline());
+    }
+  }
+
   private Collection<Literal> perceptsToLiterals(Collection<Percept> percepts) {
     List<Literal> literals = new ArrayList<>();
     for (Percept p : percepts) {
@@ -144,14 +229,9 @@ public class EISAdapter extends Environment implements AgentListener {
 
   private static Term parameterToTerm(Parameter par) throws JasonException {
     if (par instanceof Numeral) {
-      return ASSyntax.createNumber(((Numeral) par).getValue().doubleValue());
+      return TermCache.number(((Numeral) par).getValue().doubleValue());
     } else if (par instanceof Identifier) {
-      try {
-        Identifier i = (Identifier) par;
-        String a = i.getValue();
-        if (!Character.isUpperCase(a.charAt(0))) return ASSyntax.parseTerm(a);
-      } catch (Exception ignored) {}
-      return ASSyntax.createString(((Identifier) par).getValue());
+      return TermCache.identifier(((Identifier) par).getValue());
     } else if (par instanceof ParameterList) {
       ListTerm list = new ListTermImpl();
       ListTerm tail = list;
@@ -176,11 +256,32 @@ public class EISAdapter extends Environment implements AgentListener {
       return false;
     }
 
+    long actionStart = System.nanoTime();
+    Action eisAction = null;
+    boolean accepted = false;
     try {
-      ei.performAction(agName, literalToAction(action));
+      eisAction = literalToAction(action);
+      ei.performAction(agName, eisAction);
+      accepted = true;
       return true;
     } catch (ActException e) {
       e.printStackTrace();
+    } finally {
+      MatchRecorder recorder = MatchRecorder.get();
+      if (recorder != null && eisAction != null) {
+        recorder.recordAction(agName, eisAction, accepted);
+      }
+      StepMetrics metrics = model.getStepMetrics();
+      metrics.record(
+        agName,
+        StepMetrics.Stage.PERFORM_ACTION,
+        System.nanoTime() - actionStart
+      );
+      metrics.completeStep(
+        agName,
+        model.getStepClock().getStepStartNanos(agName),
+        model.getStepClock().getStepBudgetNanos(agName)
+      );
     }
 
     return false;
@@ -227,6 +328,11 @@ public class EISAdapter extends Environment implements AgentListener {
 
   @Override
   public void stop() {
+    if (model != null) {
+      model.shutdown();
+    }
+    MatchRecorder recorder = MatchRecorder.get();
+    if (recorder != null) recorder.close();
     if (ei != null) {
       try {
         if (ei.isKillSupported()) ei.kill();
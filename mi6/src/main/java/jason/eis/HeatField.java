@@ -0,0 +1,226 @@
+package jason.eis;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A decaying value per cell of the agent's frame, in a primitive float grid
+ * that grows with the area the agent touches. Every cell keeps the time it
+ * was last written; heat decays exponentially by decayPerSecond and is
+ * brought up to date only when the cell is read or written, so adding heat
+ * and reading it cost O(1) per cell and nothing is swept over time.
+ *
+ * The grid holds at most maxCells cells. When touching a cell would grow it
+ * past that, the window is moved to centre on the cell and what falls
+ * outside is forgotten, farthest cells first by construction.
+ *
+ * Not thread safe; LocalMap guards it with its position lock and copies it
+ * into snapshots.
+ */
+public final class HeatField {
+  private static final int INITIAL_SIZE = 32;
+  private static final int NEVER = 0;
+
+  private final double decayPerSecond;
+  private final float floor;
+  private final int maxCells;
+  private final long epochMillis;
+
+  private int minX;
+  private int minY;
+  private int width;
+  private int height;
+  private float[] heat;
+  private int[] stamp; // Millis since epoch + 1 of the last write, 0 = never
+  private int touched = 0;
+  private long evicted = 0;
+
+  /**
+   * decayPerSecond is the factor heat keeps per second; decayed heat of a
+   * touched cell never drops below floor.
+   */
+  public HeatField(double decayPerSecond, float floor, int maxCells) {
+    this(decayPerSecond, floor, maxCells, System.currentTimeMillis());
+  }
+
+  private HeatField(
+    double decayPerSecond,
+    float floor,
+    int maxCells,
+    long epochMillis
+  ) {
+    this.decayPerSecond = decayPerSecond;
+    this.floor = floor;
+    this.maxCells = Math.max(INITIAL_SIZE * INITIAL_SIZE, maxCells);
+    this.epochMillis = epochMillis;
+    this.minX = -INITIAL_SIZE / 2;
+    this.minY = -INITIAL_SIZE / 2;
+    this.width = INITIAL_SIZE;
+    this.height = INITIAL_SIZE;
+    this.heat = new float[width * height];
+    this.stamp = new int[width * height];
+  }
+
+  /** Independent copy, for map snapshots. */
+  public HeatField copy() {
+    HeatField copy = new HeatField(
+      decayPerSecond,
+      floor,
+      maxCells,
+      epochMillis
+    );
+    copy.minX = minX;
+    copy.minY = minY;
+    copy.width = width;
+    copy.height = height;
+    copy.heat = heat.clone();
+    copy.stamp = stamp.clone();
+    copy.touched = touched;
+    copy.evicted = evicted;
+    return copy;
+  }
+
+  /** Decays the cell to now, adds amount and caps the result at cap. */
+  public void add(int x, int y, float amount, float cap, long now) {
+    int index = indexOf(x, y);
+    if (index < 0) index = grow(x, y);
+    float current = stamp[index] == NEVER ? 0f : decayed(index, now);
+    if (stamp[index] == NEVER) touched++;
+    heat[index] = Math.min(cap, current + amount);
+    stamp[index] = toStamp(now);
+  }
+
+  public float get(int x, int y, long now) {
+    int index = indexOf(x, y);
+    if (index < 0 || stamp[index] == NEVER) return 0f;
+    return decayed(index, now);
+  }
+
+  public float get(Point pos, long now) {
+    return get(pos.x, pos.y, now);
+  }
+
+  /** Time of the cell's last write, or -1 if never written (or forgotten). */
+  public long lastTouched(int x, int y) {
+    int index = indexOf(x, y);
+    if (index < 0 || stamp[index] == NEVER) return -1;
+    return epochMillis + stamp[index] - 1;
+  }
+
+  /** Cells written at least once and not forgotten since. */
+  public int touchedCells() {
+    return touched;
+  }
+
+  /** Cells allocated for the grid. */
+  public int capacity() {
+    return heat.length;
+  }
+
+  /** Cells forgotten because the grid was at its size cap. */
+  public long evictedCells() {
+    return evicted;
+  }
+
+  /** Heat of every touched cell with heat above minimum, decayed to now. */
+  public Map<Point, Double> toMap(long now, double minimum) {
+    Map<Point, Double> result = new HashMap<>();
+    for (int index = 0; index < stamp.length; index++) {
+      if (stamp[index] == NEVER) continue;
+      double value = decayed(index, now);
+      if (value > minimum) {
+        result.put(
+          new Point(minX + index % width, minY + index / width),
+          value
+        );
+      }
+    }
+    return result;
+  }
+
+  private float decayed(int index, long now) {
+    long elapsed = now - (epochMillis + stamp[index] - 1);
+    if (elapsed <= 0) return heat[index];
+    float value = (float) (
+      heat[index] * Math.pow(decayPerSecond, elapsed / 1000.0)
+    );
+    return Math.max(floor, value);
+  }
+
+  private int toStamp(long now) {
+    long sinceEpoch = now - epochMillis;
+    // An int of millis lasts 24 days, far beyond any match
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, sinceEpoch + 1));
+  }
+
+  private int indexOf(int x, int y) {
+    int col = x - minX;
+    int row = y - minY;
+    if (col < 0 || row < 0 || col >= width || row >= height) return -1;
+    return row * width + col;
+  }
+
+  // Resizes (or, at the cap, moves) the window so it covers x, y
+  private int grow(int x, int y) {
+    int newMinX = Math.min(minX, x);
+    int newMinY = Math.min(minY, y);
+    int newMaxX = Math.max(minX + width - 1, x);
+    int newMaxY = Math.max(minY + height - 1, y);
+    int newWidth = width;
+    int newHeight = height;
+    while (newWidth < newMaxX - newMinX + 1) newWidth *= 2;
+    while (newHeight < newMaxY - newMinY + 1) newHeight *= 2;
+
+    if ((long) newWidth * newHeight > maxCells) {
+      // Keep the shape that fits the cap, centred on the new cell
+      int side = (int) Math.sqrt(maxCells);
+      newWidth = Math.min(newWidth, side);
+      newHeight = Math.min(newHeight, maxCells / newWidth);
+      newMinX = x - newWidth / 2;
+      newMinY = y - newHeight / 2;
+    } else {
+      // Grow away from the new cell's side so repeated steps fit
+      if (x < minX) newMinX = minX + width - newWidth;
+      if (y < minY) newMinY = minY + height - newHeight;
+      if (x >= minX) newMinX = minX;
+      if (y >= minY) newMinY = minY;
+    }
+
+    float[] newHeat = new float[newWidth * newHeight];
+    int[] newStamp = new int[newWidth * newHeight];
+    int kept = 0;
+    for (int index = 0; index < stamp.length; index++) {
+      if (stamp[index] == NEVER) continue;
+      int col = minX + index % width - newMinX;
+      int row = minY + index / width - newMinY;
+      if (col < 0 || row < 0 || col >= newWidth || row >= newHeight) {
+        evicted++;
+        continue;
+      }
+      int target = row * newWidth + col;
+      newHeat[target] = heat[index];
+      newStamp[target] = stamp[index];
+      kept++;
+    }
+    minX = newMinX;
+    minY = newMinY;
+    width = newWidth;
+    height = newHeight;
+    heat = newHeat;
+    stamp = newStamp;
+    touched = kept;
+    return indexOf(x, y);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      "HeatField[x=%d..%d y=%d..%d, %d touched]",
+      minX,
+      minX + width - 1,
+      minY,
+      minY + height - 1,
+      touched
+    );
+  }
+}
@@ -3,9 +3,16 @@ package jason.eis;
 import jason.asSyntax.Atom;
 import jason.asSyntax.NumberTerm;
 import jason.asSyntax.Term;
+import jason.eis.movements.Direction;
 import jason.eis.movements.Search;
+import jason.eis.movements.collision.data.MoveHistory;
+import jason.eis.percepts.GoalPercept;
+import jason.eis.percepts.ObstaclePercept;
+import jason.eis.percepts.PerceptSnapshot;
+import jason.eis.percepts.ThingPercept;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -14,13 +21,14 @@ public class LocalMap {
     LocalMap.class.getName()
   );
   private static final int CELL_SIZE = 8; // Power of 2 for efficient division
-  private static final int STALE_THRESHOLD = 30000; // 30 seconds in milliseconds
+  private static final long STALE_STEPS = 30; // Unseen steps before stale
   public static boolean DEBUG = false;
 
-  // Add these constants at the top of the LocalMap class with the other constants
+  // Area heat around visited positions; decay is per second
   private static final double HEAT_DECAY_RATE = 0.92;
   private static final double INITIAL_HEAT = 1.0;
-  private static final double MIN_HEAT = 0.1;
+  private static final float MIN_HEAT = 0.1f;
+  private static final float MAX_AREA_HEAT = 1.0f;
   private static final int HEAT_RADIUS = 3;
 
   // Current position tracking
@@ -40,26 +48,35 @@ public class LocalMap {
   // Add a lock for position updates
   private final Object positionLock = new Object();
 
+  // Snapshot state: writers bump the version under positionLock, readers take
+  // a frozen copy that is rebuilt at most once per version
+  private final AtomicLong version = new AtomicLong();
+  private volatile LocalMap publishedSnapshot = null;
+  private volatile boolean updating = false; // Between begin/commitUpdate
+  private volatile boolean snapshotsRequested = false;
+  private final boolean frozen;
+  private volatile boolean retired = false;
+  private final long snapshotVersion;
+
   // Add debug tracking map
   private final Map<String, EntityDebugInfo> debugTrackingMap;
 
   private final Map<Point, ObstacleInfo> dynamicObstacles = new ConcurrentHashMap<>();
   private static final int DYNAMIC_OBSTACLE_TTL = 3000; // 3 seconds time-to-live
+  public static final String INFERRED_OBSTACLE = "inferred"; // Type of obstacles from failed moves
   public static final int CRITICAL_DISTANCE = 2; // Distance where obstacles become critical to avoid
   public static final int AWARENESS_DISTANCE = 5; // Max distance to track obstacles
 
-  private Point mapMinBounds = null;
-  private Point mapMaxBounds = null;
-  private boolean boundsInitialized = false;
-
-  // Boundary detection constants
-  private static final int MIN_BOUNDARY_CONFIRMATIONS = 3;
-  private final Map<String, Integer> boundaryConfirmations = new HashMap<>(); // Tracks how many times we've hit each boundary
+  // Known grid edges, replaced as a whole when one is learned
+  private volatile WorldExtent worldExtent = WorldExtent.UNKNOWN;
 
-  private final Map<String, BoundaryEvidence> boundaryEvidence = new HashMap<>();
-  private static final int EVIDENCE_THRESHOLD = 3; // Number of confirmations needed
+  // Line-border evidence per side, indexed by Direction ordinal
+  private static final int BORDER_SIGHTINGS = 3; // Distinct positions needed
+  private static final int BORDER_MIN_WIDTH = 5; // Visible row cells needed
+  private final int[] borderCandidate = new int[Direction.COUNT];
+  private final int[] borderSightings = new int[Direction.COUNT];
+  private final int[] borderLastAlong = new int[Direction.COUNT];
 
-  private final Map<String, BoundaryInfo> confirmedBoundaries = new HashMap<>();
   private final Map<Point, ObstacleInfo> staticObstacles = new HashMap<>();
   private final Map<Point, Integer> temporaryObstacles = new HashMap<>();
   // Add these collections if they don't exist
@@ -67,29 +84,26 @@ public class LocalMap {
   private final Map<Point, Entity> blocks = new HashMap<>();
   private final Map<Point, Entity> goals = new HashMap<>();
 
-  // Add constants for boundary and obstacle handling
-  private static final int BOUNDARY_CONFIRMATION_THRESHOLD = 2;
+  // Add constants for obstacle handling
   private static final int TEMP_OBSTACLE_TTL = 5; // Time-to-live in steps
 
-  // Add tracking maps
-  private Point lastAttemptedMove = null;
-
-  // Add these fields at the top of the class
-  private final Map<Point, Integer> visitedCells = new ConcurrentHashMap<>();
-  private final Map<Point, Long> lastVisitTime = new ConcurrentHashMap<>();
+  // Visit counts, decaying per second; a cell counts as explored for
+  // VISIT_DECAY_TIME after its last visit
+  private HeatField visits = new HeatField(
+    VISIT_DECAY_RATE,
+    0f,
+    MemoryBudget.MAX_HEAT_CELLS
+  );
+  private static final double VISIT_DECAY_RATE = 0.9;
   private static final long VISIT_DECAY_TIME = 30000; // 30 seconds
   private static final int MAX_VISIT_COUNT = 10;
 
   // Add this field at the top of the class
 
-  private static final int MOVEMENT_HISTORY_SIZE = 12;
-  private static final int MEMORY_SIZE = 12;
-
-  // Core movement tracking
-  private final Deque<MovementRecord> movementHistory = new LinkedList<>();
+  // Core movement tracking, shared with the collision handlers
+  private MoveHistory moveHistory = new MoveHistory();
   private int agentSize = 1;
   private String blockAttachment = null;
-  private final Deque<String> lastMoves = new ArrayDeque<>(MEMORY_SIZE);
   private Point lastPosition = null;
   private String lastRecommendedDirection = null;
 
@@ -126,16 +140,34 @@ public class LocalMap {
   private static final int SAME_DIRECTION_THRESHOLD = 7;
   private static final int CHECK_INTERVAL = 3; // Single constant for all interval checks
 
-  // Add field to track consecutive same direction moves
+  // Direction of the last move; runs are counted by moveHistory
   private String lastDirection = null;
-  private int sameDirectionCount = 0;
 
   // Add this field
   private final Set<String> oscillatingDirections = new HashSet<>();
 
-  // Add these fields with the other fields
-  private final Map<Point, Double> heatMap = new ConcurrentHashMap<>();
-  private long lastHeatDecay = System.currentTimeMillis();
+  // Area heat plus the stuck and oscillation penalties from Exploration
+  private HeatField heatMap = new HeatField(
+    HEAT_DECAY_RATE,
+    MIN_HEAT,
+    MemoryBudget.MAX_HEAT_CELLS
+  );
+
+  // Whether currentPosition is known to match the agent's real position,
+  // see setPositionConfirmed; vision clears nothing while it is not
+  private boolean positionConfirmed = true;
+
+  // Other agents seen across steps, for predicting where they will be
+  private AgentTracks agentTracks = new AgentTracks();
+
+  // Step of the last vision applied, entities are stamped with it
+  private volatile long lastVisionStep = 0;
+
+  // Static and dynamic obstacles as bits, kept in step with the maps above
+  private ObstacleBitmap obstacleBits = new ObstacleBitmap();
+
+  // Totals forgotten by enforceMemoryBudget, for the memory report
+  private long entitiesEvicted = 0;
 
   // Add these fields with other state tracking variables
   private boolean isWatchingForcedChange = false;
@@ -143,16 +175,14 @@ public class LocalMap {
   private Set<String> triedForcedDirections = new HashSet<>();
   private static final int FORCED_DIRECTION_THRESHOLD = 7;
 
-  // Update MovementRecord class to include timestamp
+  // A move as read back from moveHistory
   public static class MovementRecord {
     public final Point position;
     public final String direction;
-    public final long timestamp;
 
     public MovementRecord(Point position, String direction) {
       this.position = position;
       this.direction = direction;
-      this.timestamp = System.currentTimeMillis();
     }
   }
 
@@ -182,27 +212,33 @@ public class LocalMap {
     OBSTACLE,
   }
 
+  /**
+   * An entity as last seen, with the step it was last seen in. Immutable, so
+   * snapshots share instances with the live map; seeing it again replaces
+   * the entry.
+   */
   public static class Entity {
     private final String id;
     private final EntityType type;
     private final String details;
     private final Point position;
     private final Point relativePos;
-    private long lastSeen;
+    private final long lastSeenStep;
 
     public Entity(
       String id,
       EntityType type,
       String details,
       Point position,
-      Point relativePos
+      Point relativePos,
+      long lastSeenStep
     ) {
       this.id = id;
       this.type = type;
       this.details = details;
       this.position = position;
       this.relativePos = relativePos;
-      this.lastSeen = System.currentTimeMillis();
+      this.lastSeenStep = lastSeenStep;
     }
 
     public String getId() {
@@ -225,72 +261,328 @@ public class LocalMap {
       return relativePos;
     }
 
-    public void updateLastSeen() {
-      this.lastSeen = System.currentTimeMillis();
+    /** This entity, seen again in the given step. */
+    public Entity seenAt(long step) {
+      return new Entity(id, type, details, position, relativePos, step);
     }
 
-    public boolean isStale() {
-      return System.currentTimeMillis() - lastSeen > STALE_THRESHOLD;
+    /**
+     * Whether the entity went unseen for more than STALE_STEPS as of the
+     * given step. Dispensers never go stale, they do not move and the agent
+     * needs them to fetch blocks.
+     */
+    public boolean isStale(long step) {
+      return (
+        type != EntityType.DISPENSER && step - lastSeenStep > STALE_STEPS
+      );
     }
   }
 
+  /**
+   * Bucketed spatial index. The world is split into CELL_SIZE x CELL_SIZE
+   * cells and every bucket holds the entities, static obstacles and dynamic
+   * obstacles that fall inside it, so range and nearest-neighbour queries only
+   * visit the handful of cells that overlap the query area.
+   */
   private static class SpatialGrid {
-    private final Map<Point, Set<String>> grid = new ConcurrentHashMap<>();
+    private static final int CELL_SHIFT = Integer.numberOfTrailingZeros(
+      CELL_SIZE
+    );
+
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+
+    private static class Cell {
+      final Map<String, Entity> entities = new ConcurrentHashMap<>();
+      final Set<Point> obstacles = ConcurrentHashMap.newKeySet();
+      final Map<Point, ObstacleInfo> dynamicObstacles = new ConcurrentHashMap<>();
+
+      boolean isEmpty() {
+        return (
+          entities.isEmpty() && obstacles.isEmpty() && dynamicObstacles.isEmpty()
+        );
+      }
+    }
+
+    // Arithmetic shift floors negative coordinates into the right cell
+    private static int toCell(int coord) {
+      return coord >> CELL_SHIFT;
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+      return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private static long cellKey(Point p) {
+      return cellKey(toCell(p.x), toCell(p.y));
+    }
+
+    void add(Entity entity) {
+      cells.compute(
+        cellKey(entity.position),
+        (k, cell) -> {
+          Cell target = cell != null ? cell : new Cell();
+          target.entities.put(entity.id, entity);
+          return target;
+        }
+      );
+    }
+
+    void remove(Entity entity) {
+      cells.computeIfPresent(
+        cellKey(entity.position),
+        (k, cell) -> {
+          cell.entities.remove(entity.id);
+          return cell.isEmpty() ? null : cell;
+        }
+      );
+    }
+
+    void addObstacle(Point p) {
+      cells.compute(
+        cellKey(p),
+        (k, cell) -> {
+          Cell target = cell != null ? cell : new Cell();
+          target.obstacles.add(p);
+          return target;
+        }
+      );
+    }
+
+    void removeObstacle(Point p) {
+      cells.computeIfPresent(
+        cellKey(p),
+        (k, cell) -> {
+          cell.obstacles.remove(p);
+          return cell.isEmpty() ? null : cell;
+        }
+      );
+    }
+
+    /** Entities of the given type recorded exactly at p. */
+    List<Entity> entitiesAt(Point p, EntityType type) {
+      Cell cell = cells.get(cellKey(p));
+      if (cell == null) return Collections.emptyList();
+      List<Entity> result = new ArrayList<>(2);
+      for (Entity e : cell.entities.values()) {
+        if (e.type == type && e.position.equals(p)) result.add(e);
+      }
+      return result;
+    }
+
+    int cellCount() {
+      return cells.size();
+    }
 
-    void add(Point p, String entityId) {
-      grid.computeIfAbsent(p, k -> ConcurrentHashMap.newKeySet()).add(entityId);
+    void addDynamicObstacle(Point p, ObstacleInfo info) {
+      cells.compute(
+        cellKey(p),
+        (k, cell) -> {
+          Cell target = cell != null ? cell : new Cell();
+          target.dynamicObstacles.put(p, info);
+          return target;
+        }
+      );
     }
 
-    void remove(Point p, String entityId) {
-      Set<String> cell = grid.get(p);
-      if (cell != null) {
-        cell.remove(entityId);
-        if (cell.isEmpty()) {
-          grid.remove(p);
+    void removeDynamicObstacle(Point p) {
+      cells.computeIfPresent(
+        cellKey(p),
+        (k, cell) -> {
+          cell.dynamicObstacles.remove(p);
+          return cell.isEmpty() ? null : cell;
         }
+      );
+    }
+
+    void clearDynamicObstacles() {
+      for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+        cells.computeIfPresent(
+          entry.getKey(),
+          (k, cell) -> {
+            cell.dynamicObstacles.clear();
+            return cell.isEmpty() ? null : cell;
+          }
+        );
       }
     }
 
-    Set<String> getEntitiesInRange(Point center, int range) {
-      Set<String> result = ConcurrentHashMap.newKeySet();
+    /**
+     * Adds the positions of all entities of the given type (or of any type
+     * when null) within the square of the given range around (x,y) that are
+     * not stale as of step.
+     */
+    void collectEntitiesInRange(
+      int x,
+      int y,
+      int range,
+      EntityType type,
+      long step,
+      Collection<Point> out
+    ) {
+      int maxCellX = toCell(x + range);
+      int maxCellY = toCell(y + range);
+      for (int cx = toCell(x - range); cx <= maxCellX; cx++) {
+        for (int cy = toCell(y - range); cy <= maxCellY; cy++) {
+          Cell cell = cells.get(cellKey(cx, cy));
+          if (cell == null) continue;
+          for (Entity e : cell.entities.values()) {
+            if (
+              (type == null || e.type == type) &&
+              Math.abs(e.position.x - x) <= range &&
+              Math.abs(e.position.y - y) <= range &&
+              !e.isStale(step)
+            ) {
+              out.add(e.position);
+            }
+          }
+        }
+      }
+    }
 
-      // Use exact coordinate matching within range
-      for (int x = -range; x <= range; x++) {
-        for (int y = -range; y <= range; y++) {
-          Point p = new Point(center.x + x, center.y + y);
-          Set<String> entities = grid.get(p);
-          if (entities != null) {
-            result.addAll(entities);
+    void collectObstaclesInRange(
+      int x,
+      int y,
+      int range,
+      Collection<Point> out
+    ) {
+      int maxCellX = toCell(x + range);
+      int maxCellY = toCell(y + range);
+      for (int cx = toCell(x - range); cx <= maxCellX; cx++) {
+        for (int cy = toCell(y - range); cy <= maxCellY; cy++) {
+          Cell cell = cells.get(cellKey(cx, cy));
+          if (cell == null) continue;
+          for (Point p : cell.obstacles) {
+            if (Math.abs(p.x - x) <= range && Math.abs(p.y - y) <= range) {
+              out.add(p);
+            }
           }
         }
       }
-      return result;
     }
 
-    void move(Point oldPos, Point newPos, String entityId) {
-      remove(oldPos, entityId);
-      add(newPos, entityId);
+    void collectDynamicObstaclesInRange(
+      int x,
+      int y,
+      int range,
+      Collection<ObstacleInfo> out
+    ) {
+      int maxCellX = toCell(x + range);
+      int maxCellY = toCell(y + range);
+      for (int cx = toCell(x - range); cx <= maxCellX; cx++) {
+        for (int cy = toCell(y - range); cy <= maxCellY; cy++) {
+          Cell cell = cells.get(cellKey(cx, cy));
+          if (cell == null) continue;
+          for (Map.Entry<Point, ObstacleInfo> entry : cell.dynamicObstacles.entrySet()) {
+            Point p = entry.getKey();
+            if (
+              Math.abs(p.x - x) <= range &&
+              Math.abs(p.y - y) <= range &&
+              !entry.getValue().isStale()
+            ) {
+              out.add(entry.getValue());
+            }
+          }
+        }
+      }
     }
 
     public Collection<Entity> getNearbyEntities(int x, int y, int range) {
       List<Entity> nearby = new ArrayList<>();
-      for (int dx = -range; dx <= range; dx++) {
-        for (int dy = -range; dy <= range; dy++) {
-          int checkX = x + dx;
-          int checkY = y + dy;
-          Entity entity = getEntity(checkX, checkY);
-          if (entity != null) {
-            nearby.add(entity);
+      int maxCellX = toCell(x + range);
+      int maxCellY = toCell(y + range);
+      for (int cx = toCell(x - range); cx <= maxCellX; cx++) {
+        for (int cy = toCell(y - range); cy <= maxCellY; cy++) {
+          Cell cell = cells.get(cellKey(cx, cy));
+          if (cell == null) continue;
+          for (Entity e : cell.entities.values()) {
+            if (
+              Math.abs(e.position.x - x) <= range &&
+              Math.abs(e.position.y - y) <= range
+            ) {
+              nearby.add(e);
+            }
           }
         }
       }
       return nearby;
     }
 
-    private Entity getEntity(int x, int y) {
-      // Implement based on your grid structure
-      // This is a placeholder implementation
-      return null;
+    /**
+     * Nearest entity of the given type not stale as of step, by Manhattan
+     * distance, found by scanning rings of cells outwards until no closer
+     * cell can exist.
+     */
+    Entity findNearestEntity(
+      int x,
+      int y,
+      EntityType type,
+      long step,
+      int maxRange
+    ) {
+      int originX = toCell(x);
+      int originY = toCell(y);
+      int maxRing = (maxRange >> CELL_SHIFT) + 1;
+      Entity best = null;
+      int bestDistance = Integer.MAX_VALUE;
+
+      for (int ring = 0; ring <= maxRing; ring++) {
+        // Every cell in this ring is at least (ring - 1) * CELL_SIZE + 1 away
+        if (best != null && (ring - 1) * CELL_SIZE >= bestDistance) break;
+
+        for (int dx = -ring; dx <= ring; dx++) {
+          for (int dy = -ring; dy <= ring; dy++) {
+            if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) continue;
+            Cell cell = cells.get(cellKey(originX + dx, originY + dy));
+            if (cell == null) continue;
+            for (Entity e : cell.entities.values()) {
+              if (type != null && e.type != type) continue;
+              int distance =
+                Math.abs(e.position.x - x) + Math.abs(e.position.y - y);
+              if (
+                distance <= maxRange &&
+                distance < bestDistance &&
+                !e.isStale(step)
+              ) {
+                best = e;
+                bestDistance = distance;
+              }
+            }
+          }
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Nearest static obstacle by Manhattan distance, or null if none lies
+     * within maxRange.
+     */
+    Point findNearestObstacle(int x, int y, int maxRange) {
+      int originX = toCell(x);
+      int originY = toCell(y);
+      int maxRing = (maxRange >> CELL_SHIFT) + 1;
+      Point best = null;
+      int bestDistance = Integer.MAX_VALUE;
+
+      for (int ring = 0; ring <= maxRing; ring++) {
+        if (best != null && (ring - 1) * CELL_SIZE >= bestDistance) break;
+
+        for (int dx = -ring; dx <= ring; dx++) {
+          for (int dy = -ring; dy <= ring; dy++) {
+            if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) continue;
+            Cell cell = cells.get(cellKey(originX + dx, originY + dy));
+            if (cell == null) continue;
+            for (Point p : cell.obstacles) {
+              int distance = Math.abs(p.x - x) + Math.abs(p.y - y);
+              if (distance <= maxRange && distance < bestDistance) {
+                best = p;
+                bestDistance = distance;
+              }
+            }
+          }
+        }
+      }
+      return best;
     }
   }
 
@@ -318,81 +610,72 @@ public class LocalMap {
     }
   }
 
-  private static class BoundaryEvidence {
-    int failedMoves = 0;
-    int continuousObstacles = 0;
-    Point lastConfirmedPosition = null;
-
-    void addFailedMove(Point position) {
-      failedMoves++;
-      lastConfirmedPosition = position;
-    }
-
-    void addObstacleEvidence(int count) {
-      continuousObstacles = Math.max(continuousObstacles, count);
-    }
-
-    boolean isBoundaryConfirmed() {
-      // Confirm boundary if either:
-      // 1. Multiple failed moves in same area
-      // 2. Long continuous line of obstacles at vision limit
-      return (
-        failedMoves >= EVIDENCE_THRESHOLD ||
-        continuousObstacles >= EVIDENCE_THRESHOLD
-      );
-    }
-  }
-
-  private static class BoundaryInfo {
-    Point position;
-    long confirmationTime;
-    String direction;
-
-    BoundaryInfo(Point pos, String dir) {
-      this.position = pos;
-      this.confirmationTime = System.currentTimeMillis();
-      this.direction = dir;
-    }
-
-    Point getPosition() {
-      return position;
-    }
-  }
-
+  /**
+   * An obstacle as last seen. Immutable, so snapshots share instances with
+   * the live map; a new sighting or heading replaces the entry.
+   */
   public static class ObstacleInfo {
     private final Point position;
-    private Point velocity; // Add velocity tracking
-    private long lastSeen;
+    private final Direction heading; // Of the agent's track, see syncVision
+    private final long lastSeen;
     private final String type;
     private final boolean isDynamic;
-    private Point lastPosition; // Add last position tracking
-    private boolean hasBlock = false;
+    private final boolean hasBlock;
 
     public ObstacleInfo(Point pos, String type, boolean isDynamic) {
+      this(pos, type, isDynamic, false, null, System.currentTimeMillis());
+    }
+
+    private ObstacleInfo(
+      Point pos,
+      String type,
+      boolean isDynamic,
+      boolean hasBlock,
+      Direction heading,
+      long lastSeen
+    ) {
       this.position = pos;
       this.type = type;
       this.isDynamic = isDynamic;
-      this.lastSeen = System.currentTimeMillis();
-      this.velocity = null;
-      this.lastPosition = null;
+      this.hasBlock = hasBlock;
+      this.heading = heading;
+      this.lastSeen = lastSeen;
     }
 
-    public void updateSeen() {
-      if (lastPosition != null && !position.equals(lastPosition)) {
-        // Calculate velocity based on position change
-        velocity =
-          new Point(position.x - lastPosition.x, position.y - lastPosition.y);
-      }
-      lastPosition = position;
-      this.lastSeen = System.currentTimeMillis();
+    /** This obstacle, seen again now. */
+    public ObstacleInfo seenNow() {
+      return new ObstacleInfo(
+        position,
+        type,
+        isDynamic,
+        hasBlock,
+        heading,
+        System.currentTimeMillis()
+      );
     }
 
+    /** Position after steps moves along the tracked heading, if any. */
     public Point predictPosition(int steps) {
-      if (!isDynamic || velocity == null) return position;
+      if (!isDynamic || heading == null) return position;
 
       return new Point(
-        position.x + (velocity.x * steps),
-        position.y + (velocity.y * steps)
+        position.x + (heading.dx * steps),
+        position.y + (heading.dy * steps)
+      );
+    }
+
+    public Direction getHeading() {
+      return heading;
+    }
+
+    ObstacleInfo withHeading(Direction heading) {
+      return new ObstacleInfo(
+        position,
+        type,
+        isDynamic,
+        hasBlock,
+        heading,
+        lastSeen
       );
     }
 
@@ -416,12 +699,25 @@ public class LocalMap {
       return hasBlock;
     }
 
-    public void setHasBlock(boolean hasBlock) {
-      this.hasBlock = hasBlock;
+    public ObstacleInfo withBlock(boolean hasBlock) {
+      return new ObstacleInfo(
+        position,
+        type,
+        isDynamic,
+        hasBlock,
+        heading,
+        lastSeen
+      );
     }
   }
 
   public LocalMap() {
+    this(false, -1);
+  }
+
+  private LocalMap(boolean frozen, long snapshotVersion) {
+    this.frozen = frozen;
+    this.snapshotVersion = snapshotVersion;
     this.obstacles = new HashSet<>();
     this.currentPosition = new Point(0, 0);
     this.spatialGrid = new SpatialGrid();
@@ -435,6 +731,161 @@ public class LocalMap {
     }
   }
 
+  /**
+   * Returns an immutable view of this map as of its latest version. Planners
+   * should read from a snapshot instead of the live map so that percept
+   * ingestion can keep writing without locks or torn reads on their side.
+   * The snapshot is cached and only rebuilt after the next write. While an
+   * update is open (see beginUpdate) the last committed snapshot is
+   * returned, so readers neither see half a step nor wait for the copy.
+   */
+  public LocalMap snapshot() {
+    if (frozen) return this;
+    snapshotsRequested = true;
+
+    LocalMap current = publishedSnapshot;
+    if (
+      current != null &&
+      (updating || current.snapshotVersion == version.get())
+    ) {
+      return current;
+    }
+    return publishSnapshot();
+  }
+
+  /**
+   * Opens a batch of writes that belong together, such as one step's
+   * percepts. Snapshots taken until commitUpdate() show the map as it was
+   * before the batch.
+   */
+  public void beginUpdate() {
+    checkWritable();
+    updating = true;
+  }
+
+  /**
+   * Closes the batch opened by beginUpdate(). Once anyone has asked for a
+   * snapshot, the next one is copied here, on the writer's thread, so
+   * planners find it cached instead of copying the whole map while holding
+   * the lock that ingestion writes under.
+   */
+  public void commitUpdate() {
+    updating = false;
+    if (snapshotsRequested) publishSnapshot();
+  }
+
+  private LocalMap publishSnapshot() {
+    synchronized (positionLock) {
+      LocalMap current = publishedSnapshot;
+      long latest = version.get();
+      if (current == null || current.snapshotVersion != latest) {
+        current = copyOf(this, latest);
+        publishedSnapshot = current;
+      }
+      return current;
+    }
+  }
+
+  public long getVersion() {
+    return frozen ? snapshotVersion : version.get();
+  }
+
+  public boolean isSnapshot() {
+    return frozen;
+  }
+
+  // Must be called with source.positionLock held. Entities and obstacle
+  // infos are immutable, so the copy shares them
+  private static LocalMap copyOf(LocalMap source, long sourceVersion) {
+    LocalMap copy = new LocalMap(true, sourceVersion);
+
+    copy.currentPosition = source.currentPosition;
+    copy.obstacles.addAll(source.obstacles);
+    copy.entityRegistry.putAll(source.entityRegistry);
+    for (EntityType type : EntityType.values()) {
+      Map<String, Entity> entities = source.typeIndex.get(type);
+      copy.typeIndex.get(type).putAll(entities);
+      for (Entity entity : entities.values()) {
+        copy.spatialGrid.add(entity);
+      }
+    }
+    copy.staticObstacles.putAll(source.staticObstacles);
+    for (Point p : source.staticObstacles.keySet()) {
+      copy.spatialGrid.addObstacle(p);
+    }
+    for (Map.Entry<Point, ObstacleInfo> entry : source.dynamicObstacles.entrySet()) {
+      copy.putDynamicObstacle(entry.getKey(), entry.getValue());
+    }
+    copy.obstacleBits = source.obstacleBits.copy();
+    copy.agentTracks = source.agentTracks.copy();
+    copy.lastVisionStep = source.lastVisionStep;
+
+    copy.worldExtent = source.worldExtent;
+    copy.positionConfirmed = source.positionConfirmed;
+    System.arraycopy(
+      source.borderCandidate,
+      0,
+      copy.borderCandidate,
+      0,
+      Direction.COUNT
+    );
+    System.arraycopy(
+      source.borderSightings,
+      0,
+      copy.borderSightings,
+      0,
+      Direction.COUNT
+    );
+    System.arraycopy(
+      source.borderLastAlong,
+      0,
+      copy.borderLastAlong,
+      0,
+      Direction.COUNT
+    );
+    copy.temporaryObstacles.putAll(source.temporaryObstacles);
+    copy.dispensers.putAll(source.dispensers);
+    copy.blocks.putAll(source.blocks);
+    copy.goals.putAll(source.goals);
+
+    copy.visits = source.visits.copy();
+    copy.heatMap = source.heatMap.copy();
+    copy.entitiesEvicted = source.entitiesEvicted;
+
+    copy.moveHistory = source.moveHistory.copy();
+    copy.agentSize = source.agentSize;
+    copy.blockAttachment = source.blockAttachment;
+    copy.lastPosition = source.lastPosition;
+    copy.lastRecommendedDirection = source.lastRecommendedDirection;
+    copy.lastDirection = source.lastDirection;
+
+    copy.boundaryAttempts.putAll(source.boundaryAttempts);
+    copy.isOnBoundary.putAll(source.isOnBoundary);
+    copy.lastBoundaryDirections.putAll(source.lastBoundaryDirections);
+
+    copy.stuckCounter = source.stuckCounter;
+    copy.stuckStartTime = source.stuckStartTime;
+    copy.triedDirections.addAll(source.triedDirections);
+    copy.patternCount = source.patternCount;
+    copy.lastOscillationUpdateTime = source.lastOscillationUpdateTime;
+    copy.oscillatingDirections.addAll(source.oscillatingDirections);
+    copy.isWatchingForcedChange = source.isWatchingForcedChange;
+    copy.forcedDirectionTryCount = source.forcedDirectionTryCount;
+    copy.triedForcedDirections = new HashSet<>(source.triedForcedDirections);
+
+    return copy;
+  }
+
+  private void checkWritable() {
+    if (frozen) {
+      throw new IllegalStateException("LocalMap snapshot is read-only");
+    }
+  }
+
+  private void markDirty() {
+    version.incrementAndGet();
+  }
+
   // Position management
   public Point getCurrentPosition() {
     return new Point(currentPosition.x, currentPosition.y);
@@ -442,6 +893,8 @@ public class LocalMap {
 
   public void updatePosition(Point newPosition) {
     synchronized (positionLock) {
+      checkWritable();
+      markDirty();
       if (DEBUG) {
         logger.fine(
           String.format(
@@ -457,25 +910,53 @@ public class LocalMap {
     }
   }
 
+  /**
+   * Set at ingest: true when the last action's result was applied, so the
+   * position matches the server's; false when the result is missing or a
+   * step was skipped and a move may have been lost.
+   */
+  public void setPositionConfirmed(boolean confirmed) {
+    synchronized (positionLock) {
+      checkWritable();
+      positionConfirmed = confirmed;
+    }
+  }
+
+  public boolean isPositionConfirmed() {
+    synchronized (positionLock) {
+      return positionConfirmed;
+    }
+  }
+
+  /**
+   * A move the server reported as failed: the agent stays where it is, but
+   * the attempt goes into the move history so repeated failures show up as
+   * a stuck position.
+   */
+  public void recordFailedMove(String direction) {
+    synchronized (positionLock) {
+      checkWritable();
+      Direction move = Direction.fromSymbol(direction);
+      if (move == null) return;
+      markDirty();
+      lastDirection = direction;
+      recordMovement(currentPosition, move);
+      checkMovementPatterns(direction);
+    }
+  }
+
+  /**
+   * A move the server reported as successful. Called from MI6Model when the
+   * step's lastActionResult arrives, never before, so the frame only moves
+   * with the agent.
+   */
   public void updatePositionFromMovement(String direction) {
     synchronized (positionLock) {
-      Point newPosition;
-      switch (direction.toLowerCase()) {
-        case "n":
-          newPosition = new Point(currentPosition.x, currentPosition.y - 1);
-          break;
-        case "s":
-          newPosition = new Point(currentPosition.x, currentPosition.y + 1);
-          break;
-        case "e":
-          newPosition = new Point(currentPosition.x + 1, currentPosition.y);
-          break;
-        case "w":
-          newPosition = new Point(currentPosition.x - 1, currentPosition.y);
-          break;
-        default:
-          return;
-      }
+      checkWritable();
+      markDirty();
+      Direction move = Direction.fromSymbol(direction);
+      if (move == null) return;
+      Point newPosition = move.next(currentPosition);
 
       if (DEBUG) {
         logger.info(
@@ -490,74 +971,30 @@ public class LocalMap {
         );
       }
 
-      // Track direction count
-      if (direction.equals(lastDirection)) {
-        sameDirectionCount++;
-      } else {
-        sameDirectionCount = 1;
-        lastDirection = direction;
-      }
+      // Compare with the previous move before tracking this one; a
+      // successful move always changes the position
+      boolean changedDirection = !direction.equals(lastDirection);
+      lastDirection = direction;
 
-      // If we're watching for forced direction change, check if position actually changed
-      if (
-        isWatchingForcedChange &&
-        !newPosition.equals(lastPosition) &&
-        !direction.equals(lastDirection)
-      ) {
+      if (isWatchingForcedChange && changedDirection) {
         logger.info("Forced direction change success!");
         // Position changed in a different direction - success!
         stopWatchingForcedChange();
       }
 
       // Record movement in history
-      recordMovement(newPosition, direction);
-
-      // Perform checks at different intervals
-      movesSinceLastStuckCheck++;
-
-      // Check for 2-step and 3-step patterns every 3 moves
-      if (movesSinceLastStuckCheck >= 3) {
-        // Check for position-based stuck
-        if (isPositionStuck(newPosition)) {
-          incrementStuck(direction);
-          wasStuckLastCheck = true;
-        } else if (!wasStuckLastCheck) {
-          resetStuckState();
-        }
+      recordMovement(newPosition, move);
 
-        // Check for 2-step and 3-step patterns
-        if (detectShortPatterns()) {
-          patternCount++;
-          lastOscillationUpdateTime = System.currentTimeMillis();
-        }
-      }
-
-      // Check for 4-step patterns every 6 moves
-      if (movesSinceLastStuckCheck >= 6) {
-        movesSinceLastStuckCheck = 0;
-
-        // Check for 4-step patterns
-        if (detectLongPattern()) {
-          patternCount++;
-          lastOscillationUpdateTime = System.currentTimeMillis();
-        } else {
-          patternCount = 0;
-        }
-      } else if (wasStuckLastCheck) {
-        // Immediate recheck if was stuck
-        if (!isPositionStuck(newPosition)) {
-          resetStuckState();
-          wasStuckLastCheck = false;
-          movesSinceLastStuckCheck = 0;
-        }
-      }
+      checkMovementPatterns(direction);
 
       // Update visit tracking
-      visitedCells.merge(newPosition, 1, Integer::sum);
-      lastVisitTime.put(newPosition, System.currentTimeMillis());
-
-      // Clean up old visit records periodically
-      cleanupOldVisits();
+      visits.add(
+        newPosition.x,
+        newPosition.y,
+        1f,
+        MAX_VISIT_COUNT,
+        System.currentTimeMillis()
+      );
 
       // Update heat map for new position
       updateHeatMap(newPosition);
@@ -567,20 +1004,9 @@ public class LocalMap {
     }
   }
 
-  private boolean isPositionStuck(Point newPosition) {
-    if (movementHistory.size() < 3) return false;
-
-    // Get last 3 positions
-    List<Point> lastPositions = movementHistory
-      .stream()
-      .limit(3)
-      .map(record -> record.position)
-      .collect(Collectors.toList());
-
-    // Check if all positions are the same
-    return lastPositions
-      .stream()
-      .allMatch(pos -> pos.equals(lastPositions.get(0)));
+  // Whether the last 3 moves all ended on the same position
+  private boolean isPositionStuck() {
+    return moveHistory.samePositionRun() >= 3;
   }
 
   // Entity management
@@ -604,9 +1030,12 @@ public class LocalMap {
       String entityId = generateEntityId(type, absolutePos, subType);
       Entity existingEntity = entityRegistry.get(entityId);
 
-      if (existingEntity != null && !existingEntity.isStale()) {
-        // Just update the last seen time
-        existingEntity.updateLastSeen();
+      if (existingEntity != null && !existingEntity.isStale(lastVisionStep)) {
+        // Just update the last seen step
+        Entity refreshed = existingEntity.seenAt(lastVisionStep);
+        entityRegistry.put(entityId, refreshed);
+        typeIndex.get(type).put(entityId, refreshed);
+        spatialGrid.add(refreshed);
         return;
       }
 
@@ -615,12 +1044,13 @@ public class LocalMap {
         type,
         subType,
         absolutePos,
-        currentAbsPos
+        currentAbsPos,
+        lastVisionStep
       );
 
       entityRegistry.put(entityId, entity);
       typeIndex.get(type).put(entityId, entity);
-      spatialGrid.add(absolutePos, entityId);
+      spatialGrid.add(entity);
 
       // Add debug tracking
       if (DEBUG) {
@@ -682,40 +1112,51 @@ public class LocalMap {
     String details,
     Point currentAbsPos
   ) {
-    addEntity(EntityType.DISPENSER, details, relativePos, currentAbsPos);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      addEntity(EntityType.DISPENSER, details, relativePos, currentAbsPos);
 
-    // Also maintain the legacy dispensers map for backward compatibility
-    Point absolutePos = new Point(
-      currentAbsPos.x + relativePos.x,
-      currentAbsPos.y + relativePos.y
-    );
-    dispensers.put(
-      absolutePos,
-      entityRegistry.get(
-        generateEntityId(EntityType.DISPENSER, absolutePos, details)
-      )
-    );
+      // Also maintain the legacy dispensers map for backward compatibility
+      Point absolutePos = new Point(
+        currentAbsPos.x + relativePos.x,
+        currentAbsPos.y + relativePos.y
+      );
+      dispensers.put(
+        absolutePos,
+        entityRegistry.get(
+          generateEntityId(EntityType.DISPENSER, absolutePos, details)
+        )
+      );
+    }
   }
 
   public void addBlock(Point relativePos, String details, Point currentAbsPos) {
-    Point absolutePos = new Point(
-      currentAbsPos.x + relativePos.x,
-      currentAbsPos.y + relativePos.y
-    );
-    blocks.put(
-      absolutePos,
-      new Entity(
-        "block_" + absolutePos.toString(),
-        EntityType.BLOCK,
-        details,
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      Point absolutePos = new Point(
+        currentAbsPos.x + relativePos.x,
+        currentAbsPos.y + relativePos.y
+      );
+      blocks.put(
         absolutePos,
-        relativePos
-      )
-    );
+        new Entity(
+          "block_" + absolutePos.toString(),
+          EntityType.BLOCK,
+          details,
+          absolutePos,
+          relativePos,
+          lastVisionStep
+        )
+      );
+    }
   }
 
   public void addObstacle(Point relativePos, Point currentAbsPos) {
     synchronized (positionLock) {
+      checkWritable();
+      markDirty();
       Point absolutePos = new Point(
         currentAbsPos.x + relativePos.x,
         currentAbsPos.y + relativePos.y
@@ -726,25 +1167,35 @@ public class LocalMap {
 
       // Maintain legacy collections for backward compatibility
       obstacles.add(absolutePos);
-      staticObstacles.putIfAbsent(
-        absolutePos,
-        new ObstacleInfo(absolutePos, "static", false)
-      );
+      // Seeing the obstacle confirms one inferred from a failed move
+      ObstacleInfo known = staticObstacles.get(absolutePos);
+      if (known == null || INFERRED_OBSTACLE.equals(known.getType())) {
+        staticObstacles.put(
+          absolutePos,
+          new ObstacleInfo(absolutePos, "static", false)
+        );
+      }
+      obstacleBits.set(absolutePos.x, absolutePos.y, true);
+      spatialGrid.addObstacle(absolutePos);
     }
   }
 
   public void addGoal(Point relativePos, Point currentAbsPos) {
-    addEntity(EntityType.GOAL, "goal", relativePos, currentAbsPos);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      addEntity(EntityType.GOAL, "goal", relativePos, currentAbsPos);
 
-    // Also maintain the legacy goals map for backward compatibility
-    Point absolutePos = new Point(
-      currentAbsPos.x + relativePos.x,
-      currentAbsPos.y + relativePos.y
-    );
-    goals.put(
-      absolutePos,
-      entityRegistry.get(generateEntityId(EntityType.GOAL, absolutePos, "goal"))
-    );
+      // Also maintain the legacy goals map for backward compatibility
+      Point absolutePos = new Point(
+        currentAbsPos.x + relativePos.x,
+        currentAbsPos.y + relativePos.y
+      );
+      goals.put(
+        absolutePos,
+        entityRegistry.get(generateEntityId(EntityType.GOAL, absolutePos, "goal"))
+      );
+    }
   }
 
   // Query methods for external search algorithms
@@ -760,97 +1211,533 @@ public class LocalMap {
     );
 
     Set<Point> result = new HashSet<>();
-    Set<String> entitiesInRange = spatialGrid.getEntitiesInRange(
-      absoluteCenter,
-      range
+    spatialGrid.collectEntitiesInRange(
+      absoluteCenter.x,
+      absoluteCenter.y,
+      range,
+      type,
+      lastVisionStep,
+      result
     );
-
-    for (String entityId : entitiesInRange) {
-      Entity entity = entityRegistry.get(entityId);
-      if (entity != null && entity.type == type && !entity.isStale()) {
-        result.add(entity.position);
-      }
-    }
     return result;
   }
 
+  /**
+   * Nearest known entity of the given type to an absolute position, by
+   * Manhattan distance, or null if none is within maxRange.
+   */
+  public Point findNearestEntity(Point from, EntityType type, int maxRange) {
+    Entity nearest = spatialGrid.findNearestEntity(
+      from.x,
+      from.y,
+      type,
+      lastVisionStep,
+      maxRange
+    );
+    return nearest != null ? nearest.position : null;
+  }
+
+  /**
+   * Nearest static obstacle to an absolute position, by Manhattan distance,
+   * or null if none is within maxRange.
+   */
+  public Point findNearestObstacle(Point from, int maxRange) {
+    return spatialGrid.findNearestObstacle(from.x, from.y, maxRange);
+  }
+
   public Set<Point> getEntitiesOfType(EntityType type, String subType) {
     return typeIndex
       .get(type)
       .values()
       .stream()
       .filter(
-        e -> !e.isStale() && (subType == null || subType.equals(e.details))
+        e ->
+          !e.isStale(lastVisionStep) &&
+          (subType == null || subType.equals(e.details))
       )
       .map(e -> e.position)
       .collect(Collectors.toSet());
   }
 
   // Maintenance
+  /** Entity types syncVision clears from cells seen empty. */
+  public static final Set<EntityType> CLEARABLE_TYPES = Set.of(
+    EntityType.OBSTACLE,
+    EntityType.GOAL,
+    EntityType.BLOCK,
+    EntityType.AGENT
+  );
+
+  /** syncVision for a complete percept batch: every type may be cleared. */
+  public void syncVision(PerceptSnapshot vision, int visionRange) {
+    syncVision(vision, visionRange, CLEARABLE_TYPES);
+  }
+
+  /**
+   * Applies one step's vision in a single pass. Everything seen is added or
+   * refreshed; cells within visionRange (Manhattan) of the agent that are
+   * now seen empty lose the entities of the cleared types recorded there
+   * earlier, e.g. obstacles cleared by another team. Pass only the types
+   * the vision actually lists; a type it leaves out says nothing about the
+   * cells. Dispensers are never removed. Percept positions are relative to
+   * the current position, so nothing is cleared while that position is not
+   * confirmed by the last action's result, see setPositionConfirmed.
+   */
+  public void syncVision(
+    PerceptSnapshot vision,
+    int visionRange,
+    Set<EntityType> cleared
+  ) {
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      if (vision.hasStep()) lastVisionStep = vision.step().step();
+      Point origin = currentPosition;
+      Set<Point> seenObstacles = new HashSet<>();
+      Set<Point> seenGoals = new HashSet<>();
+      Set<Point> seenBlocks = new HashSet<>();
+      Set<Point> seenAgents = new HashSet<>();
+      List<AgentTracks.Sighting> sightings = new ArrayList<>();
+
+      for (ObstaclePercept obstacle : vision.obstacles()) {
+        Point relative = new Point(obstacle.x(), obstacle.y());
+        addObstacle(relative, origin);
+        seenObstacles.add(toAbsolute(origin, relative));
+      }
+      observeBorderRows(vision.obstacles(), origin, visionRange);
+      for (GoalPercept goal : vision.goals()) {
+        Point relative = new Point(goal.x(), goal.y());
+        addGoal(relative, origin);
+        seenGoals.add(toAbsolute(origin, relative));
+      }
+      for (ThingPercept thing : vision.things()) {
+        Point relative = new Point(thing.x(), thing.y());
+        switch (thing.type()) {
+          case "dispenser":
+            addDispenser(relative, thing.details(), origin);
+            break;
+          case "block":
+            addBlock(relative, thing.details(), origin);
+            seenBlocks.add(toAbsolute(origin, relative));
+            break;
+          case "entity":
+            // The agent always perceives itself at (0,0)
+            if (!thing.isSelf()) {
+              addOtherAgent(thing.x(), thing.y(), origin);
+              seenAgents.add(toAbsolute(origin, relative));
+              sightings.add(
+                new AgentTracks.Sighting(
+                  toAbsolute(origin, relative),
+                  thing.details()
+                )
+              );
+            }
+            break;
+          default:
+            break;
+        }
+      }
+
+      boolean clearObstacles =
+        positionConfirmed && cleared.contains(EntityType.OBSTACLE);
+      boolean clearGoals =
+        positionConfirmed && cleared.contains(EntityType.GOAL);
+      boolean clearBlocks =
+        positionConfirmed && cleared.contains(EntityType.BLOCK);
+      boolean clearAgents =
+        positionConfirmed && cleared.contains(EntityType.AGENT);
+      boolean clearAny =
+        clearObstacles || clearGoals || clearBlocks || clearAgents;
+      int clearRange = clearAny ? visionRange : -1; // -1: no cells
+      for (int dx = -clearRange; dx <= clearRange; dx++) {
+        int reach = clearRange - Math.abs(dx);
+        for (int dy = -reach; dy <= reach; dy++) {
+          Point cell = new Point(origin.x + dx, origin.y + dy);
+          if (clearObstacles && !seenObstacles.contains(cell)) {
+            clearObstacleAt(cell);
+          }
+          if (
+            clearGoals &&
+            !seenGoals.contains(cell) &&
+            goals.remove(cell) != null
+          ) {
+            removeEntitiesAt(cell, EntityType.GOAL);
+            markDirty();
+          }
+          if (
+            clearBlocks &&
+            !seenBlocks.contains(cell) &&
+            blocks.remove(cell) != null
+          ) {
+            markDirty();
+          }
+          if (
+            clearAgents &&
+            !seenAgents.contains(cell) &&
+            dynamicObstacles.remove(cell) != null
+          ) {
+            spatialGrid.removeDynamicObstacle(cell);
+            syncObstacleBit(cell);
+            markDirty();
+          }
+        }
+      }
+
+      // Tracks advance once per server step; vision applied again within
+      // the step, or a list without a step, would distort their velocities
+      if (vision.hasStep() && vision.step().step() > agentTracks.step()) {
+        agentTracks.observe(
+          vision.step().step(),
+          sightings,
+          origin,
+          visionRange
+        );
+        for (AgentTracks.Sighting sighting : sightings) {
+          ObstacleInfo info = dynamicObstacles.get(sighting.position());
+          AgentTracks.Track track = agentTracks.trackAt(sighting.position());
+          if (info != null && track != null) {
+            putDynamicObstacle(
+              sighting.position(),
+              info.withHeading(track.heading())
+            );
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Probability that a tracked agent occupies cell steps after the latest
+   * vision update, 0 if no tracked agent can be there. Cheap enough to ask
+   * per candidate move.
+   */
+  public double getPredictedOccupancy(Point cell, int steps) {
+    synchronized (positionLock) {
+      return agentTracks.occupancy(cell, steps);
+    }
+  }
+
+  /** Copy of the other agents' tracks, for inspection and debugging. */
+  public AgentTracks getAgentTracks() {
+    synchronized (positionLock) {
+      return agentTracks.copy();
+    }
+  }
+
+  private static Point toAbsolute(Point origin, Point relative) {
+    return new Point(origin.x + relative.x, origin.y + relative.y);
+  }
+
+  // Forgets a static obstacle, perceived or inferred from a failed move
+  private void clearObstacleAt(Point cell) {
+    boolean known = obstacles.remove(cell);
+    known |= staticObstacles.remove(cell) != null;
+    if (!known) return;
+    spatialGrid.removeObstacle(cell);
+    syncObstacleBit(cell);
+    removeEntitiesAt(cell, EntityType.OBSTACLE);
+    markDirty();
+  }
+
+  private void removeEntitiesAt(Point cell, EntityType type) {
+    for (Entity entity : spatialGrid.entitiesAt(cell, type)) {
+      entityRegistry.remove(entity.id);
+      typeIndex.get(type).remove(entity.id);
+      spatialGrid.remove(entity);
+    }
+  }
+
+  /**
+   * Drops the entities not seen for more than STALE_STEPS steps of vision;
+   * dispensers are kept, see Entity.isStale. Called once per step by the
+   * model.
+   */
   public void clearStaleEntities() {
-    Set<String> staleEntities = entityRegistry
-      .values()
-      .stream()
-      .filter(Entity::isStale)
-      .map(e -> e.id)
-      .collect(Collectors.toSet());
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      Set<String> staleEntities = entityRegistry
+        .values()
+        .stream()
+        .filter(e -> e.isStale(lastVisionStep))
+        .map(e -> e.id)
+        .collect(Collectors.toSet());
 
-    for (String entityId : staleEntities) {
-      Entity entity = entityRegistry.get(entityId);
-      if (entity != null) {
-        entityRegistry.remove(entityId);
-        typeIndex.get(entity.type).remove(entityId);
-        spatialGrid.remove(entity.position, entityId);
+      for (String entityId : staleEntities) {
+        Entity entity = entityRegistry.get(entityId);
+        if (entity != null) {
+          entityRegistry.remove(entityId);
+          typeIndex.get(entity.type).remove(entityId);
+          spatialGrid.remove(entity);
+          if (entity.type == EntityType.GOAL) goals.remove(entity.position);
+        }
+      }
+      blocks.values().removeIf(block -> block.isStale(lastVisionStep));
+    }
+  }
+
+  /**
+   * Trims the entity registry back under its MemoryBudget cap; the heat
+   * grids keep to theirs on their own. Dispensers are never evicted, they
+   * are few and the agent needs them to fetch blocks. Called once per step
+   * by the model.
+   */
+  public void enforceMemoryBudget() {
+    synchronized (positionLock) {
+      checkWritable();
+      Point origin = currentPosition;
+      boolean lru = MemoryBudget.POLICY == MemoryBudget.EvictionPolicy.LRU;
+
+      if (entityRegistry.size() > MemoryBudget.MAX_ENTITIES) {
+        List<Entity> victims = MemoryBudget.selectVictims(
+          entityRegistry.values(),
+          e ->
+            e.type == EntityType.DISPENSER
+              ? Long.MAX_VALUE
+              : lru ? e.lastSeenStep : -distance(origin, e.position),
+          entityRegistry.size() -
+          MemoryBudget.trimTarget(MemoryBudget.MAX_ENTITIES)
+        );
+        for (Entity entity : victims) {
+          if (entity.type == EntityType.DISPENSER) continue;
+          entityRegistry.remove(entity.id);
+          typeIndex.get(entity.type).remove(entity.id);
+          spatialGrid.remove(entity);
+          // The legacy goals map holds the same entities
+          if (entity.type == EntityType.GOAL) goals.remove(entity.position);
+          entitiesEvicted++;
+        }
+        markDirty();
+      }
+
+      // Blocks are only kept in the legacy map, so it has its own cap
+      if (blocks.size() > MemoryBudget.MAX_ENTITIES) {
+        List<Entity> victims = MemoryBudget.selectVictims(
+          blocks.values(),
+          e -> lru ? e.lastSeenStep : -distance(origin, e.position),
+          blocks.size() - MemoryBudget.trimTarget(MemoryBudget.MAX_ENTITIES)
+        );
+        for (Entity block : victims) {
+          blocks.remove(block.position);
+          entitiesEvicted++;
+        }
+        markDirty();
+      }
+
+      // Exempt: dispensers, which a map has few of, and static obstacles
+      // with the obstacle set and bitmap. Obstacles can only lie within the
+      // grid, so they are bounded by its size, and forgetting one would
+      // only send the agent into it again. Heat fields bound themselves,
+      // see HeatField
+    }
+  }
+
+  private static long distance(Point a, Point b) {
+    return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+  }
+
+  /** Entry counts of this map's state, for the per-agent memory report. */
+  public MapMemoryUsage getMemoryUsage() {
+    synchronized (positionLock) {
+      return new MapMemoryUsage(
+        entityRegistry.size(),
+        obstacles.size(),
+        dynamicObstacles.size(),
+        spatialGrid.cellCount(),
+        heatMap.touchedCells(),
+        visits.touchedCells(),
+        heatMap.capacity() + visits.capacity(),
+        0,
+        entitiesEvicted,
+        heatMap.evictedCells() + visits.evictedCells()
+      );
+    }
+  }
+
+  /**
+   * Known grid edges, perceived static obstacles, goals and dispensers, for
+   * MapStore. Obstacles only inferred from failed moves are left out; the
+   * failure may as well have been an agent in the way.
+   */
+  public MapLayout exportLayout() {
+    synchronized (positionLock) {
+      List<Point> perceived = new ArrayList<>(staticObstacles.size());
+      for (ObstacleInfo info : staticObstacles.values()) {
+        if (!INFERRED_OBSTACLE.equals(info.getType())) {
+          perceived.add(info.getPosition());
+        }
+      }
+      int[] obstacleCells = packPositions(perceived);
+      int[] goalCells = packPositions(goals.keySet());
+      int[] dispenserCells = new int[2 * dispensers.size()];
+      String[] dispenserTypes = new String[dispensers.size()];
+      int i = 0;
+      for (Map.Entry<Point, Entity> entry : dispensers.entrySet()) {
+        dispenserCells[2 * i] = entry.getKey().x;
+        dispenserCells[2 * i + 1] = entry.getKey().y;
+        Entity dispenser = entry.getValue();
+        dispenserTypes[i] = dispenser != null ? dispenser.details : null;
+        i++;
       }
+      return new MapLayout(
+        worldExtent,
+        obstacleCells,
+        goalCells,
+        dispenserCells,
+        dispenserTypes
+      );
+    }
+  }
+
+  private static int[] packPositions(Collection<Point> positions) {
+    int[] packed = new int[2 * positions.size()];
+    int i = 0;
+    for (Point p : positions) {
+      packed[i++] = p.x;
+      packed[i++] = p.y;
+    }
+    return packed;
+  }
+
+  /**
+   * Seeds the map with a layout stored from an earlier match on the same
+   * map, in the same frame. Edges already known are kept; cells the agent
+   * later sees empty are cleared by syncVision as usual.
+   */
+  public void warmStart(MapLayout layout) {
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      Point origin = new Point(0, 0);
+      WorldExtent stored = layout.extent();
+      for (Direction side : Direction.all()) {
+        if (stored.isKnown(side) && !worldExtent.isKnown(side)) {
+          learnEdge(side, stored.edge(side), "map store");
+        }
+      }
+      int[] cells = layout.obstacles();
+      for (int i = 0; i < cells.length; i += 2) {
+        addObstacle(new Point(cells[i], cells[i + 1]), origin);
+      }
+      cells = layout.goals();
+      for (int i = 0; i < cells.length; i += 2) {
+        addGoal(new Point(cells[i], cells[i + 1]), origin);
+      }
+      cells = layout.dispensers();
+      String[] types = layout.dispenserTypes();
+      for (int i = 0; i < types.length; i++) {
+        addDispenser(
+          new Point(cells[2 * i], cells[2 * i + 1]),
+          types[i],
+          origin
+        );
+      }
+    }
+  }
+
+  /**
+   * Marks a map the model has replaced, at the start of a new match, so
+   * holders of a cached handle (MI6AgArch) fetch the new one.
+   */
+  public void retire() {
+    retired = true;
+  }
+
+  public boolean isRetired() {
+    return retired;
+  }
+
+  public boolean isObstacle(Point position) {
+    return (
+      staticObstacles.containsKey(position) ||
+      dynamicObstacles.containsKey(position)
+    );
+  }
+
+  public void updateDynamicObstacle(
+    Point relativePos,
+    String type,
+    Point currentPos
+  ) {
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      Point absPos = new Point(
+        currentPos.x + relativePos.x,
+        currentPos.y + relativePos.y
+      );
+
+      if (
+        Math.abs(relativePos.x) > AWARENESS_DISTANCE ||
+        Math.abs(relativePos.y) > AWARENESS_DISTANCE
+      ) {
+        return;
+      }
+
+      ObstacleInfo existing = dynamicObstacles.get(absPos);
+      if (existing != null) {
+        putDynamicObstacle(absPos, existing.seenNow());
+      } else {
+        putDynamicObstacle(absPos, new ObstacleInfo(absPos, type, true));
+      }
+    }
+  }
+
+  public void clearStaleDynamicObstacles() {
+    synchronized (positionLock) {
+      checkWritable();
+      removeDynamicObstaclesIf(entry -> entry.getValue().isStale());
     }
   }
 
-  public boolean isObstacle(Point position) {
-    return (
-      staticObstacles.containsKey(position) ||
-      dynamicObstacles.containsKey(position)
-    );
+  // Dynamic obstacles are mirrored in the spatial grid, so all writes go through these
+  private void putDynamicObstacle(Point position, ObstacleInfo info) {
+    dynamicObstacles.put(position, info);
+    spatialGrid.addDynamicObstacle(position, info);
+    obstacleBits.set(position.x, position.y, true);
   }
 
-  public void updateDynamicObstacle(
-    Point relativePos,
-    String type,
-    Point currentPos
+  private void removeDynamicObstaclesIf(
+    java.util.function.Predicate<Map.Entry<Point, ObstacleInfo>> filter
   ) {
-    Point absPos = new Point(
-      currentPos.x + relativePos.x,
-      currentPos.y + relativePos.y
-    );
-
-    if (
-      Math.abs(relativePos.x) > AWARENESS_DISTANCE ||
-      Math.abs(relativePos.y) > AWARENESS_DISTANCE
-    ) {
-      return;
+    Iterator<Map.Entry<Point, ObstacleInfo>> it = dynamicObstacles
+      .entrySet()
+      .iterator();
+    while (it.hasNext()) {
+      Map.Entry<Point, ObstacleInfo> entry = it.next();
+      if (filter.test(entry)) {
+        it.remove();
+        spatialGrid.removeDynamicObstacle(entry.getKey());
+        syncObstacleBit(entry.getKey());
+        markDirty();
+      }
     }
+  }
 
-    dynamicObstacles.compute(
-      absPos,
-      (k, existing) -> {
-        if (existing != null) {
-          existing.updateSeen();
-          return existing;
-        } else {
-          return new ObstacleInfo(absPos, type, true);
-        }
-      }
-    );
+  // A cell stays blocked while either map still has an obstacle on it
+  private void syncObstacleBit(Point cell) {
+    obstacleBits.set(cell.x, cell.y, hasObstacle(cell));
   }
 
-  public void clearStaleDynamicObstacles() {
-    dynamicObstacles.entrySet().removeIf(entry -> entry.getValue().isStale());
+  /**
+   * Non-stale dynamic obstacles (other agents) within the square of the given
+   * range around an absolute position.
+   */
+  public List<ObstacleInfo> getDynamicObstaclesInRange(Point center, int range) {
+    List<ObstacleInfo> result = new ArrayList<>();
+    spatialGrid.collectDynamicObstaclesInRange(
+      center.x,
+      center.y,
+      range,
+      result
+    );
+    return result;
   }
 
   public boolean isDynamicObstacleInPath(Point from, Point to) {
-    clearStaleDynamicObstacles();
-
     // Check current and predicted positions
     for (ObstacleInfo obstacle : dynamicObstacles.values()) {
+      if (obstacle.isStale()) continue;
       // Check current position
       if (isPointInPath(obstacle.position, from, to)) {
         return true;
@@ -916,13 +1803,19 @@ public class LocalMap {
     return Math.sqrt(dx * dx + dy * dy);
   }
 
+  /**
+   * Copy of the dynamic obstacles that are not stale. Stale ones are only
+   * skipped here; the model's housekeeping removes them, see
+   * clearStaleDynamicObstacles.
+   */
   public Map<Point, ObstacleInfo> getDynamicObstacles() {
-    // Clean up stale obstacles first
-    long now = System.currentTimeMillis();
-    dynamicObstacles
-      .entrySet()
-      .removeIf(entry -> now - entry.getValue().lastSeen > 5000);
-    return new HashMap<>(dynamicObstacles);
+    Map<Point, ObstacleInfo> current = new HashMap<>();
+    for (Map.Entry<Point, ObstacleInfo> entry : dynamicObstacles.entrySet()) {
+      if (!entry.getValue().isStale()) {
+        current.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return current;
   }
 
   public boolean isPathSafe(Point from, Point to) {
@@ -958,7 +1851,7 @@ public class LocalMap {
       .get(EntityType.DISPENSER)
       .values()
       .stream()
-      .filter(e -> !e.isStale())
+      .filter(e -> !e.isStale(lastVisionStep))
       .sorted(
         (e1, e2) -> {
           int xCompare = Integer.compare(e1.position.x, e2.position.x);
@@ -1000,7 +1893,7 @@ public class LocalMap {
       .get(EntityType.GOAL)
       .values()
       .stream()
-      .filter(e -> !e.isStale())
+      .filter(e -> !e.isStale(lastVisionStep))
       .sorted(
         (e1, e2) -> {
           int xCompare = Integer.compare(e1.position.x, e2.position.x);
@@ -1032,7 +1925,7 @@ public class LocalMap {
           .get(EntityType.DISPENSER)
           .values()
           .stream()
-          .filter(e -> !e.isStale())
+          .filter(e -> !e.isStale(lastVisionStep))
           .count()
       )
     );
@@ -1044,7 +1937,7 @@ public class LocalMap {
           .get(EntityType.GOAL)
           .values()
           .stream()
-          .filter(e -> !e.isStale())
+          .filter(e -> !e.isStale(lastVisionStep))
           .count()
       )
     );
@@ -1052,351 +1945,228 @@ public class LocalMap {
     return sb.toString();
   }
 
+  /** Outside the known grid edges. O(1): four int compares. */
   public boolean isOutOfBounds(Point pos) {
-    // Check against confirmed boundaries
-    for (Map.Entry<String, BoundaryInfo> entry : confirmedBoundaries.entrySet()) {
-      String direction = entry.getKey();
-      Point boundary = entry.getValue().position;
-
-      switch (direction) {
-        case "n":
-          if (pos.y <= boundary.y) return true;
-          break;
-        case "s":
-          if (pos.y >= boundary.y) return true;
-          break;
-        case "w":
-          if (pos.x <= boundary.x) return true;
-          break;
-        case "e":
-          if (pos.x >= boundary.x) return true;
-          break;
-      }
-    }
-    return false;
-  }
-
-  public void updateBoundary(String direction, Point currentPos) {
-    // Increment confirmation count for this boundary
-    boundaryConfirmations.merge(direction, 1, Integer::sum);
-
-    // Only update bounds after multiple confirmations
-    if (boundaryConfirmations.get(direction) >= MIN_BOUNDARY_CONFIRMATIONS) {
-      if (!boundsInitialized) {
-        mapMinBounds = new Point(currentPos.x - 50, currentPos.y - 50); // Initial guess
-        mapMaxBounds = new Point(currentPos.x + 50, currentPos.y + 50);
-        boundsInitialized = true;
-      }
-
-      // Update specific boundary
-      switch (direction) {
-        case "n":
-          mapMinBounds = new Point(mapMinBounds.x, currentPos.y);
-          break;
-        case "s":
-          mapMaxBounds = new Point(mapMaxBounds.x, currentPos.y);
-          break;
-        case "w":
-          mapMinBounds = new Point(currentPos.x, mapMinBounds.y);
-          break;
-        case "e":
-          mapMaxBounds = new Point(currentPos.x, mapMaxBounds.y);
-          break;
-      }
-    }
-  }
-
-  public boolean isBoundaryConfirmed(String direction) {
-    return (
-      boundaryConfirmations.getOrDefault(direction, 0) >=
-      MIN_BOUNDARY_CONFIRMATIONS
-    );
-  }
-
-  public Point getMapMinBounds() {
-    return mapMinBounds;
-  }
-
-  public Point getMapMaxBounds() {
-    return mapMaxBounds;
+    return !worldExtent.contains(pos.x, pos.y);
   }
 
-  public boolean areBoundsInitialized() {
-    return boundsInitialized;
+  public WorldExtent getWorldExtent() {
+    return worldExtent;
   }
 
-  private void checkForBoundaryPattern(int relX, int relY, Point currentPos) {
-    // Look for continuous lines of obstacles that might indicate boundaries
-    if (Math.abs(relX) == LocalMap.AWARENESS_DISTANCE) {
-      // Potential east/west boundary
-      String direction = relX > 0 ? "e" : "w";
-      updateBoundary(direction, new Point(currentPos.x + relX, currentPos.y));
-    }
-    if (Math.abs(relY) == LocalMap.AWARENESS_DISTANCE) {
-      // Potential north/south boundary
-      String direction = relY > 0 ? "s" : "n";
-      updateBoundary(direction, new Point(currentPos.x, currentPos.y + relY));
-    }
+  /** Obstacles as a bitmap, for word-at-a-time checks like Footprint's. */
+  public ObstacleBitmap getObstacleBitmap() {
+    return obstacleBits;
   }
 
-  public Map<String, Point> getBoundaryDistances(Point currentPos) {
-    Map<String, Point> distances = new HashMap<>();
-
-    if (boundsInitialized) {
-      if (isBoundaryConfirmed("n")) distances.put(
-        "n",
-        new Point(0, currentPos.y - mapMinBounds.y)
-      );
-      if (isBoundaryConfirmed("s")) distances.put(
-        "s",
-        new Point(0, mapMaxBounds.y - currentPos.y)
-      );
-      if (isBoundaryConfirmed("w")) distances.put(
-        "w",
-        new Point(currentPos.x - mapMinBounds.x, 0)
-      );
-      if (isBoundaryConfirmed("e")) distances.put(
-        "e",
-        new Point(mapMaxBounds.x - currentPos.x, 0)
+  // Caller holds positionLock
+  private void learnEdge(Direction side, int coord, String source) {
+    WorldExtent current = worldExtent;
+    WorldExtent updated = current.withEdge(side, coord);
+    if (updated == current) return;
+    worldExtent = updated;
+    markDirty();
+    if (DEBUG) {
+      logger.info(
+        String.format(
+          "Learned %s edge at %d from %s, extent now %s",
+          side,
+          coord,
+          source,
+          updated
+        )
       );
     }
-
-    return distances;
-  }
-
-  public void recordFailedMove(String direction, Point position) {
-    BoundaryEvidence evidence = boundaryEvidence.computeIfAbsent(
-      direction,
-      k -> new BoundaryEvidence()
-    );
-    evidence.addFailedMove(position);
   }
 
-  public void checkVisionLimitObstacles(
-    Collection<Term> percepts,
-    Point currentPos
+  /**
+   * Looks for the grid's line-border: a row (or column) of obstacles across
+   * the whole visible width with no obstacle seen beyond it. An interior
+   * wall can look the same from one spot, so a side is only learned after
+   * the same line was seen from BORDER_SIGHTINGS different positions along
+   * it, and never overrides an edge already known from failed_forbidden.
+   */
+  private void observeBorderRows(
+    List<ObstaclePercept> obstacles,
+    Point origin,
+    int visionRange
   ) {
-    // Reset continuous obstacle counts
-    Map<String, Integer> continuousObstacles = new HashMap<>();
-
-    // Check for continuous obstacles at vision limits
-    for (Term percept : percepts) {
-      if (!(percept instanceof Atom)) continue;
-
-      Atom atom = (Atom) percept;
-      if (!"obstacle".equals(atom.getFunctor())) continue;
-
-      try {
-        // Get relative coordinates
-        List<Term> terms = atom.getTerms();
-        if (terms == null || terms.size() < 2) continue;
-
-        int relX = (int) ((NumberTerm) terms.get(0)).solve();
-        int relY = (int) ((NumberTerm) terms.get(1)).solve();
-
-        // Check if obstacle is at vision limit
-        if (
-          Math.abs(relX) == AWARENESS_DISTANCE ||
-          Math.abs(relY) == AWARENESS_DISTANCE
-        ) {
-          String direction = getDirectionFromRelative(relX, relY);
-          continuousObstacles.merge(direction, 1, Integer::sum);
-        }
-      } catch (Exception e) {
-        // Skip invalid percepts
+    if (obstacles.isEmpty()) return;
+    int side = 2 * visionRange + 1;
+    boolean[] blocked = new boolean[side * side];
+    for (ObstaclePercept obstacle : obstacles) {
+      int x = obstacle.x();
+      int y = obstacle.y();
+      if (Math.abs(x) + Math.abs(y) > visionRange) continue;
+      blocked[(y + visionRange) * side + x + visionRange] = true;
+    }
+
+    int maxDistance = visionRange - (BORDER_MIN_WIDTH - 1) / 2;
+    for (Direction d : Direction.all()) {
+      if (worldExtent.isKnown(d)) continue;
+      int row = findBorderRow(blocked, d, visionRange, maxDistance);
+      if (row == 0) continue;
+      int ordinal = d.ordinal();
+
+      int coord = d.isVertical()
+        ? origin.y + d.dy * row
+        : origin.x + d.dx * row;
+      int along = d.isVertical() ? origin.x : origin.y;
+      if (borderSightings[ordinal] == 0 || borderCandidate[ordinal] != coord) {
+        borderCandidate[ordinal] = coord;
+        borderSightings[ordinal] = 1;
+        borderLastAlong[ordinal] = along;
+      } else if (borderLastAlong[ordinal] != along) {
+        borderSightings[ordinal]++;
+        borderLastAlong[ordinal] = along;
+      }
+      if (borderSightings[ordinal] >= BORDER_SIGHTINGS) {
+        learnEdge(d, coord, "line-border");
       }
-    }
-
-    // Update evidence for each direction
-    for (Map.Entry<String, Integer> entry : continuousObstacles.entrySet()) {
-      BoundaryEvidence evidence = boundaryEvidence.computeIfAbsent(
-        entry.getKey(),
-        k -> new BoundaryEvidence()
-      );
-      evidence.addObstacleEvidence(entry.getValue());
     }
   }
 
-  private String getDirectionFromRelative(int relX, int relY) {
-    if (Math.abs(relX) > Math.abs(relY)) {
-      return relX > 0 ? "e" : "w";
-    } else {
-      return relY > 0 ? "s" : "n";
+  // Nearest fully blocked row towards d with nothing blocked beyond, or 0
+  private static int findBorderRow(
+    boolean[] blocked,
+    Direction d,
+    int visionRange,
+    int maxDistance
+  ) {
+    int side = 2 * visionRange + 1;
+    int found = 0;
+    for (int k = 1; k <= visionRange; k++) {
+      int reach = visionRange - k;
+      boolean full = true;
+      boolean any = false;
+      for (int t = -reach; t <= reach; t++) {
+        int x = d.dx != 0 ? d.dx * k : t;
+        int y = d.dy != 0 ? d.dy * k : t;
+        boolean cell = blocked[(y + visionRange) * side + x + visionRange];
+        full &= cell;
+        any |= cell;
+      }
+      if (found == 0) {
+        if (full && k <= maxDistance) found = k;
+      } else if (any) {
+        // Something beyond the line, so it is not the border
+        return 0;
+      }
     }
+    return found;
   }
 
-  public Point getLastConfirmedBoundary(String direction) {
-    BoundaryEvidence evidence = boundaryEvidence.get(direction);
-    return evidence != null ? evidence.lastConfirmedPosition : null;
-  }
-
+  /**
+   * A failed_forbidden move from currentPos: the target is outside the grid,
+   * so currentPos is on the outermost row or column on that side.
+   */
   public void recordBoundary(String direction, Point currentPos) {
-    // For failed_forbidden failures, we can immediately confirm the boundary
-    Point boundaryPos;
-
-    // Create new Point object with adjusted coordinates
-    switch (direction) {
-      case "n":
-        boundaryPos = new Point(currentPos.x, currentPos.y - 1);
-        break;
-      case "s":
-        boundaryPos = new Point(currentPos.x, currentPos.y + 1);
-        break;
-      case "e":
-        boundaryPos = new Point(currentPos.x + 1, currentPos.y);
-        break;
-      case "w":
-        boundaryPos = new Point(currentPos.x - 1, currentPos.y);
-        break;
-      default:
-        return;
-    }
-
-    confirmedBoundaries.put(
-      direction,
-      new BoundaryInfo(boundaryPos, direction)
-    );
-
-    if (DEBUG) {
-      logger.info(
-        String.format("Confirmed boundary " + direction + " at " + boundaryPos)
+    synchronized (positionLock) {
+      checkWritable();
+      Direction side = Direction.fromSymbol(direction);
+      if (side == null || currentPos == null) return;
+      learnEdge(
+        side,
+        side.isVertical() ? currentPos.y : currentPos.x,
+        "failed_forbidden"
       );
     }
   }
 
   public void recordObstacle(Point position, String type, boolean isDynamic) {
-    // Add as an entity using relative coordinates
-    Point relativePos = new Point(
-      position.x - currentPosition.x,
-      position.y - currentPosition.y
-    );
-    addEntity(EntityType.OBSTACLE, type, relativePos, currentPosition);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      // Add as an entity using relative coordinates
+      Point relativePos = new Point(
+        position.x - currentPosition.x,
+        position.y - currentPosition.y
+      );
+      addEntity(EntityType.OBSTACLE, type, relativePos, currentPosition);
 
-    // Maintain legacy collections
-    if (isDynamic) {
-      dynamicObstacles.put(position, new ObstacleInfo(position, type, true));
-    } else {
-      staticObstacles.put(position, new ObstacleInfo(position, type, false));
-      obstacles.add(position);
+      // Maintain legacy collections
+      if (isDynamic) {
+        putDynamicObstacle(position, new ObstacleInfo(position, type, true));
+      } else {
+        staticObstacles.putIfAbsent(
+          position,
+          new ObstacleInfo(position, type, false)
+        );
+        obstacleBits.set(position.x, position.y, true);
+        obstacles.add(position);
+        spatialGrid.addObstacle(position);
+      }
     }
   }
 
-  public Point getBoundaryPosition(String direction) {
-    BoundaryInfo info = confirmedBoundaries.get(direction);
-    return info != null ? info.position : null;
-  }
-
-  public Map<String, BoundaryInfo> getConfirmedBoundaries() {
-    return new HashMap<>(confirmedBoundaries);
-  }
-
+  /**
+   * First out-of-grid coordinate on each known side, keyed by direction, as
+   * Point(0, y) for n/s and Point(x, 0) for e/w. Unmodifiable.
+   */
   public Map<String, Point> getConfirmedBoundariesPositions() {
-    Map<String, Point> positions = new HashMap<>();
-    for (Map.Entry<String, BoundaryInfo> entry : confirmedBoundaries.entrySet()) {
-      String direction = entry.getKey();
-      Point boundaryPos = entry.getValue().getPosition();
-
-      // Only include relevant coordinate in the string representation
-      if (direction.equals("n") || direction.equals("s")) {
-        positions.put(direction, new Point(0, boundaryPos.y));
-      } else {
-        positions.put(direction, new Point(boundaryPos.x, 0));
-      }
-    }
-    return positions;
+    return worldExtent.boundaryPositions();
   }
 
   public void updateFromPercepts(Collection<Term> percepts, Point currentPos) {
-    Set<Point> currentlyVisible = new HashSet<>();
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      Set<Point> currentlyVisible = new HashSet<>();
 
-    for (Term percept : percepts) {
-      if (!(percept instanceof Atom)) continue;
+      for (Term percept : percepts) {
+        if (!(percept instanceof Atom)) continue;
 
-      try {
-        String name = ((Atom) percept).getFunctor();
-        List<Term> terms = ((Atom) percept).getTerms();
+        try {
+          String name = ((Atom) percept).getFunctor();
+          List<Term> terms = ((Atom) percept).getTerms();
 
-        if (terms == null || terms.size() < 2) continue;
+          if (terms == null || terms.size() < 2) continue;
 
-        double x = ((NumberTerm) terms.get(0)).solve();
-        double y = ((NumberTerm) terms.get(1)).solve();
-        Point absPos = new Point(
-          currentPos.x + (int) x,
-          currentPos.y + (int) y
-        );
+          double x = ((NumberTerm) terms.get(0)).solve();
+          double y = ((NumberTerm) terms.get(1)).solve();
+          Point absPos = new Point(
+            currentPos.x + (int) x,
+            currentPos.y + (int) y
+          );
 
-        if ("thing".equals(name) && terms.size() > 2) {
-          String type = terms.get(2).toString();
-          if ("entity".equals(type)) {
-            currentlyVisible.add(absPos);
-            dynamicObstacles
-              .computeIfAbsent(
-                absPos,
-                k -> new ObstacleInfo(absPos, type, true)
-              )
-              .updateSeen();
+          if ("thing".equals(name) && terms.size() > 2) {
+            String type = terms.get(2).toString();
+            if ("entity".equals(type)) {
+              currentlyVisible.add(absPos);
+              ObstacleInfo existing = dynamicObstacles.get(absPos);
+              if (existing != null) {
+                putDynamicObstacle(absPos, existing.seenNow());
+              } else {
+                putDynamicObstacle(absPos, new ObstacleInfo(absPos, type, true));
+              }
+            }
           }
+        } catch (Exception e) {
+          // Skip invalid percepts
         }
-      } catch (Exception e) {
-        // Skip invalid percepts
       }
-    }
 
-    // Clean up stale obstacles
-    long now = System.currentTimeMillis();
-    dynamicObstacles
-      .entrySet()
-      .removeIf(
+      // Clean up stale obstacles
+      long now = System.currentTimeMillis();
+      removeDynamicObstaclesIf(
         entry ->
           now - entry.getValue().lastSeen > 5000 &&
           !currentlyVisible.contains(entry.getKey())
       );
+    }
   }
 
   public boolean isForbidden(Point pos) {
     if (DEBUG) {
       logger.info(
         String.format(
-          "Checking if position %s is forbidden. Current boundaries: %s",
+          "Checking if position %s is forbidden. Current extent: %s",
           pos,
-          getConfirmedBoundariesPositions()
+          worldExtent
         )
       );
     }
-
-    if (hasObstacle(pos)) {
-      if (DEBUG) {
-        logger.info(String.format("Position %s has a static obstacle", pos));
-      }
-      return true;
-    }
-
-    // Check only relevant coordinate for each boundary direction
-    Map<String, Point> boundaries = getConfirmedBoundariesPositions();
-    if (!boundaries.isEmpty()) {
-      for (Map.Entry<String, Point> entry : boundaries.entrySet()) {
-        String direction = entry.getKey();
-        Point boundaryPoint = entry.getValue();
-
-        // Only check relevant coordinate based on direction
-        switch (direction) {
-          case "n":
-            if (pos.y < boundaryPoint.y) return true;
-            break;
-          case "s":
-            if (pos.y > boundaryPoint.y) return true;
-            break;
-          case "e":
-            if (pos.x > boundaryPoint.x) return true;
-            break;
-          case "w":
-            if (pos.x < boundaryPoint.x) return true;
-            break;
-        }
-      }
-    }
-
-    return false;
+    return !worldExtent.contains(pos.x, pos.y) || hasObstacle(pos);
   }
 
   // Renamed from isOutOfBounds to better reflect its purpose
@@ -1406,14 +2176,7 @@ public class LocalMap {
 
   public Set<Point> getObstaclesInRange(Point center, int range) {
     Set<Point> result = new HashSet<>();
-    for (Point obstaclePos : staticObstacles.keySet()) {
-      if (
-        Math.abs(obstaclePos.x - center.x) <= range &&
-        Math.abs(obstaclePos.y - center.y) <= range
-      ) {
-        result.add(obstaclePos);
-      }
-    }
+    spatialGrid.collectObstaclesInRange(center.x, center.y, range, result);
     return result;
   }
 
@@ -1426,21 +2189,43 @@ public class LocalMap {
   }
 
   public void recordStaticObstacle(Point position) {
-    staticObstacles.put(position, new ObstacleInfo(position, "static", false));
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      staticObstacles.putIfAbsent(
+        position,
+        new ObstacleInfo(position, INFERRED_OBSTACLE, false)
+      );
+      obstacleBits.set(position.x, position.y, true);
+      spatialGrid.addObstacle(position);
+    }
   }
 
   public void addOtherAgent(int relX, int relY, Point currentPos) {
-    Point agentPos = new Point(currentPos.x + relX, currentPos.y + relY);
-    dynamicObstacles.put(agentPos, new ObstacleInfo(agentPos, "dynamic", true));
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      Point agentPos = new Point(currentPos.x + relX, currentPos.y + relY);
+      putDynamicObstacle(agentPos, new ObstacleInfo(agentPos, "dynamic", true));
 
-    if (DEBUG) {
-      System.out.println("Added dynamic obstacle (agent) at " + agentPos);
+      if (DEBUG) {
+        System.out.println("Added dynamic obstacle (agent) at " + agentPos);
+      }
     }
   }
 
   // Helper method to clear dynamic obstacles at the start of each step
   public void clearDynamicObstacles() {
-    dynamicObstacles.clear();
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      dynamicObstacles.clear();
+      spatialGrid.clearDynamicObstacles();
+      obstacleBits.clear();
+      for (Point p : staticObstacles.keySet()) {
+        obstacleBits.set(p.x, p.y, true);
+      }
+    }
   }
 
   // Get all static obstacles for path planning
@@ -1494,7 +2279,7 @@ public class LocalMap {
       .get(EntityType.DISPENSER)
       .values()
       .stream()
-      .filter(e -> !e.isStale())
+      .filter(e -> !e.isStale(lastVisionStep))
       .map(e -> e.position)
       .collect(Collectors.toList());
   }
@@ -1504,7 +2289,7 @@ public class LocalMap {
       .get(EntityType.BLOCK)
       .values()
       .stream()
-      .filter(e -> !e.isStale())
+      .filter(e -> !e.isStale(lastVisionStep))
       .map(e -> e.position)
       .collect(Collectors.toList());
   }
@@ -1514,28 +2299,27 @@ public class LocalMap {
       .get(EntityType.GOAL)
       .values()
       .stream()
-      .filter(e -> !e.isStale())
+      .filter(e -> !e.isStale(lastVisionStep))
       .map(e -> e.position)
       .collect(Collectors.toList());
   }
 
   public void removeEntity(Point pos) {
-    dispensers.remove(pos);
-    blocks.remove(pos);
-    goals.remove(pos);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      dispensers.remove(pos);
+      blocks.remove(pos);
+      goals.remove(pos);
+    }
   }
 
   public boolean isNearBoundary(Point pos) {
-    Map<String, Point> boundaries = getConfirmedBoundariesPositions();
-    if (boundaries.isEmpty()) {
-      return false;
-    }
-
-    for (Point boundary : boundaries.values()) {
-      if (
-        Math.abs(pos.x - boundary.x) <= AWARENESS_DISTANCE ||
-        Math.abs(pos.y - boundary.y) <= AWARENESS_DISTANCE
-      ) {
+    WorldExtent extent = worldExtent;
+    for (Direction side : Direction.all()) {
+      if (!extent.isKnown(side)) continue;
+      int coord = side.isVertical() ? pos.y : pos.x;
+      if (Math.abs(extent.edge(side) - coord) <= AWARENESS_DISTANCE) {
         return true;
       }
     }
@@ -1548,61 +2332,17 @@ public class LocalMap {
       logger.warning("Cannot handle boundary failure - no current position");
       return;
     }
-
-    // Get or create boundary evidence for this direction
-    BoundaryEvidence evidence = boundaryEvidence.computeIfAbsent(
-      direction,
-      k -> new BoundaryEvidence()
-    );
-
-    // Add evidence for this failure
-    evidence.addFailedMove(currentPos);
-
-    // Only confirm boundary after 3 failures at the same plane
-    if (evidence.failedMoves >= 3) {
-      // Record boundary plane with only relevant coordinate
-      Point boundaryPoint;
-      switch (direction) {
-        case "n":
-          boundaryPoint = new Point(0, currentPos.y - 1); // Only y matters for north
-          break;
-        case "s":
-          boundaryPoint = new Point(0, currentPos.y + 1); // Only y matters for south
-          break;
-        case "e":
-          boundaryPoint = new Point(currentPos.x + 1, 0); // Only x matters for east
-          break;
-        case "w":
-          boundaryPoint = new Point(currentPos.x - 1, 0); // Only x matters for west
-          break;
-        default:
-          return;
-      }
-
-      // Create BoundaryInfo object
-      BoundaryInfo boundaryInfo = new BoundaryInfo(boundaryPoint, direction);
-      confirmedBoundaries.put(direction, boundaryInfo);
-
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "Recorded boundary plane: %s at %s (relevant coordinate only)",
-            direction,
-            direction.equals("n") || direction.equals("s")
-              ? "y=" + boundaryPoint.y
-              : "x=" + boundaryPoint.x
-          )
-        );
-      }
-    }
+    recordBoundary(direction, currentPos);
   }
 
-  public void handlePathFailure() {
+  /** The move in direction failed_path: something blocks the next cell. */
+  public void handlePathFailure(String direction) {
     try {
-      if (lastAttemptedMove != null) {
-        recordStaticObstacle(lastAttemptedMove);
-        logger.info("Static obstacle recorded at " + lastAttemptedMove);
-      }
+      Direction move = Direction.fromSymbol(direction);
+      if (move == null) return;
+      Point blocked = move.next(getCurrentPosition());
+      recordStaticObstacle(blocked);
+      logger.info("Static obstacle recorded at " + blocked);
     } catch (Exception e) {
       logger.severe("Error in handlePathFailure: " + e.getMessage());
     }
@@ -1634,70 +2374,14 @@ public class LocalMap {
       );
   }
 
-  private void updateMapBounds(Point currentPos, String direction) {
-    if (direction == null) return;
-
-    // Update map bounds based on confirmed boundary
-    switch (direction) {
-      case "n":
-        if (
-          mapMinBounds == null || currentPos.y < mapMinBounds.y
-        ) mapMinBounds =
-          new Point(
-            mapMinBounds != null ? mapMinBounds.x : currentPos.x,
-            currentPos.y
-          );
-        break;
-      case "s":
-        if (
-          mapMaxBounds == null || currentPos.y > mapMaxBounds.y
-        ) mapMaxBounds =
-          new Point(
-            mapMaxBounds != null ? mapMaxBounds.x : currentPos.x,
-            currentPos.y
-          );
-        break;
-      case "w":
-        if (
-          mapMinBounds == null || currentPos.x < mapMinBounds.x
-        ) mapMinBounds =
-          new Point(
-            currentPos.x,
-            mapMinBounds != null ? mapMinBounds.y : currentPos.y
-          );
-        break;
-      case "e":
-        if (
-          mapMaxBounds == null || currentPos.x > mapMaxBounds.x
-        ) mapMaxBounds =
-          new Point(
-            currentPos.x,
-            mapMaxBounds != null ? mapMaxBounds.y : currentPos.y
-          );
-        break;
-    }
-  }
-
-  // Track attempted moves
-  public void setLastAttemptedMove(Point target) {
-    this.lastAttemptedMove = target;
-  }
-
   // Add this method to help with debugging
   public void logBoundaryState() {
     if (DEBUG) {
-      Point currentPos = getCurrentPosition();
       logger.info(
         String.format(
-          "Current position: %s, Boundaries: %s",
-          currentPos,
-          confirmedBoundaries
-            .entrySet()
-            .stream()
-            .map(
-              e -> String.format("%s at %s", e.getKey(), e.getValue().position)
-            )
-            .collect(Collectors.joining(", "))
+          "Current position: %s, Extent: %s",
+          getCurrentPosition(),
+          worldExtent
         )
       );
     }
@@ -1705,89 +2389,140 @@ public class LocalMap {
 
   // Add method to get exploration coverage
   public double getExplorationCoverage() {
-    if (!boundsInitialized) return 0.0;
+    WorldExtent extent = worldExtent;
+    if (!extent.isComplete()) return 0.0;
 
-    int totalArea =
-      (mapMaxBounds.x - mapMinBounds.x + 1) *
-      (mapMaxBounds.y - mapMinBounds.y + 1);
-    return totalArea > 0 ? (double) visitedCells.size() / totalArea : 0.0;
+    int totalArea = extent.width() * extent.height();
+    int visited;
+    synchronized (positionLock) {
+      visited = visits.touchedCells();
+    }
+    return totalArea > 0 ? (double) visited / totalArea : 0.0;
   }
 
-  private void cleanupOldVisits() {
-    long currentTime = System.currentTimeMillis();
-    lastVisitTime
-      .entrySet()
-      .removeIf(entry -> currentTime - entry.getValue() > VISIT_DECAY_TIME);
-    visitedCells.keySet().removeIf(pos -> !lastVisitTime.containsKey(pos));
+  public Map<Point, Double> getVisitedHeatmap() {
+    Map<Point, Double> counts;
+    synchronized (positionLock) {
+      counts = visits.toMap(System.currentTimeMillis(), 0.0);
+    }
+    // Normalize visit counts to the 0.0-1.0 range
+    counts.replaceAll((pos, count) -> count / MAX_VISIT_COUNT);
+    return counts;
   }
 
-  public Map<Point, Double> getVisitedHeatmap() {
-    Map<Point, Double> heatmap = new HashMap<>();
-    long currentTime = System.currentTimeMillis();
-
-    // Convert visit counts to heat values with time decay
-    for (Map.Entry<Point, Integer> entry : visitedCells.entrySet()) {
-      Point pos = entry.getKey();
-      int visits = entry.getValue();
-      long lastVisit = lastVisitTime.getOrDefault(pos, 0L);
-
-      // Calculate time decay factor (1.0 to 0.0)
-      double timeFactor = Math.max(
-        0.0,
-        1.0 - (double) (currentTime - lastVisit) / VISIT_DECAY_TIME
-      );
+  /**
+   * Heat of a single cell as in getVisitedHeatmap(), without building the
+   * map for every visited cell.
+   */
+  public double getVisitHeat(Point pos, long currentTime) {
+    synchronized (positionLock) {
+      return visits.get(pos, currentTime) / MAX_VISIT_COUNT;
+    }
+  }
+
+  public boolean isExplored(Point pos) {
+    long lastVisit;
+    synchronized (positionLock) {
+      lastVisit = visits.lastTouched(pos.x, pos.y);
+    }
+    return (
+      lastVisit >= 0 &&
+      System.currentTimeMillis() - lastVisit <= VISIT_DECAY_TIME
+    );
+  }
 
-      // Normalize visits to 0.0-1.0 range and apply time decay
-      double heat =
-        Math.min(1.0, (double) visits / MAX_VISIT_COUNT) * timeFactor;
+  // Stuck and oscillation checks after every move, failed or not: failed
+  // moves are what make the same-position run grow
+  private void checkMovementPatterns(String direction) {
+    movesSinceLastStuckCheck++;
 
-      if (heat > 0.0) {
-        heatmap.put(pos, heat);
+    // Check for 2-step and 3-step patterns every 3 moves
+    if (movesSinceLastStuckCheck >= 3) {
+      // Check for position-based stuck
+      if (isPositionStuck()) {
+        incrementStuck(direction);
+        wasStuckLastCheck = true;
+      } else if (!wasStuckLastCheck) {
+        resetStuckState();
+      }
+
+      // Check for 2-step and 3-step patterns
+      if (detectShortPatterns()) {
+        patternCount++;
+        lastOscillationUpdateTime = System.currentTimeMillis();
       }
     }
 
-    return heatmap;
-  }
+    // Check for 4-step patterns every 6 moves
+    if (movesSinceLastStuckCheck >= 6) {
+      movesSinceLastStuckCheck = 0;
 
-  public boolean isExplored(Point pos) {
-    return visitedCells.containsKey(pos);
+      // Check for 4-step patterns
+      if (detectLongPattern()) {
+        patternCount++;
+        lastOscillationUpdateTime = System.currentTimeMillis();
+      } else {
+        patternCount = 0;
+      }
+    } else if (wasStuckLastCheck) {
+      // Immediate recheck if was stuck
+      if (!isPositionStuck()) {
+        resetStuckState();
+        wasStuckLastCheck = false;
+        movesSinceLastStuckCheck = 0;
+      }
+    }
   }
 
   // Add collision state methods
-  private void recordMovement(Point newPosition, String direction) {
+  private void recordMovement(Point newPosition, Direction move) {
     // Record movement history
-    movementHistory.addFirst(new MovementRecord(newPosition, direction));
-    if (movementHistory.size() > MOVEMENT_HISTORY_SIZE) {
-      movementHistory.removeLast();
-    }
-
-    // Update last moves
-    if (lastMoves.size() >= MEMORY_SIZE) {
-      lastMoves.removeLast();
-    }
-    lastMoves.addFirst(direction);
+    moveHistory.record(newPosition, move);
 
     // Update position tracking
     lastPosition = currentPosition; // Store the previous position
-    lastRecommendedDirection = direction; // Store the successful direction
+    lastRecommendedDirection = move.symbol; // Store the successful direction
   }
 
   // Update the state methods
   public void updateAgentState(int size, String blockAttachment) {
-    this.agentSize = size;
-    this.blockAttachment = blockAttachment;
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      this.agentSize = size;
+      this.blockAttachment = blockAttachment;
+    }
+  }
+
+  /** The last moves, newest first; collision handlers read it directly. */
+  public MoveHistory getMoveHistory() {
+    return moveHistory;
   }
 
   public List<MovementRecord> getMovementHistory() {
-    return new ArrayList<>(movementHistory);
+    List<MovementRecord> records = new ArrayList<>(moveHistory.size());
+    for (int age = 0; age < moveHistory.size(); age++) {
+      records.add(
+        new MovementRecord(
+          moveHistory.positionAt(age),
+          moveHistory.directionAt(age).symbol
+        )
+      );
+    }
+    return records;
   }
 
   public MovementRecord getLastMovement() {
-    return !movementHistory.isEmpty() ? movementHistory.getFirst() : null;
+    if (moveHistory.isEmpty()) return null;
+    return new MovementRecord(
+      moveHistory.positionAt(0),
+      moveHistory.directionAt(0).symbol
+    );
   }
 
   public String getLastDirection() {
-    return !lastMoves.isEmpty() ? lastMoves.getFirst() : null;
+    Direction last = moveHistory.lastDirection();
+    return last != null ? last.symbol : null;
   }
 
   public Point getLastPosition() {
@@ -1808,13 +2543,17 @@ public class LocalMap {
 
   // Add these methods
   public void incrementStuck(String attemptedDirection) {
-    if (stuckCounter == 0) {
-      stuckStartTime = System.currentTimeMillis();
-      triedDirections.clear();
-    }
-    stuckCounter++;
-    if (attemptedDirection != null) {
-      triedDirections.add(attemptedDirection);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      if (stuckCounter == 0) {
+        stuckStartTime = System.currentTimeMillis();
+        triedDirections.clear();
+      }
+      stuckCounter++;
+      if (attemptedDirection != null) {
+        triedDirections.add(attemptedDirection);
+      }
     }
   }
 
@@ -1827,9 +2566,13 @@ public class LocalMap {
   }
 
   public void resetStuckState() {
-    stuckCounter = 0;
-    stuckStartTime = null;
-    triedDirections.clear();
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      stuckCounter = 0;
+      stuckStartTime = null;
+      triedDirections.clear();
+    }
   }
 
   public boolean isStuckTimeout() {
@@ -1841,35 +2584,25 @@ public class LocalMap {
 
   // Add oscillation tracking methods
   private boolean detectShortPatterns() {
-    List<MovementRecord> recent = new ArrayList<>(movementHistory);
-    if (recent.size() < 4) return false;
+    if (moveHistory.size() < 4) return false;
 
     oscillatingDirections.clear();
 
     // Two-step pattern check (back and forth)
-    String lastDir = recent.get(0).direction;
-    String prevDir = recent.get(1).direction;
-    if (lastDir != null && prevDir != null && isOpposite(lastDir, prevDir)) {
-      oscillatingDirections.add(lastDir);
-      oscillatingDirections.add(prevDir);
+    if (moveHistory.isBackAndForth()) {
+      moveHistory.addSymbols(0, 2, oscillatingDirections);
       return true;
     }
 
     // Three-step pattern check
-    if (recent.size() >= 9) {
-      List<String> lastThree = getDirections(recent, 0, 3);
-      List<String> middleThree = getDirections(recent, 3, 6);
-      List<String> firstThree = getDirections(recent, 6, 9);
-
-      if (lastThree != null && middleThree != null && firstThree != null) {
-        if (lastThree.equals(middleThree) || lastThree.equals(firstThree)) {
-          oscillatingDirections.addAll(lastThree);
-          return true;
-        }
-        if (middleThree.equals(firstThree)) {
-          oscillatingDirections.addAll(middleThree);
-          return true;
-        }
+    if (moveHistory.size() >= 9) {
+      if (moveHistory.sameMoves(0, 3, 3) || moveHistory.sameMoves(0, 6, 3)) {
+        moveHistory.addSymbols(0, 3, oscillatingDirections);
+        return true;
+      }
+      if (moveHistory.sameMoves(3, 6, 3)) {
+        moveHistory.addSymbols(3, 3, oscillatingDirections);
+        return true;
       }
     }
 
@@ -1877,24 +2610,15 @@ public class LocalMap {
   }
 
   private boolean detectLongPattern() {
-    List<MovementRecord> recent = new ArrayList<>(movementHistory);
-    if (recent.size() < 12) return false;
+    if (moveHistory.size() < 12) return false;
 
     // Four-step pattern check (ABAB pattern repeated 3 times)
-    List<String> lastFour = getDirections(recent, 0, 4);
-    List<String> middleFour = getDirections(recent, 4, 8);
-    List<String> firstFour = getDirections(recent, 8, 12);
-
-    if (lastFour != null && middleFour != null && firstFour != null) {
-      // Check if it's the same ABAB pattern repeated three times
-      if (
-        lastFour.equals(middleFour) &&
-        lastFour.equals(firstFour) &&
-        isAlternatingPattern(lastFour)
-      ) {
-        oscillatingDirections.addAll(lastFour);
-        return true;
-      }
+    if (
+      moveHistory.repeats(2, 6) &&
+      moveHistory.directionAt(0) != moveHistory.directionAt(1)
+    ) {
+      moveHistory.addSymbols(0, 4, oscillatingDirections);
+      return true;
     }
 
     return false;
@@ -1908,25 +2632,14 @@ public class LocalMap {
   }
 
   public void resetOscillationState() {
-    patternCount = 0;
-    movesSinceLastPatternCheck = 0;
-    lastOscillationUpdateTime = System.currentTimeMillis();
-    oscillatingDirections.clear(); // Clear the directions when resetting
-  }
-
-  // Helper method to get directions from movement records
-  private List<String> getDirections(
-    List<MovementRecord> records,
-    int start,
-    int end
-  ) {
-    List<String> directions = new ArrayList<>();
-    for (int i = start; i < end && i < records.size(); i++) {
-      String dir = records.get(i).direction;
-      if (dir == null) return null;
-      directions.add(dir);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      patternCount = 0;
+      movesSinceLastPatternCheck = 0;
+      lastOscillationUpdateTime = System.currentTimeMillis();
+      oscillatingDirections.clear(); // Clear the directions when resetting
     }
-    return directions.size() == (end - start) ? directions : null;
   }
 
   // Add this method to LocalMap class
@@ -1936,33 +2649,59 @@ public class LocalMap {
 
   // Add this method to update heat
   public void updateHeatMap(Point position) {
-    long now = System.currentTimeMillis();
-    if (now - lastHeatDecay > 1000) { // Decay every second
-      heatMap.replaceAll((k, v) -> Math.max(MIN_HEAT, v * HEAT_DECAY_RATE));
-      lastHeatDecay = now;
-    }
-
-    // Update heat in radius around position
-    for (int dx = -HEAT_RADIUS; dx <= HEAT_RADIUS; dx++) {
-      for (int dy = -HEAT_RADIUS; dy <= HEAT_RADIUS; dy++) {
-        Point p = new Point(position.x + dx, position.y + dy);
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        if (distance <= HEAT_RADIUS) {
-          double heatValue = INITIAL_HEAT * Math.exp(-distance / HEAT_RADIUS);
-          heatMap.merge(p, heatValue, (old, new_) -> Math.min(1.0, old + new_));
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      long now = System.currentTimeMillis();
+      // Update heat in radius around position; older heat decays on the way
+      for (int dx = -HEAT_RADIUS; dx <= HEAT_RADIUS; dx++) {
+        for (int dy = -HEAT_RADIUS; dy <= HEAT_RADIUS; dy++) {
+          double distance = Math.sqrt(dx * dx + dy * dy);
+          if (distance <= HEAT_RADIUS) {
+            heatMap.add(
+              position.x + dx,
+              position.y + dy,
+              (float) (INITIAL_HEAT * Math.exp(-distance / HEAT_RADIUS)),
+              MAX_AREA_HEAT,
+              now
+            );
+          }
         }
       }
     }
   }
 
+  /**
+   * Adds a penalty to one cell's heat, beyond the cap of area heat, so the
+   * cell is avoided until it has cooled down. Used for stuck and oscillation
+   * spots.
+   */
+  public void addHeat(Point position, double penalty) {
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      heatMap.add(
+        position.x,
+        position.y,
+        (float) penalty,
+        Float.MAX_VALUE,
+        System.currentTimeMillis()
+      );
+    }
+  }
+
   // Add this method to get heat score
   public double getHeatScore(Point zone) {
-    return heatMap.getOrDefault(zone, 0.0);
+    synchronized (positionLock) {
+      return heatMap.get(zone, System.currentTimeMillis());
+    }
   }
 
   // Add this method to get the entire heat map
   public Map<Point, Double> getHeatMap() {
-    return new HashMap<>(heatMap);
+    synchronized (positionLock) {
+      return heatMap.toMap(System.currentTimeMillis(), 0.0);
+    }
   }
 
   // Add these methods for forced direction change tracking
@@ -1971,16 +2710,24 @@ public class LocalMap {
   }
 
   public void startWatchingForcedChange() {
-    isWatchingForcedChange = false;
-    forcedDirectionTryCount = 0;
-    triedForcedDirections.clear();
-    isWatchingForcedChange = true;
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      isWatchingForcedChange = false;
+      forcedDirectionTryCount = 0;
+      triedForcedDirections.clear();
+      isWatchingForcedChange = true;
+    }
   }
 
   public void stopWatchingForcedChange() {
-    isWatchingForcedChange = false;
-    forcedDirectionTryCount = 0;
-    triedForcedDirections.clear();
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      isWatchingForcedChange = false;
+      forcedDirectionTryCount = 0;
+      triedForcedDirections.clear();
+    }
   }
 
   public int getForcedDirectionTryCount() {
@@ -1988,8 +2735,12 @@ public class LocalMap {
   }
 
   public void incrementForcedDirectionTry(String direction) {
-    forcedDirectionTryCount++;
-    triedForcedDirections.add(direction);
+    synchronized (positionLock) {
+      checkWritable();
+      markDirty();
+      forcedDirectionTryCount++;
+      triedForcedDirections.add(direction);
+    }
   }
 
   public Set<String> getTriedForcedDirections() {
@@ -1997,36 +2748,11 @@ public class LocalMap {
   }
 
   public boolean shouldForcedDirectionChange() {
-    return sameDirectionCount >= FORCED_DIRECTION_THRESHOLD;
+    return moveHistory.sameDirectionRun() >= FORCED_DIRECTION_THRESHOLD;
   }
 
   // Add this method to get the same direction count
   public int getSameDirectionCount() {
-    return sameDirectionCount;
-  }
-
-  private boolean isOpposite(String dir1, String dir2) {
-    if (dir1 == null || dir2 == null) return false;
-    switch (dir1) {
-      case "n":
-        return dir2.equals("s");
-      case "s":
-        return dir2.equals("n");
-      case "e":
-        return dir2.equals("w");
-      case "w":
-        return dir2.equals("e");
-      default:
-        return false;
-    }
-  }
-
-  private boolean isAlternatingPattern(List<String> moves) {
-    if (moves.size() != 4) return false;
-    return (
-      moves.get(0).equals(moves.get(2)) &&
-      moves.get(1).equals(moves.get(3)) &&
-      !moves.get(0).equals(moves.get(1))
-    );
+    return moveHistory.sameDirectionRun();
   }
 }
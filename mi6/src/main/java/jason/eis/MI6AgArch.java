@@ -0,0 +1,28 @@
+package jason.eis;
+
+import jason.architecture.AgArch;
+
+/**
+ * Agent architecture for the team's agents. Holds the agent's LocalMap
+ * once it has been resolved, so internal actions called many times per
+ * step get it with a field read instead of a model lookup. The model only
+ * replaces a map when a new match starts and retires the old one first, so
+ * a cached handle is refetched once it reports isRetired().
+ */
+public class MI6AgArch extends AgArch {
+  private static final long serialVersionUID = 1L;
+
+  private transient volatile LocalMap localMap; // A cache, never state
+
+  /** The agent's map, or null while the model has not created it yet. */
+  public LocalMap getLocalMap() {
+    LocalMap map = localMap;
+    if (map == null || map.isRetired()) {
+      MI6Model model = MI6Model.getInstanceOrNull();
+      if (model == null) return null;
+      map = model.findAgentMap(getAgName());
+      localMap = map;
+    }
+    return map;
+  }
+}
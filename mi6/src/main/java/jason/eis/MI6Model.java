@@ -4,21 +4,37 @@ import eis.EnvironmentInterfaceStandard;
 import eis.iilang.*;
 import jason.asSyntax.*;
 import jason.eis.Point;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
 import jason.eis.movements.AgentCollisionHandler;
 import jason.eis.movements.Exploration;
+import jason.eis.movements.Footprint;
+import jason.eis.movements.GuidanceFields;
+import jason.eis.movements.MovementContext;
 import jason.eis.movements.PlannedMovement;
 import jason.eis.movements.RandomMovement;
+import jason.eis.metrics.MoveEvent;
+import jason.eis.metrics.PerceptIngestionEvent;
+import jason.eis.metrics.StepMetrics;
 import jason.eis.movements.Search;
+import jason.eis.percepts.ActionResultPercept;
+import jason.eis.percepts.PerceptSnapshot;
+import jason.eis.planning.PlanningExecutor;
+import jason.eis.planning.StepClock;
 import jason.environment.Environment;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class MI6Model {
-  private static MI6Model instance;
-  public static boolean DEBUG = true; // Make DEBUG public static
+  // Written once at the end of the constructor; volatile so readers see a
+  // fully constructed model without taking a lock
+  private static volatile MI6Model instance;
+  private static final SubsystemLog log = AsyncLog.forSubsystem("model");
 
   private final Logger logger = Logger.getLogger(
     "MI6Model." + MI6Model.class.getName()
@@ -119,8 +135,12 @@ public class MI6Model {
 
   // In MI6Model.java, add:
   private final Map<String, LocalMap> agentMaps;
-  private final Map<String, Long> lastProcessedTime;
-  private static final long PERCEPT_THRESHOLD = 100; // 100ms threshold
+  private final Map<String, Long> lastIngestedStep;
+  public static final int VISION_RANGE = 5; // MAPC 2019 default agent vision
+  private final Map<String, PerceptSnapshot> latestPercepts = new ConcurrentHashMap<>();
+  private final AtomicBoolean memoryReportPending = new AtomicBoolean();
+  // Per-agent map fingerprint of the current match, for MapStore
+  private final Map<String, MapFingerprint> mapFingerprints = new ConcurrentHashMap<>();
 
   // Add PerceptCache class definition
   private static class PerceptCache {
@@ -149,9 +169,18 @@ public class MI6Model {
   // Add new field declarations
   private final RandomMovement randomMovement;
   private final PlannedMovement plannedMovement;
+  private final MovementContext.Registry movementContexts = new MovementContext.Registry();
+  // Target fields built when a step is applied, read by RequestGuidance
+  private final GuidanceFields guidanceFields;
 
-  // Add a lock object for synchronizing percept and movement processing
-  private final Object actionLock = new Object();
+  // Step timing and the planning pool shared by all agents
+  private final StepClock stepClock;
+  private final PlanningExecutor planningExecutor;
+  private final StepMetrics stepMetrics;
+
+  // Per-agent locks for percept and movement processing. ReentrantLock rather
+  // than synchronized so virtual threads blocked in EIS calls are not pinned.
+  private final Map<String, ReentrantLock> actionLocks = new ConcurrentHashMap<>();
 
   // Track movement failures per agent
   private final Map<String, Map<String, DirectionStatus>> agentDirectionStatus = new ConcurrentHashMap<>();
@@ -203,13 +232,21 @@ public class MI6Model {
   public MI6Model(EnvironmentInterfaceStandard ei) {
     this.ei = ei;
 
-    // Initialize movement components in correct order
-    AgentCollisionHandler collisionHandler = new AgentCollisionHandler();
+    // Initialize movement components in correct order; the components are
+    // shared by the team, each agent's movement state is in its context
+    AgentCollisionHandler collisionHandler = new AgentCollisionHandler(
+      movementContexts
+    );
     Exploration exploration = new Exploration();
 
     // Initialize movement strategies with updated dependencies
     this.randomMovement = new RandomMovement(collisionHandler, exploration);
-    this.plannedMovement = new PlannedMovement();
+    this.plannedMovement =
+      new PlannedMovement(collisionHandler, movementContexts);
+    this.guidanceFields = new GuidanceFields(plannedMovement);
+    this.stepClock = new StepClock();
+    this.planningExecutor = new PlanningExecutor();
+    this.stepMetrics = new StepMetrics();
 
     // Initialize maps and caches
     this.agentMaps = new ConcurrentHashMap<>();
@@ -218,16 +255,22 @@ public class MI6Model {
     this.perceptCache = new ConcurrentHashMap<>();
     this.agentPaths = new ConcurrentHashMap<>();
     this.movingToDispenser = new ConcurrentHashMap<>();
-    this.lastProcessedTime = new ConcurrentHashMap<>();
+    this.lastIngestedStep = new ConcurrentHashMap<>();
 
     LocalMap.DEBUG = false;
     instance = this;
   }
 
-  public static synchronized MI6Model getInstance() {
-    if (instance == null) {
+  public static MI6Model getInstance() {
+    MI6Model model = instance;
+    if (model == null) {
       throw new IllegalStateException("MI6Model not initialized");
     }
+    return model;
+  }
+
+  // For instrumentation paths that must not fail before the model exists
+  public static MI6Model getInstanceOrNull() {
     return instance;
   }
 
@@ -239,13 +282,17 @@ public class MI6Model {
     return map;
   }
 
+  /** The agent's map, or null if the agent has not been initialized. */
+  public LocalMap findAgentMap(String agName) {
+    return agentMaps.get(agName);
+  }
+
   public void initializeAgent(String agName) {
-    if (!agentMaps.containsKey(agName)) {
-      agentMaps.put(agName, new LocalMap());
-      agentMovement.put(agName, new MovementHistory());
-      if (LocalMap.DEBUG) {
-        logger.info(String.format("[%s] Initialized new agent", agName));
-      }
+    if (agentMaps.containsKey(agName)) return;
+    if (agentMaps.putIfAbsent(agName, new LocalMap()) == null) {
+      planningExecutor.ensureThreads(agentMaps.size());
+      agentMovement.putIfAbsent(agName, new MovementHistory());
+      log.debug("[%s] Initialized new agent", agName);
     }
   }
 
@@ -264,41 +311,67 @@ public class MI6Model {
   }
 
   public boolean moveTowards(String agName, String direction) throws Exception {
-    synchronized (actionLock) {
-      try {
-        LocalMap map = getAgentMap(agName);
-        Point currentPos = map.getCurrentPosition();
-        Point expectedPos = calculateTargetPosition(currentPos, direction);
-
-        ei.performAction(
-          agName,
-          new Action("move", new Identifier(direction.toLowerCase()))
-        );
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    ReentrantLock lock = getActionLock(agName);
+    lock.lock();
+    try {
+      LocalMap map = getAgentMap(agName);
+      Point currentPos = map.getCurrentPosition();
+      Point expectedPos = calculateTargetPosition(currentPos, direction);
 
-        getDirectionStatus(agName, direction).recordSuccess();
-        return true;
-      } catch (Exception e) {
-        MoveFailureType failureType = parseMoveFailure(e);
-        LocalMap map = getAgentMap(agName);
+      ei.performAction(
+        agName,
+        new Action("move", new Identifier(direction.toLowerCase()))
+      );
 
-        // Only record boundary for FORBIDDEN failures
-        if (failureType == MoveFailureType.FORBIDDEN) {
-          map.recordBoundary(direction, map.getCurrentPosition());
-        }
-        // Record obstacles for FAILED_PATH
-        else if (failureType == MoveFailureType.FAILED_PATH) {
-          Point targetPos = calculateTargetPosition(
-            map.getCurrentPosition(),
-            direction
-          );
-          map.recordObstacle(targetPos, "static", false);
-        }
+      getDirectionStatus(agName, direction).recordSuccess();
+      commitMoveEvent(event, agName, direction, null);
+      return true;
+    } catch (Exception e) {
+      MoveFailureType failureType = parseMoveFailure(e);
+      commitMoveEvent(event, agName, direction, failureType);
+      LocalMap map = getAgentMap(agName);
 
-        return handleMoveFailure(agName, direction, e, failureType);
+      // Only record boundary for FORBIDDEN failures
+      if (failureType == MoveFailureType.FORBIDDEN) {
+        map.recordBoundary(direction, map.getCurrentPosition());
+      }
+      // Record obstacles for FAILED_PATH
+      else if (failureType == MoveFailureType.FAILED_PATH) {
+        Point targetPos = calculateTargetPosition(
+          map.getCurrentPosition(),
+          direction
+        );
+        map.recordObstacle(targetPos, LocalMap.INFERRED_OBSTACLE, false);
       }
+
+      return handleMoveFailure(agName, direction, e, failureType);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void commitMoveEvent(
+    MoveEvent event,
+    String agName,
+    String direction,
+    MoveFailureType failureType
+  ) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.agent = agName;
+      event.direction = direction;
+      event.success = failureType == null;
+      event.failureType = failureType != null ? failureType.name() : null;
+      event.commit();
     }
   }
 
+  private ReentrantLock getActionLock(String agName) {
+    return actionLocks.computeIfAbsent(agName, k -> new ReentrantLock());
+  }
+
   private DirectionStatus getDirectionStatus(String agName, String direction) {
     return agentDirectionStatus
       .computeIfAbsent(agName, k -> new ConcurrentHashMap<>())
@@ -314,17 +387,13 @@ public class MI6Model {
     DirectionStatus status = getDirectionStatus(agName, direction);
     status.recordFailure(agName, direction, getAgPos(agName));
 
-    if (DEBUG) {
-      logger.warning(
-        String.format(
-          "[%s] Move %s failed (%s): %s",
-          agName,
-          direction,
-          failureType,
-          e.getMessage()
-        )
-      );
-    }
+    log.debug(
+      "[%s] Move %s failed (%s): %s",
+      agName,
+      direction,
+      failureType,
+      e.getMessage()
+    );
 
     return false;
   }
@@ -739,110 +808,191 @@ public class MI6Model {
     return perpDirs;
   }
 
-  public void processPercepts(String agName, Collection<Percept> percepts) {
-    synchronized (actionLock) {
-      try {
-        long currentTime = System.currentTimeMillis();
-        Long lastTime = lastProcessedTime.get(agName);
+  /**
+   * Applies an agent's decoded percepts to its map. Called by EISAdapter
+   * before the percepts reach Jason, so the map is current before the agent
+   * starts reasoning; only the first batch of each step is applied.
+   * Returns whether this batch was that first one.
+   */
+  public boolean ingestPercepts(String agName, PerceptSnapshot snapshot) {
+    if (!snapshot.hasStep()) return false;
+    latestPercepts.put(agName, snapshot);
+    long step = snapshot.step().step();
+    Long previousStep = lastIngestedStep.put(agName, step);
+    if (previousStep != null && previousStep == step) return false;
+
+    ReentrantLock lock = getActionLock(agName);
+    lock.lock();
+    LocalMap map = null;
+    try {
+      if (!agentMaps.containsKey(agName)) {
+        initializeAgent(agName);
+      } else if (previousStep != null && step < previousStep) {
+        startNewMatch(agName);
+      }
 
-        // Skip if we processed percepts too recently
-        if (lastTime != null && currentTime - lastTime < PERCEPT_THRESHOLD) {
-          return;
-        }
+      map = getAgentMap(agName);
+      // Readers keep the previous step's snapshot until the step is applied
+      map.beginUpdate();
+      PerceptIngestionEvent event = new PerceptIngestionEvent();
+      event.begin();
+      long versionBefore = map.getVersion();
+
+      // The last action first: a successful move advances the frame, and
+      // failures refer to the position the move was made from. Only then is
+      // this step's vision placed and cleared relative to the position
+      boolean confirmed = applyActionResult(agName, map, snapshot.lastAction());
+      // A skipped step's move result never arrives, so the frame may be off
+      boolean contiguous = previousStep == null || step == previousStep + 1;
+      map.setPositionConfirmed(confirmed && contiguous);
+
+      Point currentAbsPos = map.getCurrentPosition();
+      map.syncVision(snapshot, VISION_RANGE);
+      fingerprintMap(agName, map, snapshot);
+      map.clearStaleEntities();
+      map.clearStaleDynamicObstacles();
+      map.enforceMemoryBudget();
+      memoryReportPending.set(true);
+
+      event.end();
+      if (event.shouldCommit()) {
+        event.agent = agName;
+        event.source = "percepts";
+        event.writes = map.getVersion() - versionBefore;
+        event.commit();
+      }
 
-        if (!agentMaps.containsKey(agName)) {
-          initializeAgent(agName);
-        }
+      log.debug(
+        "[%s] Step %d: %d things, %d obstacles, %d goals applied at %s",
+        agName,
+        step,
+        snapshot.things().size(),
+        snapshot.obstacles().size(),
+        snapshot.goals().size(),
+        currentAbsPos
+      );
+      logMapState(agName);
+    } catch (Exception e) {
+      logger.log(Level.WARNING, "Error processing percepts for " + agName, e);
+    } finally {
+      if (map != null) map.commitUpdate();
+      lock.unlock();
+    }
+    // Off the lock, the fields build while the agent's percepts are
+    // converted and it starts reasoning
+    if (map != null) guidanceFields.prepare(agName, step, map.snapshot());
+    return true;
+  }
 
-        LocalMap map = getAgentMap(agName);
-        Point currentAbsPos = map.getCurrentPosition();
+  // The step number going back means the server started the next match.
+  // Positions are relative to where the agent started, so the old map
+  // would be in the wrong frame; the agent starts over with an empty one.
+  private void startNewMatch(String agName) {
+    LocalMap previous = agentMaps.put(agName, new LocalMap());
+    if (previous != null) previous.retire();
+    mapFingerprints.remove(agName);
+    movementContexts.reset(agName);
+    guidanceFields.reset(agName);
+    log.info("[%s] New match, starting with an empty map", agName);
+  }
 
-        for (Percept p : percepts) {
-          String name = p.getName();
-          Parameter[] params = p.getParameters().toArray(new Parameter[0]);
+  // Fingerprints the map from the first steps of vision and, if a match on
+  // the same map and start position was stored, warm starts the agent's map
+  private void fingerprintMap(
+    String agName,
+    LocalMap map,
+    PerceptSnapshot snapshot
+  ) {
+    if (!MapStore.isEnabled()) return;
+    MapFingerprint fingerprint = mapFingerprints.computeIfAbsent(
+      agName,
+      k -> new MapFingerprint()
+    );
+    if (!fingerprint.offer(snapshot, map.getCurrentPosition())) return;
+    if (!fingerprint.isUsable()) {
+      log.debug(
+        "[%s] Only %d features seen, map not fingerprinted",
+        agName,
+        fingerprint.featureCount()
+      );
+      return;
+    }
 
-          switch (name) {
-            case "thing":
-              processThingPercept(agName, p, currentAbsPos);
-              break;
-            case "obstacle":
-              int obstX = ((Numeral) params[0]).getValue().intValue();
-              int obstY = ((Numeral) params[1]).getValue().intValue();
-              map.addObstacle(new Point(obstX, obstY), currentAbsPos);
-              break;
-            case "goal":
-              int goalX = ((Numeral) params[0]).getValue().intValue();
-              int goalY = ((Numeral) params[1]).getValue().intValue();
-              map.addGoal(new Point(goalX, goalY), currentAbsPos);
-              break;
-          }
-        }
+    MapLayout layout = MapStore.load(fingerprint.value());
+    if (layout == null) return;
+    map.warmStart(layout);
+    log.info(
+      "[%s] Warm start from stored map %s: %d obstacles, %d goals, %d dispensers, extent %s",
+      agName,
+      fingerprint,
+      layout.obstacleCount(),
+      layout.goalCount(),
+      layout.dispenserCount(),
+      layout.extent()
+    );
+  }
 
-        map.clearStaleEntities();
-        lastProcessedTime.put(agName, currentTime);
+  /**
+   * Stores the agent's map layout under the match's fingerprint so later
+   * matches on the same map can warm start. Called when the match ends;
+   * only the first call per match writes.
+   */
+  public void persistMap(String agName) {
+    MapFingerprint fingerprint = mapFingerprints.remove(agName);
+    LocalMap map = agentMaps.get(agName);
+    if (fingerprint == null || !fingerprint.isUsable() || map == null) return;
 
-        if (LocalMap.DEBUG) {
-          logger.info("Processing percepts for " + agName);
-          logMapState(agName); // Log after processing percepts
-        }
-      } catch (Exception e) {
-        logger.log(Level.WARNING, "Error processing percepts for " + agName, e);
-      }
-    }
+    MapLayout layout = map.exportLayout();
+    MapStore.save(fingerprint.value(), layout);
+    log.info(
+      "[%s] Stored map %s: %d obstacles, %d goals, %d dispensers",
+      agName,
+      fingerprint,
+      layout.obstacleCount(),
+      layout.goalCount(),
+      layout.dispenserCount()
+    );
   }
 
-  private void processThingPercept(
+  /** Last decoded percepts of the agent (tasks, attached blocks, ...), or null. */
+  public PerceptSnapshot getLatestPercepts(String agName) {
+    return latestPercepts.get(agName);
+  }
+
+  // The only place the agent's position changes during a match. Returns
+  // whether the position is known to match the server's afterwards
+  private boolean applyActionResult(
     String agName,
-    Percept p,
-    Point currentAbsPos
+    LocalMap map,
+    ActionResultPercept lastAction
   ) {
-    synchronized (actionLock) {
-      try {
-        Parameter[] params = p.getParameters().toArray(new Parameter[0]);
-        int relX = ((Numeral) params[0]).getValue().intValue();
-        int relY = ((Numeral) params[1]).getValue().intValue();
-        String type = ((Identifier) params[2]).getValue();
-        String details = params.length > 3
-          ? ((Identifier) params[3]).getValue()
-          : null;
+    if (lastAction == null || !"move".equals(lastAction.action())) return true;
 
-        LocalMap map = getAgentMap(agName);
-        Point relativePos = new Point(relX, relY);
-
-        if (LocalMap.DEBUG) {
-          logger.info(
-            String.format(
-              "[%s] Processing thing: %s at (%d,%d) [abs: %s] with details %s",
-              agName,
-              type,
-              relX,
-              relY,
-              currentAbsPos,
-              details
-            )
-          );
-        }
+    String direction = lastAction.firstParam();
+    if (direction == null || lastAction.result() == null) {
+      log.debug("[%s] Move result incomplete, position unsure", agName);
+      return false;
+    }
 
-        switch (type) {
-          case "dispenser":
-            if (
-              details != null && (details.equals("b0") || details.equals("b1"))
-            ) {
-              map.addDispenser(relativePos, details, currentAbsPos);
-            }
-            break;
-          case "block":
-            if (
-              details != null && (details.equals("b0") || details.equals("b1"))
-            ) {
-              map.addBlock(relativePos, details, currentAbsPos);
-            }
-            break;
-        }
-      } catch (Exception e) {
-        logger.warning("Error processing thing percept: " + e.getMessage());
-      }
+    if (lastAction.isSuccess()) {
+      map.updatePositionFromMovement(direction);
+      return true;
     }
+
+    map.recordFailedMove(direction);
+    switch (lastAction.result()) {
+      case "failed_forbidden":
+        log.debug("[%s] Hit boundary moving %s", agName, direction);
+        map.handleBoundaryFailure(direction);
+        break;
+      case "failed_path":
+        log.debug("[%s] Path blocked moving %s", agName, direction);
+        map.handlePathFailure(direction);
+        break;
+      default:
+        break;
+    }
+    return true;
   }
 
   private Zone getOrCreateZone(String agName, Point position) {
@@ -896,16 +1046,15 @@ public class MI6Model {
     return agentPaths.getOrDefault(agName, Collections.emptyList());
   }
 
+  // Full map dumps are large, so they are only produced at TRACE
   public void logMapState(String agName) {
-    if (LocalMap.DEBUG) {
+    if (log.isTraceEnabled()) {
       try {
         LocalMap map = getAgentMap(agName);
-        logger.info(
-          "\n=== Map State for Agent " +
-          agName +
-          " ===\n" +
-          map.toString() +
-          "\n================================"
+        log.trace(
+          "%n=== Map State for Agent %s ===%n%s%n================================",
+          agName,
+          map.toString()
         );
       } catch (Exception e) {
         logger.warning(
@@ -954,17 +1103,7 @@ public class MI6Model {
   }
 
   private List<String> getAvailableDirections(LocalMap map, Point currentPos) {
-    List<String> available = new ArrayList<>();
-    String[] directions = { "n", "s", "e", "w" };
-
-    for (String dir : directions) {
-      Point nextPos = calculateNextPosition(currentPos, dir);
-      if (!map.hasObstacle(nextPos) && !map.isOutOfBounds(nextPos)) {
-        available.add(dir);
-      }
-    }
-
-    return available;
+    return Footprint.available(map, currentPos);
   }
 
   private Point calculateNextPosition(Point current, String direction) {
@@ -1041,4 +1180,49 @@ public class MI6Model {
   public PlannedMovement getPlannedMovement() {
     return plannedMovement;
   }
+
+  public GuidanceFields getGuidanceFields() {
+    return guidanceFields;
+  }
+
+  public StepClock getStepClock() {
+    return stepClock;
+  }
+
+  public PlanningExecutor getPlanningExecutor() {
+    return planningExecutor;
+  }
+
+  public StepMetrics getStepMetrics() {
+    return stepMetrics;
+  }
+
+  /** Per-agent map memory usage, one line per agent. */
+  public String getMemoryReport() {
+    StringBuilder report = new StringBuilder("Map memory by agent:");
+    for (String agName : new TreeSet<>(agentMaps.keySet())) {
+      MapMemoryUsage usage = agentMaps.get(agName).getMemoryUsage();
+      Zone zone = agentZones.get(agName);
+      if (zone != null) {
+        usage = usage.withZonePoints(zone.getExplorationCount());
+      }
+      report.append("\n  ").append(agName).append(": ").append(usage);
+    }
+    return report.toString();
+  }
+
+  /** Logs the memory report if percepts were applied since the last one. */
+  public void logMemoryReportIfPending() {
+    if (memoryReportPending.getAndSet(false)) {
+      log.info("%s", getMemoryReport());
+    }
+  }
+
+  public void shutdown() {
+    planningExecutor.shutdown();
+    guidanceFields.shutdown();
+    stepMetrics.logSummaryIfPending();
+    logMemoryReportIfPending();
+    AsyncLog.flush();
+  }
 }
@@ -0,0 +1,117 @@
+package jason.eis;
+
+import jason.eis.percepts.GoalPercept;
+import jason.eis.percepts.ObstaclePercept;
+import jason.eis.percepts.PerceptSnapshot;
+import jason.eis.percepts.ThingPercept;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Identifies a map layout, and the agent's start position on it, from the
+ * fixed features seen in the first steps of a match: obstacles, goal cells
+ * and dispensers with their block type, at positions in the agent's frame.
+ *
+ * Vision is added step by step until MIN_FEATURES distinct features were
+ * seen or MAX_STEPS steps passed. Usually the first step is enough, so the
+ * value does not depend on where the agent moved. A fingerprint with fewer
+ * features is not usable: an empty patch of grid identifies nothing.
+ */
+public final class MapFingerprint {
+  static final int MIN_FEATURES = 6;
+  static final int MAX_STEPS = 3;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final int OBSTACLE = 1;
+  private static final int GOAL = 2;
+  private static final int DISPENSER = 3;
+
+  private final Set<Long> features = new HashSet<>();
+  private int steps = 0;
+  private boolean complete = false;
+  private long value = 0L;
+
+  /**
+   * Adds one step's vision seen from origin. Returns true on the step that
+   * completes the fingerprint, false before and after.
+   */
+  public boolean offer(PerceptSnapshot vision, Point origin) {
+    if (complete) return false;
+    for (ObstaclePercept obstacle : vision.obstacles()) {
+      features.add(
+        pack(OBSTACLE, origin.x + obstacle.x(), origin.y + obstacle.y(), 0)
+      );
+    }
+    for (GoalPercept goal : vision.goals()) {
+      features.add(pack(GOAL, origin.x + goal.x(), origin.y + goal.y(), 0));
+    }
+    for (ThingPercept thing : vision.things()) {
+      if (!"dispenser".equals(thing.type())) continue;
+      features.add(
+        pack(
+          DISPENSER,
+          origin.x + thing.x(),
+          origin.y + thing.y(),
+          thing.details() != null ? thing.details().hashCode() : 0
+        )
+      );
+    }
+    steps++;
+    if (features.size() < MIN_FEATURES && steps < MAX_STEPS) return false;
+
+    complete = true;
+    value = hash();
+    return true;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /** Complete and backed by enough features to tell maps apart. */
+  public boolean isUsable() {
+    return complete && features.size() >= MIN_FEATURES;
+  }
+
+  public long value() {
+    return value;
+  }
+
+  public int featureCount() {
+    return features.size();
+  }
+
+  private static long pack(int kind, int x, int y, int detail) {
+    return (
+      ((long) kind << 48) |
+      ((long) (x & 0xFFFF) << 32) |
+      ((long) (y & 0xFFFF) << 16) |
+      (detail & 0xFFFF)
+    );
+  }
+
+  // FNV-1a over the sorted features, so the order they were seen in is moot
+  private long hash() {
+    long[] sorted = new long[features.size()];
+    int i = 0;
+    for (long feature : features) sorted[i++] = feature;
+    Arrays.sort(sorted);
+
+    long h = FNV_OFFSET;
+    for (long feature : sorted) {
+      for (int shift = 0; shift < 64; shift += 8) {
+        h ^= (feature >>> shift) & 0xFF;
+        h *= FNV_PRIME;
+      }
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x", value);
+  }
+}
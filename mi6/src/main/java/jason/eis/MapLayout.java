@@ -0,0 +1,27 @@
+package jason.eis;
+
+/**
+ * The fixed part of a map as one agent knows it, in that agent's frame:
+ * the known grid edges, static obstacles, goal cells and dispensers.
+ * Positions are packed as x,y pairs; dispenserTypes[i] is the block type of
+ * the dispenser at dispensers[2i], dispensers[2i + 1].
+ */
+public record MapLayout(
+  WorldExtent extent,
+  int[] obstacles,
+  int[] goals,
+  int[] dispensers,
+  String[] dispenserTypes
+) {
+  public int obstacleCount() {
+    return obstacles.length / 2;
+  }
+
+  public int goalCount() {
+    return goals.length / 2;
+  }
+
+  public int dispenserCount() {
+    return dispenserTypes.length;
+  }
+}
@@ -0,0 +1,67 @@
+package jason.eis;
+
+/**
+ * Entry counts of one agent's map state, with a rough byte estimate. The
+ * per-entry sizes assume compressed oops: a hash map node plus a Point key
+ * and a boxed or small object value. Heat and visits are primitive grids,
+ * counted by the cells allocated rather than the cells touched.
+ */
+public record MapMemoryUsage(
+  int entities,
+  int obstacles,
+  int dynamicObstacles,
+  int gridCells,
+  int heatCells,
+  int visitedCells,
+  int heatGridCells,
+  int zonePoints,
+  long entitiesEvicted,
+  long heatCellsEvicted
+) {
+  private static final int ENTITY_BYTES = 200; // Registry, type index, grid
+  private static final int POINT_ENTRY_BYTES = 72;
+  private static final int GRID_CELL_BYTES = 300;
+  private static final int HEAT_GRID_CELL_BYTES = 8; // A float and an int
+
+  public long approxBytes() {
+    return (
+      (long) entities * ENTITY_BYTES +
+      (long) (obstacles + dynamicObstacles + zonePoints) * POINT_ENTRY_BYTES +
+      (long) heatGridCells * HEAT_GRID_CELL_BYTES +
+      (long) gridCells * GRID_CELL_BYTES
+    );
+  }
+
+  public MapMemoryUsage withZonePoints(int points) {
+    return new MapMemoryUsage(
+      entities,
+      obstacles,
+      dynamicObstacles,
+      gridCells,
+      heatCells,
+      visitedCells,
+      heatGridCells,
+      points,
+      entitiesEvicted,
+      heatCellsEvicted
+    );
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      "~%d KB: %d entities, %d obstacles, %d dynamic, %d grid cells, " +
+      "%d heat, %d visited, %d zone points (evicted %d entities, %d heat)",
+      approxBytes() / 1024,
+      entities,
+      obstacles,
+      dynamicObstacles,
+      gridCells,
+      heatCells,
+      visitedCells,
+      zonePoints,
+      entitiesEvicted,
+      heatCellsEvicted
+    );
+  }
+}
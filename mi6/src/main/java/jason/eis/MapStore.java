@@ -0,0 +1,183 @@
+package jason.eis;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps map layouts between matches, one file per MapFingerprint, so an
+ * agent that starts on a map it has already played (tournaments reusing
+ * map files, fixed seeds) knows its obstacles, goals and dispensers from
+ * the first step. The store is opt-in: it is used only when the directory
+ * is set with mi6.mapstore.dir (read once; "off" also disables it), so
+ * nothing accumulates on machines that never asked for it.
+ *
+ * Layout (DataOutputStream, big endian):
+ *   header     int magic 'MI6M', short version, long fingerprint
+ *   extent     int minX, int minY, int maxX, int maxY (open sides as
+ *              Integer.MIN_VALUE / MAX_VALUE)
+ *   obstacles  int count, count x (int x, int y)
+ *   goals      int count, count x (int x, int y)
+ *   dispensers int count, count x (int x, int y, utf type)
+ *
+ * Files are written to a temporary name and moved into place, and read
+ * through a read-only memory mapping. A file that cannot be read is
+ * logged and ignored; the agent then explores as usual.
+ */
+public final class MapStore {
+  private static final Logger logger = Logger.getLogger(
+    MapStore.class.getName()
+  );
+
+  static final int MAGIC = 0x4D49364D; // "MI6M"
+  static final short VERSION = 1;
+  private static final String SUFFIX = ".mi6map";
+
+  private static final Path DIRECTORY = directory();
+
+  private MapStore() {}
+
+  private static Path directory() {
+    String value = System.getProperty("mi6.mapstore.dir");
+    if (value == null || value.isBlank() || "off".equalsIgnoreCase(value)) {
+      return null;
+    }
+    return Paths.get(value);
+  }
+
+  public static boolean isEnabled() {
+    return DIRECTORY != null;
+  }
+
+  private static Path fileFor(long fingerprint) {
+    return DIRECTORY.resolve(String.format("%016x%s", fingerprint, SUFFIX));
+  }
+
+  /** Stored layout for the fingerprint, or null if none or unreadable. */
+  public static MapLayout load(long fingerprint) {
+    if (DIRECTORY == null) return null;
+    Path file = fileFor(fingerprint);
+    if (!Files.isRegularFile(file)) return null;
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer in = channel.map(
+        FileChannel.MapMode.READ_ONLY,
+        0,
+        channel.size()
+      );
+      if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+        logger.warning("Ignoring map store file with bad header: " + file);
+        return null;
+      }
+      if (in.getLong() != fingerprint) {
+        logger.warning("Ignoring map store file for another map: " + file);
+        return null;
+      }
+
+      WorldExtent extent = WorldExtent.of(
+        in.getInt(),
+        in.getInt(),
+        in.getInt(),
+        in.getInt()
+      );
+      int[] obstacles = new int[2 * readCount(in, 8)];
+      for (int i = 0; i < obstacles.length; i++) obstacles[i] = in.getInt();
+      int[] goals = new int[2 * readCount(in, 8)];
+      for (int i = 0; i < goals.length; i++) goals[i] = in.getInt();
+
+      int dispenserCount = readCount(in, 10); // At least x, y, length
+      int[] dispensers = new int[2 * dispenserCount];
+      String[] types = new String[dispenserCount];
+      for (int i = 0; i < dispenserCount; i++) {
+        dispensers[2 * i] = in.getInt();
+        dispensers[2 * i + 1] = in.getInt();
+        byte[] text = new byte[in.getShort() & 0xFFFF];
+        in.get(text);
+        types[i] = new String(text, StandardCharsets.UTF_8);
+      }
+      return new MapLayout(extent, obstacles, goals, dispensers, types);
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Could not read map store file " + file, e);
+      return null;
+    }
+  }
+
+  // A corrupt count must not allocate more than the file can hold
+  private static int readCount(ByteBuffer in, int bytesPerEntry)
+    throws IOException {
+    int count = in.getInt();
+    if (count < 0 || (long) count * bytesPerEntry > in.remaining()) {
+      throw new IOException("Bad entry count " + count);
+    }
+    return count;
+  }
+
+  /** Writes the layout for the fingerprint, replacing an older one. */
+  public static void save(long fingerprint, MapLayout layout) {
+    if (DIRECTORY == null) return;
+    Path file = fileFor(fingerprint);
+    Path temp = null;
+    try {
+      Files.createDirectories(DIRECTORY);
+      temp = Files.createTempFile(DIRECTORY, "map", SUFFIX + ".tmp");
+      try (
+        DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)
+        )
+      ) {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(fingerprint);
+
+        WorldExtent extent = layout.extent();
+        out.writeInt(extent.minX);
+        out.writeInt(extent.minY);
+        out.writeInt(extent.maxX);
+        out.writeInt(extent.maxY);
+        writePositions(out, layout.obstacles());
+        writePositions(out, layout.goals());
+
+        int[] dispensers = layout.dispensers();
+        String[] types = layout.dispenserTypes();
+        out.writeInt(types.length);
+        for (int i = 0; i < types.length; i++) {
+          out.writeInt(dispensers[2 * i]);
+          out.writeInt(dispensers[2 * i + 1]);
+          out.writeUTF(types[i] != null ? types[i] : "");
+        }
+      }
+      Files.move(
+        temp,
+        file,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE
+      );
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Could not write map store file " + file, e);
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+          // A stray temp file is harmless, the name is never read
+        }
+      }
+    }
+  }
+
+  private static void writePositions(DataOutputStream out, int[] positions)
+    throws IOException {
+    out.writeInt(positions.length / 2);
+    for (int coord : positions) out.writeInt(coord);
+  }
+}
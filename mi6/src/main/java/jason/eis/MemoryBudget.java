@@ -0,0 +1,103 @@
+package jason.eis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+/**
+ * Size caps for the per-agent state that would otherwise grow for the whole
+ * match (and across matches in one JVM): known entities, heat grids, zone
+ * exploration points and path history. Caps are read once from system
+ * properties:
+ *
+ *   mi6.memory.entities      entities, and separately blocks, kept per map
+ *                            (default 4096)
+ *   mi6.memory.heat          cells per heat grid (default 16384, 128x128)
+ *   mi6.memory.zonePoints    explored points kept per zone (default 256)
+ *   mi6.memory.pathHistory   moves kept in an agent's path history (256)
+ *   mi6.memory.policy        distance (default) or lru
+ *
+ * A structure over its cap is trimmed to 90% of it in one pass, so eviction
+ * runs once per many insertions instead of on every one. Heat grids instead
+ * stop growing at their cap and move with the agent, see HeatField.
+ * Dispensers and static obstacles are never evicted; obstacles lie within
+ * the grid, which bounds them.
+ */
+public final class MemoryBudget {
+  private static final Logger logger = Logger.getLogger(
+    MemoryBudget.class.getName()
+  );
+  private static final String PROPERTY_PREFIX = "mi6.memory.";
+
+  public enum EvictionPolicy {
+    /** Forget what is farthest from the agent first */
+    DISTANCE,
+    /** Forget what was seen (or heated) least recently first */
+    LRU
+  }
+
+  public static final int MAX_ENTITIES = cap("entities", 4096);
+  public static final int MAX_HEAT_CELLS = cap("heat", 16384);
+  public static final int MAX_ZONE_POINTS = cap("zonePoints", 256);
+  public static final int MAX_PATH_HISTORY = cap("pathHistory", 256);
+  public static final EvictionPolicy POLICY = policy();
+
+  private MemoryBudget() {}
+
+  private static int cap(String name, int defaultValue) {
+    int value = Integer.getInteger(PROPERTY_PREFIX + name, defaultValue);
+    if (value < 1) {
+      logger.warning(
+        "Ignoring " + PROPERTY_PREFIX + name + "=" + value + ", must be > 0"
+      );
+      return defaultValue;
+    }
+    return value;
+  }
+
+  private static EvictionPolicy policy() {
+    String value = System.getProperty(PROPERTY_PREFIX + "policy");
+    if (value == null) return EvictionPolicy.DISTANCE;
+    try {
+      return EvictionPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      logger.warning("Unknown eviction policy " + value + ", using distance");
+      return EvictionPolicy.DISTANCE;
+    }
+  }
+
+  /** Size a structure over its cap is trimmed down to. */
+  public static int trimTarget(int cap) {
+    return cap - cap / 10;
+  }
+
+  /**
+   * The count items with the lowest keep score, i.e. the ones to evict.
+   * Uses a bounded heap, so selecting a few victims from a large map does
+   * not sort the whole map.
+   */
+  public static <T> List<T> selectVictims(
+    Collection<T> items,
+    ToLongFunction<T> keepScore,
+    int count
+  ) {
+    if (count <= 0) return new ArrayList<>();
+    Comparator<T> byScore = Comparator.comparingLong(keepScore);
+    // Max-heap of the current victims, the root is the best one to keep
+    PriorityQueue<T> victims = new PriorityQueue<>(count, byScore.reversed());
+    for (T item : items) {
+      if (victims.size() < count) {
+        victims.offer(item);
+      } else if (byScore.compare(item, victims.peek()) < 0) {
+        victims.poll();
+        victims.offer(item);
+      }
+    }
+    return new ArrayList<>(victims);
+  }
+}
@@ -0,0 +1,146 @@
+package jason.eis;
+
+/**
+ * One bit per cell of the agent's frame, set where LocalMap knows a static
+ * or dynamic obstacle, in rows of 64-bit words. LocalMap updates it next to
+ * its obstacle maps; readers take 64 cells of a row with one window() call
+ * and test them against a mask, see movements.Footprint.
+ *
+ * The rows grow to cover every cell ever set, doubling as needed; frame
+ * coordinates stay within the grid's size of the start, so this stays
+ * small. Growing swaps in new rows in one volatile write, so a reader never
+ * sees a half-grown bitmap; at worst it misses a bit set at the same time.
+ */
+public final class ObstacleBitmap {
+  private static final int INITIAL_WORDS = 2; // 128 cells wide
+  private static final int INITIAL_HEIGHT = 128;
+
+  private static final class Rows {
+    final int minX;
+    final int minY;
+    final int words; // Per row
+    final int height;
+    final long[] bits;
+
+    Rows(int minX, int minY, int words, int height) {
+      this.minX = minX;
+      this.minY = minY;
+      this.words = words;
+      this.height = height;
+      this.bits = new long[words * height];
+    }
+  }
+
+  private volatile Rows rows = new Rows(
+    -INITIAL_WORDS * Long.SIZE / 2,
+    -INITIAL_HEIGHT / 2,
+    INITIAL_WORDS,
+    INITIAL_HEIGHT
+  );
+
+  /** Independent copy, for map snapshots. */
+  ObstacleBitmap copy() {
+    Rows current = rows;
+    ObstacleBitmap copy = new ObstacleBitmap();
+    Rows copied = new Rows(
+      current.minX,
+      current.minY,
+      current.words,
+      current.height
+    );
+    System.arraycopy(current.bits, 0, copied.bits, 0, current.bits.length);
+    copy.rows = copied;
+    return copy;
+  }
+
+  // Callers hold LocalMap's position lock
+  void set(int x, int y, boolean blocked) {
+    Rows current = rows;
+    if (!covers(current, x, y)) {
+      if (!blocked) return;
+      current = grow(current, x, y);
+      rows = current;
+    }
+    int col = x - current.minX;
+    int index = (y - current.minY) * current.words + (col >>> 6);
+    long bit = 1L << (col & 63);
+    if (blocked) {
+      current.bits[index] |= bit;
+    } else {
+      current.bits[index] &= ~bit;
+    }
+  }
+
+  void clear() {
+    Rows current = rows;
+    rows = new Rows(current.minX, current.minY, current.words, current.height);
+  }
+
+  public boolean get(int x, int y) {
+    return (window(x, y) & 1L) != 0;
+  }
+
+  /**
+   * The 64 cells of row y from column x on: bit i is set if cell (x + i, y)
+   * is blocked. Cells outside the bitmap read as free.
+   */
+  public long window(int x, int y) {
+    Rows current = rows;
+    int row = y - current.minY;
+    if (row < 0 || row >= current.height) return 0L;
+    int base = row * current.words;
+    long col = (long) x - current.minX;
+    int word = (int) Math.floorDiv(col, Long.SIZE);
+    int shift = Math.floorMod(col, Long.SIZE);
+    long low = word(current, base, word) >>> shift;
+    if (shift == 0) return low;
+    return low | (word(current, base, word + 1) << (Long.SIZE - shift));
+  }
+
+  private static long word(Rows current, int base, int word) {
+    return word >= 0 && word < current.words ? current.bits[base + word] : 0L;
+  }
+
+  private static boolean covers(Rows current, int x, int y) {
+    long col = (long) x - current.minX;
+    long row = (long) y - current.minY;
+    return (
+      col >= 0 &&
+      col < (long) current.words * Long.SIZE &&
+      row >= 0 &&
+      row < current.height
+    );
+  }
+
+  private static Rows grow(Rows current, int x, int y) {
+    int words = current.words;
+    int height = current.height;
+    int minX = current.minX;
+    int minY = current.minY;
+    // Double towards the new cell until it is covered
+    while ((long) x < minX) {
+      minX -= words * Long.SIZE;
+      words *= 2;
+    }
+    while ((long) x >= (long) minX + (long) words * Long.SIZE) words *= 2;
+    while (y < minY) {
+      minY -= height;
+      height *= 2;
+    }
+    while ((long) y >= (long) minY + height) height *= 2;
+
+    Rows grown = new Rows(minX, minY, words, height);
+    int wordShift = (current.minX - minX) / Long.SIZE;
+    int rowShift = current.minY - minY;
+    for (int row = 0; row < current.height; row++) {
+      System.arraycopy(
+        current.bits,
+        row * current.words,
+        grown.bits,
+        (row + rowShift) * words + wordShift,
+        current.words
+      );
+    }
+    return grown;
+  }
+}
@@ -0,0 +1,109 @@
+package jason.eis;
+
+import jason.asSyntax.ASSyntax;
+import jason.asSyntax.Atom;
+import jason.asSyntax.NumberTerm;
+import jason.asSyntax.NumberTermImpl;
+import jason.asSyntax.Term;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned Jason terms for the values that repeat in every percept: thing
+ * types, block types, agent and team names, and small numbers such as
+ * relative coordinates. Atoms and number terms are immutable, so a single
+ * instance can be shared by all agents' percepts.
+ */
+public final class TermCache {
+  // Identifiers seen in a match are bounded (types, names, tasks), the limit
+  // only guards against a server sending ever-new identifiers
+  private static final int MAX_IDENTIFIERS = 8192;
+  private static final int MIN_CACHED_NUMBER = -128;
+  private static final int MAX_CACHED_NUMBER = 1024; // Covers coordinates and steps
+
+  private static final Map<String, Term> identifiers = new ConcurrentHashMap<>();
+  private static final NumberTerm[] numbers = createNumbers();
+
+  private TermCache() {}
+
+  private static NumberTerm[] createNumbers() {
+    int count = MAX_CACHED_NUMBER - MIN_CACHED_NUMBER + 1;
+    NumberTerm[] terms = new NumberTerm[count];
+    for (int i = 0; i < terms.length; i++) {
+      terms[i] = new NumberTermImpl(i + MIN_CACHED_NUMBER);
+    }
+    return terms;
+  }
+
+  /**
+   * Term for an EIS identifier: an atom when it is a valid Jason atom, a
+   * parsed term for other lowercase identifiers and a string otherwise.
+   */
+  public static Term identifier(String value) {
+    Term term = identifiers.get(value);
+    if (term != null) return term;
+
+    term = convertIdentifier(value);
+    if (identifiers.size() < MAX_IDENTIFIERS) {
+      identifiers.putIfAbsent(value, term);
+    }
+    return term;
+  }
+
+  public static NumberTerm number(double value) {
+    int intValue = (int) value;
+    if (
+      intValue == value &&
+      intValue >= MIN_CACHED_NUMBER &&
+      intValue <= MAX_CACHED_NUMBER
+    ) {
+      return numbers[intValue - MIN_CACHED_NUMBER];
+    }
+    return new NumberTermImpl(value);
+  }
+
+  private static Term convertIdentifier(String value) {
+    if (value.isEmpty() || Character.isUpperCase(value.charAt(0))) {
+      return ASSyntax.createString(value);
+    }
+    if (isPlainAtom(value)) {
+      return new Atom(value);
+    }
+    // Anything else (e.g. "true", operators) goes through the parser as before
+    try {
+      return ASSyntax.parseTerm(value);
+    } catch (Exception e) {
+      return ASSyntax.createString(value);
+    }
+  }
+
+  // Lowercase letter followed by letters, digits and underscores, and not one
+  // of the words the parser turns into something other than an atom
+  private static boolean isPlainAtom(String value) {
+    char first = value.charAt(0);
+    if (first < 'a' || first > 'z') return false;
+    for (int i = 1; i < value.length(); i++) {
+      char c = value.charAt(i);
+      boolean valid =
+        (c >= 'a' && c <= 'z') ||
+        (c >= 'A' && c <= 'Z') ||
+        (c >= '0' && c <= '9') ||
+        c == '_';
+      if (!valid) return false;
+    }
+    switch (value) {
+      case "true":
+      case "false":
+      case "not":
+      case "div":
+      case "mod":
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  public static int getCachedIdentifierCount() {
+    return identifiers.size();
+  }
+}
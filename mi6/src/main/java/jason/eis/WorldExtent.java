@@ -0,0 +1,141 @@
+package jason.eis;
+
+import jason.eis.movements.Direction;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The part of the agent's coordinate frame known to lie inside the grid, as
+ * an inclusive int rectangle. A side whose edge is not known yet is left
+ * open (Integer.MIN_VALUE / MAX_VALUE), so contains() is four int compares
+ * whatever is known.
+ *
+ * Instances are immutable; LocalMap swaps in a new one when an edge is
+ * learned, so readers never see a half-updated rectangle.
+ */
+public final class WorldExtent {
+  private static final int OPEN_MIN = Integer.MIN_VALUE;
+  private static final int OPEN_MAX = Integer.MAX_VALUE;
+
+  public static final WorldExtent UNKNOWN = new WorldExtent(
+    OPEN_MIN,
+    OPEN_MIN,
+    OPEN_MAX,
+    OPEN_MAX
+  );
+
+  public final int minX;
+  public final int minY;
+  public final int maxX;
+  public final int maxY;
+
+  // Legacy view for getConfirmedBoundariesPositions(), built once
+  private final Map<String, Point> boundaryPositions;
+
+  private WorldExtent(int minX, int minY, int maxX, int maxY) {
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+    this.boundaryPositions = buildBoundaryPositions();
+  }
+
+  /** Rectangle from raw bounds, as written by MapStore; open sides kept. */
+  static WorldExtent of(int minX, int minY, int maxX, int maxY) {
+    WorldExtent extent = new WorldExtent(minX, minY, maxX, maxY);
+    return extent.boundaryPositions.isEmpty() ? UNKNOWN : extent;
+  }
+
+  public boolean contains(int x, int y) {
+    return x >= minX && x <= maxX && y >= minY && y <= maxY;
+  }
+
+  public boolean contains(Point pos) {
+    return contains(pos.x, pos.y);
+  }
+
+  /**
+   * Outermost in-grid coordinate on the given side: a y for north and south,
+   * an x for east and west.
+   */
+  public int edge(Direction side) {
+    switch (side) {
+      case NORTH:
+        return minY;
+      case SOUTH:
+        return maxY;
+      case WEST:
+        return minX;
+      default:
+        return maxX;
+    }
+  }
+
+  public boolean isKnown(Direction side) {
+    int edge = edge(side);
+    return edge != OPEN_MIN && edge != OPEN_MAX;
+  }
+
+  /** True once all four edges are known and width()/height() are exact. */
+  public boolean isComplete() {
+    return (
+      minX != OPEN_MIN && minY != OPEN_MIN && maxX != OPEN_MAX && maxY != OPEN_MAX
+    );
+  }
+
+  public int width() {
+    return isComplete() ? maxX - minX + 1 : -1;
+  }
+
+  public int height() {
+    return isComplete() ? maxY - minY + 1 : -1;
+  }
+
+  /** Copy with the given side's outermost in-grid coordinate set. */
+  public WorldExtent withEdge(Direction side, int coord) {
+    if (isKnown(side) && edge(side) == coord) return this;
+    switch (side) {
+      case NORTH:
+        return new WorldExtent(minX, coord, maxX, maxY);
+      case SOUTH:
+        return new WorldExtent(minX, minY, maxX, coord);
+      case WEST:
+        return new WorldExtent(coord, minY, maxX, maxY);
+      default:
+        return new WorldExtent(minX, minY, coord, maxY);
+    }
+  }
+
+  /**
+   * First out-of-grid coordinate per known side, keyed by direction symbol,
+   * as Point(0, y) for north/south and Point(x, 0) for east/west. Shared and
+   * unmodifiable.
+   */
+  public Map<String, Point> boundaryPositions() {
+    return boundaryPositions;
+  }
+
+  private Map<String, Point> buildBoundaryPositions() {
+    Map<String, Point> positions = new HashMap<>();
+    for (Direction side : Direction.all()) {
+      if (!isKnown(side)) continue;
+      int beyond = edge(side) + side.dx + side.dy;
+      positions.put(
+        side.symbol,
+        side.isVertical() ? new Point(0, beyond) : new Point(beyond, 0)
+      );
+    }
+    return Map.copyOf(positions);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      "x=[%s..%s] y=[%s..%s]",
+      minX == OPEN_MIN ? "?" : minX,
+      maxX == OPEN_MAX ? "?" : maxX,
+      minY == OPEN_MIN ? "?" : minY,
+      maxY == OPEN_MAX ? "?" : maxY
+    );
+  }
+}
@@ -11,10 +11,24 @@ public class Zone {
     this.x = x;
     this.y = y;
     this.hashCode = 31 * x + y;
-    this.exploredPoints = new HashSet<>();
+    this.exploredPoints = newExploredSet();
+  }
+
+  // Insertion-ordered and capped: the oldest points are forgotten first
+  private static Set<Point> newExploredSet() {
+    return Collections.newSetFromMap(
+      new LinkedHashMap<Point, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Point, Boolean> eldest) {
+          return size() > MemoryBudget.MAX_ZONE_POINTS;
+        }
+      }
+    );
   }
 
   public void recordExploration(Point point) {
+    // Re-adding moves the point to the young end
+    exploredPoints.remove(point);
     exploredPoints.add(point);
   }
 
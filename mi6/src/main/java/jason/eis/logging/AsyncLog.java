@@ -0,0 +1,205 @@
+package jason.eis.logging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous logging for the agents' hot paths. Agent threads publish
+ * records into a lock-free ring buffer; a single daemon thread drains it,
+ * formats the messages and writes them to the sinks.
+ *
+ * Configured through system properties:
+ *   mi6.log.level=INFO             default level of every subsystem
+ *   mi6.log.level.planning=DEBUG   level of one subsystem
+ *   mi6.log.text=true              publish to java.util.logging
+ *   mi6.log.binary=mi6-log.bin     also write the binary structured log
+ *   mi6.log.buffer=8192            ring buffer capacity (records)
+ * Levels can be changed at runtime with setLevel().
+ */
+public final class AsyncLog {
+  private static final Logger logger = Logger.getLogger(
+    AsyncLog.class.getName()
+  );
+
+  private static final String PROPERTY_PREFIX = "mi6.log.";
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+  private static final int DRAIN_BATCH = 256;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(
+    2
+  );
+  private static final long FLUSH_TIMEOUT_MS = 2000;
+
+  private static final Map<String, SubsystemLog> subsystems = new ConcurrentHashMap<>();
+  private static volatile LogLevel defaultLevel = LogLevel.parse(
+    System.getProperty(PROPERTY_PREFIX + "level"),
+    LogLevel.INFO
+  );
+
+  private static final LogRingBuffer buffer = new LogRingBuffer(
+    Integer.getInteger(PROPERTY_PREFIX + "buffer", DEFAULT_BUFFER_SIZE)
+  );
+  private static final List<LogSink> sinks = createSinks();
+  private static final Thread writer = startWriter();
+  private static volatile boolean closed = false;
+
+  private AsyncLog() {}
+
+  /** Returns the logger of a subsystem, creating it on first use. */
+  public static SubsystemLog forSubsystem(String name) {
+    return subsystems.computeIfAbsent(
+      name,
+      key ->
+        new SubsystemLog(
+          key,
+          LogLevel.parse(
+            System.getProperty(PROPERTY_PREFIX + "level." + key),
+            defaultLevel
+          )
+        )
+    );
+  }
+
+  public static void setLevel(String subsystem, LogLevel level) {
+    forSubsystem(subsystem).setLevel(level);
+  }
+
+  /** Sets the level of every subsystem, including ones created later. */
+  public static void setDefaultLevel(LogLevel level) {
+    defaultLevel = level != null ? level : LogLevel.INFO;
+    for (SubsystemLog log : subsystems.values()) {
+      log.setLevel(defaultLevel);
+    }
+  }
+
+  /** Current level of every known subsystem, by name. */
+  public static Map<String, LogLevel> getLevels() {
+    Map<String, LogLevel> levels = new TreeMap<>();
+    for (SubsystemLog log : subsystems.values()) {
+      levels.put(log.getName(), log.getLevel());
+    }
+    return levels;
+  }
+
+  static void enqueue(
+    LogLevel level,
+    SubsystemLog subsystem,
+    String pattern,
+    Object[] args,
+    Throwable thrown
+  ) {
+    if (sinks.isEmpty()) return;
+    buffer.publish(level, subsystem, pattern, args, thrown);
+  }
+
+  /** Waits until the queued records are written, up to a short timeout. */
+  public static void flush() {
+    long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MS;
+    while (!buffer.isEmpty() && System.currentTimeMillis() < deadline) {
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  private static List<LogSink> createSinks() {
+    List<LogSink> result = new ArrayList<>();
+    if (
+      Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "text", "true"))
+    ) {
+      result.add(new JulLogSink());
+    }
+    String binaryPath = System.getProperty(PROPERTY_PREFIX + "binary");
+    if (binaryPath != null && !binaryPath.isEmpty()) {
+      try {
+        result.add(new BinaryLogSink(binaryPath));
+      } catch (IOException e) {
+        logger.warning(
+          "Could not open binary log " + binaryPath + ": " + e.getMessage()
+        );
+      }
+    }
+    return result;
+  }
+
+  private static Thread startWriter() {
+    Thread thread = new Thread(AsyncLog::runWriter, "mi6-log-writer");
+    thread.setDaemon(true);
+    thread.start();
+    Runtime
+      .getRuntime()
+      .addShutdownHook(
+        new Thread(
+          () -> {
+            flush();
+            closeSinks();
+          },
+          "mi6-log-shutdown"
+        )
+      );
+    return thread;
+  }
+
+  private static void runWriter() {
+    while (true) {
+      int drained = buffer.drain(AsyncLog::writeToSinks, DRAIN_BATCH);
+      reportDropped();
+      if (drained == 0) {
+        flushSinks();
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+    }
+  }
+
+  // Sinks are used by the writer thread and, at exit, by the shutdown hook
+  private static void writeToSinks(LogRingBuffer.Entry entry) {
+    synchronized (sinks) {
+      if (closed) return;
+      for (LogSink sink : sinks) {
+        try {
+          sink.write(entry);
+        } catch (IOException | RuntimeException e) {
+          logger.warning("Log sink failed: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private static void reportDropped() {
+    long dropped = buffer.getAndResetDropped();
+    if (dropped > 0) {
+      logger.warning(dropped + " log records dropped, ring buffer was full");
+    }
+  }
+
+  private static void flushSinks() {
+    synchronized (sinks) {
+      if (closed) return;
+      for (LogSink sink : sinks) {
+        try {
+          sink.flush();
+        } catch (IOException e) {
+          logger.warning("Log sink flush failed: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private static void closeSinks() {
+    synchronized (sinks) {
+      for (LogSink sink : sinks) {
+        try {
+          sink.close();
+        } catch (IOException e) {
+          // Shutting down, nothing left to report to
+        }
+      }
+      closed = true;
+    }
+  }
+}
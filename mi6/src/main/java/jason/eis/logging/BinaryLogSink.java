@@ -0,0 +1,136 @@
+package jason.eis.logging;
+
+import jason.eis.Point;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes records in a compact binary form without formatting them.
+ * Subsystem names, thread names and message patterns are interned: the
+ * first occurrence is written once as a string definition and records
+ * refer to it by id. Arguments keep their type so tools can filter on
+ * values instead of parsing text.
+ *
+ * Layout (DataOutputStream, big endian):
+ *   header  int magic 'MI6L', short version
+ *   define  byte 0x01, int id, utf text
+ *   record  byte 0x02, long epochMillis, byte level, int subsystemId,
+ *           int threadId, int patternId, byte argCount, args...,
+ *           byte hasThrown [, utf throwable]
+ *   arg     byte tag: 0 null | 1 int | 2 long | 3 double | 4 boolean
+ *           | 5 utf string | 6 point (int x, int y)
+ */
+class BinaryLogSink implements LogSink {
+  static final int MAGIC = 0x4D49364C; // "MI6L"
+  static final short VERSION = 1;
+
+  private static final byte DEFINE = 0x01;
+  private static final byte RECORD = 0x02;
+
+  private static final byte ARG_NULL = 0;
+  private static final byte ARG_INT = 1;
+  private static final byte ARG_LONG = 2;
+  private static final byte ARG_DOUBLE = 3;
+  private static final byte ARG_BOOLEAN = 4;
+  private static final byte ARG_STRING = 5;
+  private static final byte ARG_POINT = 6;
+
+  private static final int MAX_UTF_CHARS = 16384; // writeUTF is limited to 64KB
+
+  private final DataOutputStream out;
+  private final Map<String, Integer> stringIds = new HashMap<>();
+
+  BinaryLogSink(String path) throws IOException {
+    this.out =
+      new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(path), 1 << 16)
+      );
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+  }
+
+  @Override
+  public void write(LogRingBuffer.Entry entry) throws IOException {
+    int subsystemId = intern(entry.subsystem.getName());
+    int threadId = intern(entry.threadName);
+    int patternId = intern(entry.pattern);
+
+    out.writeByte(RECORD);
+    out.writeLong(entry.timeMillis);
+    out.writeByte(entry.level.ordinal());
+    out.writeInt(subsystemId);
+    out.writeInt(threadId);
+    out.writeInt(patternId);
+    out.writeByte(entry.argCount);
+    for (int i = 0; i < entry.argCount; i++) {
+      writeArg(entry.getArg(i));
+    }
+    if (entry.thrown != null) {
+      out.writeBoolean(true);
+      writeText(entry.thrown.toString());
+    } else {
+      out.writeBoolean(false);
+    }
+  }
+
+  private int intern(String text) throws IOException {
+    String key = text != null ? text : "";
+    Integer id = stringIds.get(key);
+    if (id == null) {
+      id = stringIds.size();
+      stringIds.put(key, id);
+      out.writeByte(DEFINE);
+      out.writeInt(id);
+      writeText(key);
+    }
+    return id;
+  }
+
+  private void writeArg(Object arg) throws IOException {
+    if (arg == null) {
+      out.writeByte(ARG_NULL);
+    } else if (
+      arg instanceof Integer || arg instanceof Short || arg instanceof Byte
+    ) {
+      out.writeByte(ARG_INT);
+      out.writeInt(((Number) arg).intValue());
+    } else if (arg instanceof Long) {
+      out.writeByte(ARG_LONG);
+      out.writeLong((Long) arg);
+    } else if (arg instanceof Double || arg instanceof Float) {
+      out.writeByte(ARG_DOUBLE);
+      out.writeDouble(((Number) arg).doubleValue());
+    } else if (arg instanceof Boolean) {
+      out.writeByte(ARG_BOOLEAN);
+      out.writeBoolean((Boolean) arg);
+    } else if (arg instanceof Point) {
+      Point point = (Point) arg;
+      out.writeByte(ARG_POINT);
+      out.writeInt(point.x);
+      out.writeInt(point.y);
+    } else {
+      out.writeByte(ARG_STRING);
+      writeText(String.valueOf(arg));
+    }
+  }
+
+  private void writeText(String text) throws IOException {
+    out.writeUTF(
+      text.length() > MAX_UTF_CHARS ? text.substring(0, MAX_UTF_CHARS) : text
+    );
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
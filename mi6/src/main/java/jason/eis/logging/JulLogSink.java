@@ -0,0 +1,41 @@
+package jason.eis.logging;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/** Publishes formatted records to java.util.logging as mi6.<subsystem>. */
+class JulLogSink implements LogSink {
+  private static final String LOGGER_PREFIX = "mi6.";
+
+  private final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+  @Override
+  public void write(LogRingBuffer.Entry entry) {
+    Logger logger = loggers.computeIfAbsent(
+      entry.subsystem.getName(),
+      name -> Logger.getLogger(LOGGER_PREFIX + name)
+    );
+    LogRecord record = new LogRecord(
+      entry.level.toJulLevel(),
+      entry.level.ordinal() < LogLevel.INFO.ordinal()
+        ? "[" + entry.level + "] " + entry.getMessage()
+        : entry.getMessage()
+    );
+    record.setLoggerName(logger.getName());
+    // Set explicitly so java.util.logging does not walk the stack to infer them
+    record.setSourceClassName(logger.getName());
+    record.setSourceMethodName(entry.threadName);
+    record.setInstant(Instant.ofEpochMilli(entry.timeMillis));
+    record.setThrown(entry.thrown);
+    logger.log(record);
+  }
+
+  @Override
+  public void flush() {}
+
+  @Override
+  public void close() {}
+}
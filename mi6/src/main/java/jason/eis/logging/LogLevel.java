@@ -0,0 +1,37 @@
+package jason.eis.logging;
+
+import java.util.logging.Level;
+
+public enum LogLevel {
+  TRACE(Level.INFO),
+  DEBUG(Level.INFO),
+  INFO(Level.INFO),
+  WARN(Level.WARNING),
+  ERROR(Level.SEVERE),
+  OFF(Level.OFF);
+
+  // Level used when a record is handed to java.util.logging. Records below
+  // INFO are published as INFO since the subsystem level already filtered them
+  private final Level julLevel;
+
+  LogLevel(Level julLevel) {
+    this.julLevel = julLevel;
+  }
+
+  public Level toJulLevel() {
+    return julLevel;
+  }
+
+  public boolean isEnabledAt(LogLevel threshold) {
+    return threshold != OFF && ordinal() >= threshold.ordinal();
+  }
+
+  public static LogLevel parse(String value, LogLevel fallback) {
+    if (value == null) return fallback;
+    try {
+      return LogLevel.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return fallback;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package jason.eis.logging;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated log entries.
+ * Producers claim a sequence with a CAS and publish the slot by writing the
+ * sequence into it; the consumer only reads slots whose published sequence
+ * matches the one it expects. A full buffer drops the record instead of
+ * blocking the agent.
+ */
+class LogRingBuffer {
+  static final int INLINE_ARGS = 6;
+
+  /** One log record. Slots are reused, so entries must not escape a drain. */
+  static final class Entry {
+    long timeMillis;
+    LogLevel level;
+    SubsystemLog subsystem;
+    String threadName;
+    String pattern;
+    final Object[] inlineArgs = new Object[INLINE_ARGS];
+    Object[] args;
+    int argCount;
+    Throwable thrown;
+    private String message;
+
+    /** Formats the message on first use, with String.format syntax. */
+    String getMessage() {
+      if (message == null) {
+        if (argCount == 0) {
+          message = pattern;
+        } else {
+          Object[] formatArgs = args.length == argCount
+            ? args
+            : Arrays.copyOf(args, argCount);
+          try {
+            message = String.format(pattern, formatArgs);
+          } catch (RuntimeException e) {
+            message = pattern + " " + Arrays.toString(formatArgs);
+          }
+        }
+      }
+      return message;
+    }
+
+    Object getArg(int index) {
+      return args[index];
+    }
+
+    void clear() {
+      subsystem = null;
+      pattern = null;
+      for (int i = 0; i < argCount; i++) args[i] = null;
+      args = inlineArgs;
+      argCount = 0;
+      thrown = null;
+      message = null;
+    }
+  }
+
+  @FunctionalInterface
+  interface EntryHandler {
+    void handle(Entry entry);
+  }
+
+  private final Entry[] entries;
+  private final AtomicLongArray published;
+  private final int mask;
+  private final AtomicLong claimed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile long consumed = 0;
+
+  LogRingBuffer(int requestedCapacity) {
+    int capacity =
+      Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+    this.entries = new Entry[capacity];
+    this.published = new AtomicLongArray(capacity);
+    this.mask = capacity - 1;
+    for (int i = 0; i < capacity; i++) {
+      entries[i] = new Entry();
+      entries[i].args = entries[i].inlineArgs;
+      published.set(i, -1);
+    }
+  }
+
+  int capacity() {
+    return entries.length;
+  }
+
+  /** Returns false and counts a drop when the buffer is full. */
+  boolean publish(
+    LogLevel level,
+    SubsystemLog subsystem,
+    String pattern,
+    Object[] args,
+    Throwable thrown
+  ) {
+    long sequence;
+    do {
+      sequence = claimed.get();
+      if (sequence - consumed >= entries.length) {
+        dropped.incrementAndGet();
+        return false;
+      }
+    } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+    // The slot is claimed, so it must be published whatever happens: the
+    // consumer waits for it and would stop draining at an empty slot
+    Entry entry = entries[(int) sequence & mask];
+    try {
+      entry.timeMillis = System.currentTimeMillis();
+      entry.level = level;
+      entry.subsystem = subsystem;
+      entry.threadName = Thread.currentThread().getName();
+      entry.pattern = pattern;
+      entry.thrown = thrown;
+      int count = args != null ? args.length : 0;
+      entry.args = count <= INLINE_ARGS ? entry.inlineArgs : new Object[count];
+      for (int i = 0; i < count; i++) {
+        entry.args[i] = capture(args[i]);
+        entry.argCount = i + 1;
+      }
+    } catch (RuntimeException e) {
+      // An argument's toString() failed; publish a placeholder instead
+      for (int i = 0; i < entry.argCount; i++) entry.args[i] = null;
+      entry.argCount = 0;
+      entry.pattern = pattern + " <arguments unavailable: " + e + ">";
+    } finally {
+      published.lazySet((int) sequence & mask, sequence);
+    }
+    return true;
+  }
+
+  // Arguments are formatted later on the logging thread. Mutable containers
+  // are rendered now so the record shows their state at the time of the call
+  private static Object capture(Object arg) {
+    if (
+      arg instanceof Collection ||
+      arg instanceof Map ||
+      arg instanceof Object[]
+    ) {
+      return arg instanceof Object[]
+        ? Arrays.toString((Object[]) arg)
+        : arg.toString();
+    }
+    return arg;
+  }
+
+  /** Hands up to maxEntries published entries to the handler, in order. */
+  int drain(EntryHandler handler, int maxEntries) {
+    long next = consumed;
+    int count = 0;
+    while (count < maxEntries) {
+      int index = (int) next & mask;
+      if (published.get(index) != next) break;
+      Entry entry = entries[index];
+      try {
+        handler.handle(entry);
+      } finally {
+        entry.clear();
+        next++;
+        count++;
+        consumed = next;
+      }
+    }
+    return count;
+  }
+
+  boolean isEmpty() {
+    return published.get((int) consumed & mask) != consumed;
+  }
+
+  long getAndResetDropped() {
+    return dropped.getAndSet(0);
+  }
+}
@@ -0,0 +1,12 @@
+package jason.eis.logging;
+
+import java.io.IOException;
+
+/** Destination for drained log records. Only called from the logging thread. */
+interface LogSink {
+  void write(LogRingBuffer.Entry entry) throws IOException;
+
+  void flush() throws IOException;
+
+  void close() throws IOException;
+}
@@ -0,0 +1,132 @@
+package jason.eis.logging;
+
+/**
+ * Logger for one subsystem (planning, collision, ...). Disabled levels cost
+ * a single volatile read; enabled records are queued with their arguments
+ * and formatted on the logging thread, so the calling agent never pays for
+ * String.format or I/O. Messages use String.format syntax.
+ *
+ * Arguments are read after the call returns: pass immutable values (Point,
+ * strings, numbers). Collections, maps and arrays are rendered at call time.
+ */
+public final class SubsystemLog {
+  private final String name;
+  private volatile LogLevel level;
+
+  SubsystemLog(String name, LogLevel level) {
+    this.name = name;
+    this.level = level;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public LogLevel getLevel() {
+    return level;
+  }
+
+  public void setLevel(LogLevel level) {
+    this.level = level != null ? level : LogLevel.INFO;
+  }
+
+  public boolean isEnabled(LogLevel messageLevel) {
+    return messageLevel.isEnabledAt(level);
+  }
+
+  public boolean isDebugEnabled() {
+    return LogLevel.DEBUG.isEnabledAt(level);
+  }
+
+  public boolean isTraceEnabled() {
+    return LogLevel.TRACE.isEnabledAt(level);
+  }
+
+  // Fixed-arity overloads avoid the varargs array when the level is disabled
+
+  public void trace(String pattern) {
+    if (isTraceEnabled()) log(LogLevel.TRACE, pattern, null, null);
+  }
+
+  public void trace(String pattern, Object arg) {
+    if (isTraceEnabled()) log(
+      LogLevel.TRACE,
+      pattern,
+      new Object[] { arg },
+      null
+    );
+  }
+
+  public void trace(String pattern, Object arg1, Object arg2) {
+    if (isTraceEnabled()) log(
+      LogLevel.TRACE,
+      pattern,
+      new Object[] { arg1, arg2 },
+      null
+    );
+  }
+
+  public void trace(String pattern, Object... args) {
+    if (isTraceEnabled()) log(LogLevel.TRACE, pattern, args, null);
+  }
+
+  public void debug(String pattern) {
+    if (isDebugEnabled()) log(LogLevel.DEBUG, pattern, null, null);
+  }
+
+  public void debug(String pattern, Object arg) {
+    if (isDebugEnabled()) log(
+      LogLevel.DEBUG,
+      pattern,
+      new Object[] { arg },
+      null
+    );
+  }
+
+  public void debug(String pattern, Object arg1, Object arg2) {
+    if (isDebugEnabled()) log(
+      LogLevel.DEBUG,
+      pattern,
+      new Object[] { arg1, arg2 },
+      null
+    );
+  }
+
+  public void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+    if (isDebugEnabled()) log(
+      LogLevel.DEBUG,
+      pattern,
+      new Object[] { arg1, arg2, arg3 },
+      null
+    );
+  }
+
+  public void debug(String pattern, Object... args) {
+    if (isDebugEnabled()) log(LogLevel.DEBUG, pattern, args, null);
+  }
+
+  public void info(String pattern) {
+    if (isEnabled(LogLevel.INFO)) log(LogLevel.INFO, pattern, null, null);
+  }
+
+  public void info(String pattern, Object... args) {
+    if (isEnabled(LogLevel.INFO)) log(LogLevel.INFO, pattern, args, null);
+  }
+
+  public void warn(String pattern, Object... args) {
+    if (isEnabled(LogLevel.WARN)) log(LogLevel.WARN, pattern, args, null);
+  }
+
+  public void error(String message, Throwable thrown) {
+    if (isEnabled(LogLevel.ERROR)) log(LogLevel.ERROR, message, null, thrown);
+  }
+
+  private void log(
+    LogLevel messageLevel,
+    String pattern,
+    Object[] args,
+    Throwable thrown
+  ) {
+    AsyncLog.enqueue(messageLevel, this, pattern, args, thrown);
+  }
+}
@@ -0,0 +1,25 @@
+package jason.eis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mi6.CollisionResolution")
+@Label("Collision Resolution")
+@Category({ "MI6", "Movement" })
+@Description("One AgentCollisionHandler.resolveCollision call")
+@StackTrace(false)
+public class CollisionResolutionEvent extends Event {
+  @Label("Agent")
+  public String agent;
+
+  @Label("Handler")
+  @Description("Handler that produced the resolution, or NONE")
+  public String handler;
+
+  @Label("Direction")
+  public String direction;
+}
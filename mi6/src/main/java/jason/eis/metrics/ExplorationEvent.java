@@ -0,0 +1,24 @@
+package jason.eis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mi6.Exploration")
+@Label("Exploration Step")
+@Category({ "MI6", "Movement" })
+@Description("One Exploration.getNextDirection call")
+@StackTrace(false)
+public class ExplorationEvent extends Event {
+  @Label("Agent")
+  public String agent;
+
+  @Label("Available Directions")
+  public int availableDirections;
+
+  @Label("Direction")
+  public String direction;
+}
@@ -0,0 +1,100 @@
+package jason.eis.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HdrHistogram-style log-linear buckets.
+ * Values are recorded in microseconds; every power-of-two range is split
+ * into 64 linear sub-buckets, which keeps the relative error under ~1.6%
+ * from 1 us up to about 38 hours with a fixed 2048-slot array.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS; // 64
+  private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1; // 128
+  private static final int BUCKETS = 2048;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong totalCount = new AtomicLong();
+  private final AtomicLong totalMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  public void recordNanos(long nanos) {
+    recordMicros(Math.max(0, nanos) / 1000);
+  }
+
+  public void recordMicros(long micros) {
+    if (micros < 0) micros = 0;
+    counts.incrementAndGet(indexFor(micros));
+    totalCount.incrementAndGet();
+    totalMicros.addAndGet(micros);
+    maxMicros.accumulateAndGet(micros, Math::max);
+  }
+
+  private static int indexFor(long value) {
+    if (value < LINEAR_LIMIT) return (int) value;
+    int msb = 63 - Long.numberOfLeadingZeros(value);
+    int shift = msb - SUB_BUCKET_BITS;
+    int index = (shift * SUB_BUCKET_HALF) + (int) (value >>> shift);
+    return Math.min(index, BUCKETS - 1);
+  }
+
+  // Highest value that maps to the bucket, as HdrHistogram reports it
+  private static long highestValueAt(int index) {
+    if (index < LINEAR_LIMIT) return index;
+    int shift = index / SUB_BUCKET_HALF - 1;
+    long subBucket = index - (long) shift * SUB_BUCKET_HALF;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /** Value at the given percentile (0-100) in microseconds. */
+  public long getValueAtPercentile(double percentile) {
+    long count = totalCount.get();
+    if (count == 0) return 0;
+
+    long threshold = Math.max(
+      1,
+      (long) Math.ceil((percentile / 100.0) * count)
+    );
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= threshold) {
+        return Math.min(highestValueAt(i), maxMicros.get());
+      }
+    }
+    return maxMicros.get();
+  }
+
+  public long getCount() {
+    return totalCount.get();
+  }
+
+  public long getMaxMicros() {
+    return maxMicros.get();
+  }
+
+  public double getMeanMicros() {
+    long count = totalCount.get();
+    return count == 0 ? 0 : (double) totalMicros.get() / count;
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+    totalCount.set(0);
+    totalMicros.set(0);
+    maxMicros.set(0);
+  }
+
+  /** One-line summary: count, p50, p99 and max in milliseconds. */
+  public String summary() {
+    return String.format(
+      "n=%d p50=%.2fms p99=%.2fms max=%.2fms",
+      getCount(),
+      getValueAtPercentile(50) / 1000.0,
+      getValueAtPercentile(99) / 1000.0,
+      getMaxMicros() / 1000.0
+    );
+  }
+}
@@ -0,0 +1,27 @@
+package jason.eis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mi6.Move")
+@Label("Move")
+@Category({ "MI6", "Movement" })
+@Description("One MI6Model.moveTowards call and its outcome")
+@StackTrace(false)
+public class MoveEvent extends Event {
+  @Label("Agent")
+  public String agent;
+
+  @Label("Direction")
+  public String direction;
+
+  @Label("Success")
+  public boolean success;
+
+  @Label("Failure Type")
+  public String failureType;
+}
@@ -0,0 +1,28 @@
+package jason.eis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mi6.PathSearch")
+@Label("Path Search")
+@Category({ "MI6", "Planning" })
+@Description("One Search.findPath or findPathAnytime call")
+@StackTrace(false)
+public class PathSearchEvent extends Event {
+  @Label("Reason")
+  public String reason;
+
+  @Label("Expansions")
+  @Description("Nodes expanded across all passes of the search")
+  public int expansions;
+
+  @Label("Path Length")
+  public int pathLength;
+
+  @Label("Success")
+  public boolean success;
+}
@@ -0,0 +1,26 @@
+package jason.eis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mi6.PerceptIngestion")
+@Label("Percept Ingestion")
+@Category({ "MI6", "Map" })
+@Description("Percepts written into an agent's LocalMap")
+@StackTrace(false)
+public class PerceptIngestionEvent extends Event {
+  @Label("Agent")
+  public String agent;
+
+  @Label("Source")
+  @Description("Percept kind or internal action that wrote to the map")
+  public String source;
+
+  @Label("Writes")
+  @Description("Map writes applied; one write may touch several cells")
+  public long writes;
+}
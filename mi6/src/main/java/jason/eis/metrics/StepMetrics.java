@@ -0,0 +1,138 @@
+package jason.eis.metrics;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Per-agent, per-stage latency recording for the step pipeline, from
+ * receiving the step percepts to sending the action. Each stage has a
+ * histogram per agent; the stages of the step in progress are also summed
+ * so the breakdown of the last completed step can be queried at any time.
+ */
+public class StepMetrics {
+  private static final Logger logger = Logger.getLogger(
+    StepMetrics.class.getName()
+  );
+
+  public enum Stage {
+    PERCEPT_CONVERSION, // EISAdapter.getPercepts
+    INTERNAL_ACTION, // helpermodels.* execute
+    PLANNING, // RequestGuidance path planning
+    COLLISION_RESOLUTION, // AgentCollisionHandler.resolveCollision
+    PERFORM_ACTION, // ei.performAction
+    STEP_TOTAL, // Step start until the action was sent
+  }
+
+  private static class AgentMetrics {
+    final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    final long[] currentStep = new long[Stage.values().length];
+    volatile long[] lastStep = new long[Stage.values().length];
+    final AtomicLong missedDeadlines = new AtomicLong();
+
+    AgentMetrics() {
+      for (Stage stage : Stage.values()) {
+        histograms.put(stage, new LatencyHistogram());
+      }
+    }
+  }
+
+  private final Map<String, AgentMetrics> agents = new ConcurrentHashMap<>();
+  private final AtomicBoolean summaryPending = new AtomicBoolean(false);
+
+  private AgentMetrics metricsFor(String agentName) {
+    return agents.computeIfAbsent(agentName, k -> new AgentMetrics());
+  }
+
+  public void record(String agentName, Stage stage, long nanos) {
+    if (agentName == null) return;
+    AgentMetrics metrics = metricsFor(agentName);
+    metrics.histograms.get(stage).recordNanos(nanos);
+    synchronized (metrics) {
+      metrics.currentStep[stage.ordinal()] += nanos;
+    }
+    summaryPending.set(true);
+  }
+
+  /**
+   * Closes the agent's current step once its action has been sent.
+   * stepStartNanos is the System.nanoTime() at which the step began (or a
+   * negative value if unknown) and budgetNanos the time it was allowed.
+   */
+  public void completeStep(
+    String agentName,
+    long stepStartNanos,
+    long budgetNanos
+  ) {
+    AgentMetrics metrics = metricsFor(agentName);
+    if (stepStartNanos >= 0) {
+      long total = System.nanoTime() - stepStartNanos;
+      record(agentName, Stage.STEP_TOTAL, total);
+      if (budgetNanos > 0 && total > budgetNanos) {
+        metrics.missedDeadlines.incrementAndGet();
+      }
+    }
+    synchronized (metrics) {
+      metrics.lastStep = metrics.currentStep.clone();
+      Arrays.fill(metrics.currentStep, 0);
+    }
+  }
+
+  public LatencyHistogram getHistogram(String agentName, Stage stage) {
+    return metricsFor(agentName).histograms.get(stage);
+  }
+
+  /** Stage timings (nanoseconds) of the agent's last completed step. */
+  public Map<Stage, Long> getLastStepBreakdown(String agentName) {
+    long[] last = metricsFor(agentName).lastStep;
+    Map<Stage, Long> breakdown = new EnumMap<>(Stage.class);
+    for (Stage stage : Stage.values()) {
+      breakdown.put(stage, last[stage.ordinal()]);
+    }
+    return breakdown;
+  }
+
+  public long getMissedDeadlines(String agentName) {
+    return metricsFor(agentName).missedDeadlines.get();
+  }
+
+  public String getSummary() {
+    StringBuilder sb = new StringBuilder("Step latency summary:");
+    for (Map.Entry<String, AgentMetrics> entry : new TreeMap<>(agents)
+      .entrySet()) {
+      AgentMetrics metrics = entry.getValue();
+      sb
+        .append("\n  ")
+        .append(entry.getKey())
+        .append(" (missed deadlines: ")
+        .append(metrics.missedDeadlines.get())
+        .append(')');
+      for (Stage stage : Stage.values()) {
+        LatencyHistogram histogram = metrics.histograms.get(stage);
+        if (histogram.getCount() == 0) continue;
+        sb
+          .append("\n    ")
+          .append(String.format("%-21s", stage))
+          .append(histogram.summary());
+      }
+    }
+    return sb.toString();
+  }
+
+  /** Logs the summary if anything was recorded since the last one. */
+  public void logSummaryIfPending() {
+    if (summaryPending.getAndSet(false)) {
+      logger.info(getSummary());
+    }
+  }
+
+  public void reset() {
+    agents.clear();
+    summaryPending.set(false);
+  }
+}
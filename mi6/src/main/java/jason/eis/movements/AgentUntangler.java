@@ -100,11 +100,12 @@ public class AgentUntangler {
     Point currentPos,
     LocalMap map
   ) {
-    Map<Point, ObstacleInfo> obstacles = map.getDynamicObstacles();
-
     // Check for nearby agents
-    for (Map.Entry<Point, ObstacleInfo> entry : obstacles.entrySet()) {
-      Point otherPos = entry.getKey();
+    for (ObstacleInfo obstacle : map.getDynamicObstaclesInRange(
+      currentPos,
+      CRITICAL_DISTANCE
+    )) {
+      Point otherPos = obstacle.getPosition();
       if (otherPos.equals(currentPos)) continue;
 
       int distance = getManhattanDistance(currentPos, otherPos);
@@ -116,10 +117,12 @@ public class AgentUntangler {
   }
 
   private boolean isEmergencySituation(Point currentPos, LocalMap map) {
-    Map<Point, ObstacleInfo> obstacles = map.getDynamicObstacles();
-
     // Check for immediate collisions or blocked paths
-    for (Point otherPos : obstacles.keySet()) {
+    for (ObstacleInfo obstacle : map.getDynamicObstaclesInRange(
+      currentPos,
+      EMERGENCY_DISTANCE
+    )) {
+      Point otherPos = obstacle.getPosition();
       if (otherPos.equals(currentPos)) continue;
 
       if (getManhattanDistance(currentPos, otherPos) <= EMERGENCY_DISTANCE) {
@@ -148,10 +151,10 @@ public class AgentUntangler {
     if (availableDirections.isEmpty()) return null;
 
     // Score each direction based on multiple factors
-    Map<String, Double> directionScores = new HashMap<>();
+    double[] directionScores = Direction.newScores();
 
     for (String direction : availableDirections) {
-      Point nextPos = calculateNextPosition(state.position, direction);
+      Point nextPos = Direction.next(state.position, direction);
       double score = 0.0;
 
       // Avoid recent directions that led to oscillation
@@ -168,17 +171,21 @@ public class AgentUntangler {
       // Penalize directions that lead to corners or walls
       score -= getTrappedScore(nextPos, map);
 
-      directionScores.put(direction, score);
+      Direction.setScore(directionScores, direction, score);
     }
 
     // Select best direction
-    return selectBestDirection(directionScores);
+    return Direction.bestSymbol(directionScores);
   }
 
   private double getAgentDistanceScore(Point pos, LocalMap map) {
+    // Only agents within SAFE_DISTANCE can lower the score below 1.0
     double minDistance = Double.MAX_VALUE;
-    for (Point agentPos : map.getDynamicObstaclePositions()) {
-      double distance = calculateDistance(pos, agentPos);
+    for (ObstacleInfo obstacle : map.getDynamicObstaclesInRange(
+      pos,
+      SAFE_DISTANCE
+    )) {
+      double distance = calculateDistance(pos, obstacle.getPosition());
       minDistance = Math.min(minDistance, distance);
     }
     return Math.min(1.0, minDistance / SAFE_DISTANCE);
@@ -199,8 +206,8 @@ public class AgentUntangler {
 
   private double getTrappedScore(Point pos, LocalMap map) {
     int blockedDirections = 0;
-    for (String dir : Arrays.asList("n", "s", "e", "w")) {
-      Point checkPos = calculateNextPosition(pos, dir);
+    for (Direction dir : Direction.all()) {
+      Point checkPos = dir.next(pos);
       if (map.hasObstacle(checkPos)) {
         blockedDirections++;
       }
@@ -208,28 +215,17 @@ public class AgentUntangler {
     return blockedDirections / 4.0;
   }
 
-  private String selectBestDirection(Map<String, Double> scores) {
-    if (scores.isEmpty()) return null;
-    return scores
-      .entrySet()
-      .stream()
-      .max(Map.Entry.comparingByValue())
-      .map(Map.Entry::getKey)
-      .orElse(null);
-  }
-
   private String calculateUntangleMove(UntangleState state, LocalMap map) {
-    Map<String, Double> directionScores = new HashMap<>();
+    double[] directionScores = Direction.newScores();
 
-    for (String dir : Arrays.asList("n", "s", "e", "w")) {
-      Point nextPos = calculateNextPosition(state.position, dir);
+    for (Direction dir : Direction.all()) {
+      Point nextPos = dir.next(state.position);
       if (!isValidMove(nextPos, map)) continue;
 
-      double score = scoreUntangleMove(nextPos, state, map);
-      directionScores.put(dir, score);
+      directionScores[dir.ordinal()] = scoreUntangleMove(nextPos, state, map);
     }
 
-    return getBestDirection(directionScores);
+    return Direction.bestSymbol(directionScores);
   }
 
   private double scoreUntangleMove(
@@ -264,15 +260,6 @@ public class AgentUntangler {
     return score;
   }
 
-  private String getBestDirection(Map<String, Double> directionScores) {
-    return directionScores
-      .entrySet()
-      .stream()
-      .max(Map.Entry.comparingByValue())
-      .map(Map.Entry::getKey)
-      .orElse(null);
-  }
-
   private boolean isValidMove(Point pos, LocalMap map) {
     return !map.isForbidden(pos) && !map.hasObstacle(pos);
   }
@@ -281,27 +268,11 @@ public class AgentUntangler {
     return Math.abs(p1.x - p2.x) + Math.abs(p1.y - p2.y);
   }
 
-  private Point calculateNextPosition(Point current, String direction) {
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
-  }
-
   private List<String> getAvailableDirections(Point pos, LocalMap map) {
     List<String> availableDirections = new ArrayList<>();
-    for (String dir : Arrays.asList("n", "s", "e", "w")) {
-      Point nextPos = calculateNextPosition(pos, dir);
-      if (isValidMove(nextPos, map)) {
-        availableDirections.add(dir);
+    for (Direction dir : Direction.all()) {
+      if (isValidMove(dir.next(pos), map)) {
+        availableDirections.add(dir.symbol);
       }
     }
     return availableDirections;
@@ -4,6 +4,8 @@ import jason.eis.LocalMap;
 import jason.eis.LocalMap.MovementRecord;
 import jason.eis.LocalMap.ObstacleInfo;
 import jason.eis.Point;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -12,7 +14,7 @@ public class BoundaryManager {
   private static final Logger logger = Logger.getLogger(
     BoundaryManager.class.getName()
   );
-  private static final boolean DEBUG = true;
+  private static final SubsystemLog log = AsyncLog.forSubsystem("boundary");
   private static final int BOUNDARY_SAFETY_MARGIN = 2;
   private static final double BOUNDARY_SCORE_THRESHOLD = 0.6;
 
@@ -34,30 +36,19 @@ public class BoundaryManager {
       Point previousPos = map.getLastPosition();
       String previousMove = map.getLastDirection();
 
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "[Agent %s] === Starting Direction Filtering ===",
-            agentId
-          )
-        );
-        logger.info(
-          String.format(
-            "[Agent %s] Input - Current: %s, Previous: %s, PrevMove: %s",
-            agentId,
-            currentPos,
-            previousPos,
-            previousMove
-          )
-        );
-        logger.info(
-          String.format(
-            "[Agent %s] Available directions: %s",
-            agentId,
-            availableDirections
-          )
-        );
-      }
+      log.debug("[Agent %s] === Starting Direction Filtering ===", agentId);
+      log.debug(
+        "[Agent %s] Input - Current: %s, Previous: %s, PrevMove: %s",
+        agentId,
+        currentPos,
+        previousPos,
+        previousMove
+      );
+      log.debug(
+        "[Agent %s] Available directions: %s",
+        agentId,
+        availableDirections
+      );
 
       // Validate inputs
       if (availableDirections == null) {
@@ -77,18 +68,14 @@ public class BoundaryManager {
         return availableDirections;
       }
 
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "[Agent %s] Filtering directions - Current: %s, Previous: %s, PrevMove: %s, Available: %s",
-            agentId,
-            currentPos,
-            previousPos,
-            previousMove,
-            availableDirections
-          )
-        );
-      }
+      log.debug(
+        "[Agent %s] Filtering directions - Current: %s, Previous: %s, PrevMove: %s, Available: %s",
+        agentId,
+        currentPos,
+        previousPos,
+        previousMove,
+        availableDirections
+      );
 
       // Check for nearby agents and boundaries
       Map<Point, ObstacleInfo> dynamicObstacles = map.getDynamicObstacles();
@@ -108,18 +95,12 @@ public class BoundaryManager {
         .collect(Collectors.toList());
 
       if (!filteredDirections.isEmpty()) {
-        if (DEBUG) {
-          logger.info(
-            String.format("[Agent %s] === Filtering Result ===", agentId)
-          );
-          logger.info(
-            String.format(
-              "[Agent %s] Filtered directions: %s",
-              agentId,
-              filteredDirections
-            )
-          );
-        }
+        log.debug("[Agent %s] === Filtering Result ===", agentId);
+        log.debug(
+          "[Agent %s] Filtered directions: %s",
+          agentId,
+          filteredDirections
+        );
         return filteredDirections;
       }
 
@@ -155,34 +136,38 @@ public class BoundaryManager {
     Map<Point, ObstacleInfo> dynamicObstacles = map.getDynamicObstacles();
     Map<String, Point> boundaries = map.getConfirmedBoundariesPositions();
 
-    Map<String, Double> directionScores = new HashMap<>();
+    double[] directionScores = Direction.newScores();
 
     for (String direction : availableDirections) {
       Point nextPos = calculateNextPosition(currentPos, direction);
       double score = calculateDirectionScore(map, nextPos, direction);
-      directionScores.put(direction, score);
+      Direction.setScore(directionScores, direction, score);
     }
 
-    // Filter directions with acceptable scores
-    List<String> validDirections = directionScores
-      .entrySet()
-      .stream()
-      .filter(e -> e.getValue() >= BOUNDARY_SCORE_THRESHOLD)
-      .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-      .map(Map.Entry::getKey)
-      .collect(Collectors.toList());
+    // Filter directions with acceptable scores, best first
+    List<String> validDirections = new ArrayList<>(Direction.COUNT);
+    for (Direction direction : Direction.all()) {
+      if (directionScores[direction.ordinal()] >= BOUNDARY_SCORE_THRESHOLD) {
+        validDirections.add(direction.symbol);
+      }
+    }
+    validDirections.sort(
+      (a, b) ->
+        Double.compare(
+          Direction.scoreOf(directionScores, b),
+          Direction.scoreOf(directionScores, a)
+        )
+    );
 
     if (!validDirections.isEmpty()) {
       return validDirections;
     }
 
     // Fallback to best available direction if none meet threshold
-    return directionScores
-      .entrySet()
-      .stream()
-      .max(Map.Entry.comparingByValue())
-      .map(e -> Collections.singletonList(e.getKey()))
-      .orElse(new ArrayList<>(availableDirections));
+    String best = Direction.bestSymbol(directionScores);
+    return best != null
+      ? Collections.singletonList(best)
+      : new ArrayList<>(availableDirections);
   }
 
   private double calculateDirectionScore(
@@ -307,18 +292,7 @@ public class BoundaryManager {
     if (closestBoundary == null) return null;
 
     // Return opposite direction of closest boundary
-    switch (closestBoundary) {
-      case "n":
-        return "s";
-      case "s":
-        return "n";
-      case "e":
-        return "w";
-      case "w":
-        return "e";
-      default:
-        return null;
-    }
+    return Direction.opposite(closestBoundary);
   }
 
   /**
@@ -335,67 +309,43 @@ public class BoundaryManager {
       Map<String, Point> boundaries = map.getConfirmedBoundariesPositions();
 
       if (boundaries.isEmpty()) {
-        if (DEBUG) logger.info(
-          String.format("[Agent %s] No confirmed boundaries yet", agentId)
-        );
+        log.debug("[Agent %s] No confirmed boundaries yet", agentId);
         return false;
       }
 
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "[Agent %s] Checking boundary collision - Current: %s, Direction: %s, Next: %s",
-            agentId,
-            currentPos,
-            direction,
-            nextPos
-          )
-        );
-        logger.info(
-          String.format(
-            "[Agent %s] Known boundaries: %s",
-            agentId,
-            boundaries
-              .entrySet()
-              .stream()
-              .map(e -> e.getKey() + "=" + e.getValue())
-              .collect(Collectors.joining(", "))
-          )
-        );
-      }
+      log.debug(
+        "[Agent %s] Checking boundary collision - Current: %s, Direction: %s, Next: %s",
+        agentId,
+        currentPos,
+        direction,
+        nextPos
+      );
+      log.debug(
+        "[Agent %s] Known boundaries: %s",
+        agentId,
+        boundaries
+      );
 
       for (Map.Entry<String, Point> entry : boundaries.entrySet()) {
         Point boundaryPos = entry.getValue();
         String boundaryDir = entry.getKey();
 
-        boolean hits = false;
-        switch (boundaryDir) {
-          case "n":
-            hits = nextPos.y <= boundaryPos.y;
-            break;
-          case "s":
-            hits = nextPos.y >= boundaryPos.y;
-            break;
-          case "e":
-            hits = nextPos.x >= boundaryPos.x;
-            break;
-          case "w":
-            hits = nextPos.x <= boundaryPos.x;
-            break;
-        }
+        // At or beyond the boundary along the boundary's own direction
+        Direction d = Direction.fromSymbol(boundaryDir);
+        boolean hits =
+          d != null &&
+          d.dx * (nextPos.x - boundaryPos.x) +
+          d.dy * (nextPos.y - boundaryPos.y) >=
+          0;
 
-        if (DEBUG) {
-          logger.info(
-            String.format(
-              "[Agent %s] Boundary check - Direction: %s, Boundary: %s at %s, Would Hit: %b",
-              agentId,
-              direction,
-              boundaryDir,
-              boundaryPos,
-              hits
-            )
-          );
-        }
+        log.debug(
+          "[Agent %s] Boundary check - Direction: %s, Boundary: %s at %s, Would Hit: %b",
+          agentId,
+          direction,
+          boundaryDir,
+          boundaryPos,
+          hits
+        );
 
         if (hits) {
           logger.warning(
@@ -434,18 +384,11 @@ public class BoundaryManager {
       );
     }
 
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        throw new IllegalArgumentException("Invalid direction: " + direction);
+    Direction d = Direction.fromSymbol(direction);
+    if (d == null) {
+      throw new IllegalArgumentException("Invalid direction: " + direction);
     }
+    return d.next(current);
   }
 
   private boolean isDirectionSafe(
@@ -465,18 +408,14 @@ public class BoundaryManager {
         direction
       );
 
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "[Agent %s] Checking direction %s to %s - Forbidden: %b, Hits Boundary: %b",
-            agentId,
-            direction,
-            nextPos,
-            forbidden,
-            hitsBoundary
-          )
-        );
-      }
+      log.debug(
+        "[Agent %s] Checking direction %s to %s - Forbidden: %b, Hits Boundary: %b",
+        agentId,
+        direction,
+        nextPos,
+        forbidden,
+        hitsBoundary
+      );
 
       return !forbidden && !hitsBoundary;
     } catch (Exception e) {
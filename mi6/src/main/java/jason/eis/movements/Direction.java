@@ -0,0 +1,173 @@
+package jason.eis.movements;
+
+import jason.eis.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The four MAPC move directions with offsets, opposites, rotations and
+ * perpendiculars precomputed. Constants are in clockwise order, so tables
+ * are indexed by ordinal().
+ *
+ * Actions, beliefs and LocalMap still exchange directions as "n", "s", "e"
+ * and "w"; fromSymbol and the static String helpers convert at those edges
+ * with a char switch instead of a map lookup or toLowerCase. Per-direction
+ * scores live in a double[COUNT] from newScores() instead of a
+ * Map<String, Double>.
+ */
+public enum Direction {
+  NORTH("n", 0, -1),
+  EAST("e", 1, 0),
+  SOUTH("s", 0, 1),
+  WEST("w", -1, 0);
+
+  public static final int COUNT = 4;
+
+  private static final Direction[] VALUES = values();
+  private static final List<Direction> ALL = List.of(VALUES);
+
+  public final String symbol;
+  public final int dx;
+  public final int dy;
+
+  Direction(String symbol, int dx, int dy) {
+    this.symbol = symbol;
+    this.dx = dx;
+    this.dy = dy;
+  }
+
+  /** All directions in clockwise order from north, without copying. */
+  public static List<Direction> all() {
+    return ALL;
+  }
+
+  public static Direction ofOrdinal(int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  /** Direction for "n"/"e"/"s"/"w" in either case, null for anything else. */
+  public static Direction fromSymbol(String symbol) {
+    if (symbol == null || symbol.length() != 1) return null;
+    switch (symbol.charAt(0)) {
+      case 'n':
+      case 'N':
+        return NORTH;
+      case 'e':
+      case 'E':
+        return EAST;
+      case 's':
+      case 'S':
+        return SOUTH;
+      case 'w':
+      case 'W':
+        return WEST;
+      default:
+        return null;
+    }
+  }
+
+  public Direction opposite() {
+    return VALUES[(ordinal() + 2) & 3];
+  }
+
+  public Direction rotateClockwise() {
+    return VALUES[(ordinal() + 1) & 3];
+  }
+
+  public Direction rotateCounterClockwise() {
+    return VALUES[(ordinal() + 3) & 3];
+  }
+
+  /** North/south against east/west: ordinals differ in the lowest bit. */
+  public boolean isPerpendicularTo(Direction other) {
+    return other != null && ((ordinal() ^ other.ordinal()) & 1) == 1;
+  }
+
+  public boolean isVertical() {
+    return dx == 0;
+  }
+
+  public Point next(Point current) {
+    return new Point(current.x + dx, current.y + dy);
+  }
+
+  // String helpers for code that keeps directions as symbols
+
+  /** Opposite symbol, or null when the symbol is not a direction. */
+  public static String opposite(String symbol) {
+    Direction direction = fromSymbol(symbol);
+    return direction != null ? direction.opposite().symbol : null;
+  }
+
+  /** Neighbour in the given direction, current itself for an unknown one. */
+  public static Point next(Point current, String symbol) {
+    Direction direction = fromSymbol(symbol);
+    return direction != null ? direction.next(current) : current;
+  }
+
+  /**
+   * The two symbols perpendicular to the given one ("e","w" or "n","s"), in
+   * a new list the caller may modify. Empty for an unknown symbol.
+   */
+  public static List<String> perpendicular(String symbol) {
+    List<String> result = new ArrayList<>(2);
+    Direction direction = fromSymbol(symbol);
+    if (direction != null) {
+      Direction first = direction.isVertical() ? EAST : NORTH;
+      result.add(first.symbol);
+      result.add(first.opposite().symbol);
+    }
+    return result;
+  }
+
+  public static boolean arePerpendicular(String first, String second) {
+    Direction direction = fromSymbol(first);
+    return direction != null && direction.isPerpendicularTo(fromSymbol(second));
+  }
+
+  // Scores indexed by ordinal; NaN marks a direction that was not scored
+
+  public static double[] newScores() {
+    double[] scores = new double[COUNT];
+    Arrays.fill(scores, Double.NaN);
+    return scores;
+  }
+
+  public static void setScore(double[] scores, String symbol, double score) {
+    Direction direction = fromSymbol(symbol);
+    if (direction != null) scores[direction.ordinal()] = score;
+  }
+
+  /** Score recorded for the symbol, NaN when unscored or unknown. */
+  public static double scoreOf(double[] scores, String symbol) {
+    Direction direction = fromSymbol(symbol);
+    return direction != null ? scores[direction.ordinal()] : Double.NaN;
+  }
+
+  /** Highest scored direction, first in clockwise order on ties. */
+  public static Direction best(double[] scores) {
+    Direction best = null;
+    double bestScore = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < COUNT; i++) {
+      double score = scores[i];
+      if (Double.isNaN(score)) continue;
+      if (best == null || score > bestScore) {
+        best = VALUES[i];
+        bestScore = score;
+      }
+    }
+    return best;
+  }
+
+  /** Symbol of best(scores), or null when nothing was scored. */
+  public static String bestSymbol(double[] scores) {
+    Direction best = best(scores);
+    return best != null ? best.symbol : null;
+  }
+
+  @Override
+  public String toString() {
+    return symbol;
+  }
+}
@@ -2,6 +2,9 @@ package jason.eis.movements;
 
 import jason.eis.LocalMap;
 import jason.eis.Point;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
+import jason.eis.metrics.ExplorationEvent;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -11,7 +14,7 @@ public class Exploration {
   private static final Logger logger = Logger.getLogger(
     Exploration.class.getName()
   );
-  private static final boolean DEBUG = true; // Toggle debug logging
+  private static final SubsystemLog log = AsyncLog.forSubsystem("exploration");
   private static final int ZONE_SIZE = 5;
   private static final double UNEXPLORED_BONUS = 2.0;
   private static final double REVISIT_PENALTY = 0.3;
@@ -28,14 +31,12 @@ public class Exploration {
 
   // Constants for scoring weights
   private static final double EXPLORATION_WEIGHT = 0.4;
-  private static final double BOUNDARY_WEIGHT = 0.2;
 
   // Track active exploration paths
   private final Map<String, PathResult> activePaths = new ConcurrentHashMap<>();
   private final ExplorationSearch explorationSearch = new ExplorationSearch();
 
   // Add at the top of the class after other constants
-  private final Map<Point, Double> heatMap = new ConcurrentHashMap<>();
   private static final double STUCK_PENALTY = 2.0;
   private static final double OSCILLATION_PENALTY = 1.5;
 
@@ -86,14 +87,33 @@ public class Exploration {
     }
   }
 
-  // Add debug logging helper
-  private void debug(String message, Object... args) {
-    if (DEBUG) {
-      logger.fine(String.format(message, args));
+
+  public String getNextDirection(
+    String agName,
+    Point currentPos,
+    List<String> availableDirections,
+    LocalMap map
+  ) {
+    ExplorationEvent event = new ExplorationEvent();
+    event.begin();
+    String direction = null;
+    try {
+      direction =
+        chooseNextDirection(agName, currentPos, availableDirections, map);
+      return direction;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.agent = agName;
+        event.availableDirections =
+          availableDirections != null ? availableDirections.size() : 0;
+        event.direction = direction;
+        event.commit();
+      }
     }
   }
 
-  public String getNextDirection(
+  private String chooseNextDirection(
     String agName,
     Point currentPos,
     List<String> availableDirections,
@@ -116,7 +136,7 @@ public class Exploration {
         return null;
       }
 
-      debug(
+      log.debug(
         "[%s] Getting next direction at pos %s with available directions: %s",
         agName,
         currentPos,
@@ -124,24 +144,18 @@ public class Exploration {
       );
 
       PathResult currentPath = getActivePath(agName);
-      debug(
+      log.debug(
         "[%s] Current path: %s",
         agName,
-        currentPath != null
-          ? String.format(
-            "directions=%s, target=%s",
-            currentPath.directions,
-            currentPath.targetPosition
-          )
-          : "null"
+        currentPath != null ? String.format( "directions=%s, target=%s", currentPath.directions, currentPath.targetPosition ) : "null"
       );
 
       if (currentPath != null && !currentPath.directions.isEmpty()) {
         String nextInLine = currentPath.directions.get(0);
-        debug("[%s] Next direction in line: %s", agName, nextInLine);
+        log.debug("[%s] Next direction in line: %s", agName, nextInLine);
 
         if (!availableDirections.contains(nextInLine)) {
-          debug(
+          log.debug(
             "[%s] Next direction %s not in available directions: %s",
             agName,
             nextInLine,
@@ -151,16 +165,20 @@ public class Exploration {
         }
 
         if (!isPathStillValid(currentPath, currentPos, map)) {
-          debug("[%s] Current path is no longer valid", agName);
+          log.debug("[%s] Current path is no longer valid", agName);
           return computeNewPath(agName, currentPos, availableDirections, map);
         }
 
         currentPath.directions.remove(0);
-        debug("[%s] Using next direction from path: %s", agName, nextInLine);
+        log.debug(
+          "[%s] Using next direction from path: %s",
+          agName,
+          nextInLine
+        );
         return nextInLine;
       }
 
-      debug("[%s] No current path, computing new path", agName);
+      log.debug("[%s] No current path, computing new path", agName);
       return computeNewPath(agName, currentPos, availableDirections, map);
     } catch (Exception e) {
       logger.log(
@@ -175,7 +193,7 @@ public class Exploration {
       // In case of error, try to return a safe direction
       if (availableDirections != null && !availableDirections.isEmpty()) {
         String safeDirection = selectRandomDirection(availableDirections);
-        debug(
+        log.debug(
           "[%s] Returning safe direction after error: %s",
           agName,
           safeDirection
@@ -193,7 +211,7 @@ public class Exploration {
     LocalMap map
   ) {
     try {
-      debug("[%s] Computing new path from position %s", agName, currentPos);
+      log.debug("[%s] Computing new path from position %s", agName, currentPos);
 
       if (availableDirections == null || availableDirections.isEmpty()) {
         logger.warning(String.format("[%s] No available directions", agName));
@@ -209,7 +227,7 @@ public class Exploration {
 
       // If primary method fails, use fallback heat-based selection
       if (bestDirection == null) {
-        debug(
+        log.debug(
           "[%s] Primary path computation failed, using heat-based fallback",
           agName
         );
@@ -233,12 +251,12 @@ public class Exploration {
             nextPosition
           )
         );
-        debug("[%s] Selected direction: %s", agName, bestDirection);
+        log.debug("[%s] Selected direction: %s", agName, bestDirection);
         return bestDirection;
       }
 
       // Final fallback: random direction with heat consideration
-      debug("[%s] Using random direction fallback", agName);
+      log.debug("[%s] Using random direction fallback", agName);
       return selectRandomDirection(availableDirections);
     } catch (Exception e) {
       logger.log(
@@ -259,14 +277,17 @@ public class Exploration {
     List<String> availableDirections,
     LocalMap map
   ) {
+    double[] scores = ExplorationScorer.score(
+      currentPos,
+      map,
+      EXPLORATION_WEIGHT
+    );
     String bestDirection = null;
     double bestScore = Double.NEGATIVE_INFINITY;
 
+    // Keep the caller's order so ties resolve as before; NaN marks blocked
     for (String direction : availableDirections) {
-      Point nextPos = calculateNextPosition(currentPos, direction);
-      if (map.isOutOfBounds(nextPos) || map.hasObstacle(nextPos)) continue;
-
-      double score = evaluateDirection(nextPos, map);
+      double score = Direction.scoreOf(scores, direction);
       if (score > bestScore) {
         bestScore = score;
         bestDirection = direction;
@@ -284,14 +305,14 @@ public class Exploration {
   ) {
     String bestDirection = null;
     double lowestHeat = Double.POSITIVE_INFINITY;
-    Map<Point, Double> visitHeatmap = map.getVisitedHeatmap();
+    double[] visitHeat = ExplorationScorer.visitHeat(currentPos, map);
 
     for (String direction : availableDirections) {
+      double heat = Direction.scoreOf(visitHeat, direction);
+      if (Double.isNaN(heat)) continue;
       Point nextPos = calculateNextPosition(currentPos, direction);
-      if (map.isOutOfBounds(nextPos) || map.hasObstacle(nextPos)) continue;
 
-      // Get heat value and add small random factor to break ties
-      double heat = visitHeatmap.getOrDefault(nextPos, 0.0);
+      // Add small random factor to break ties
       heat += Math.random() * 0.1; // Small random factor
 
       // Consider unexplored areas highly favorable
@@ -319,7 +340,7 @@ public class Exploration {
       List<String> shuffled = new ArrayList<>(availableDirections);
       Collections.shuffle(shuffled);
       String selected = shuffled.get(0);
-      debug(
+      log.debug(
         "Randomly selected direction: %s from available: %s",
         selected,
         String.join(",", availableDirections)
@@ -331,23 +352,6 @@ public class Exploration {
     }
   }
 
-  private double evaluateDirection(Point nextPos, LocalMap map) {
-    double score = 0.0;
-
-    // Exploration potential (higher is better)
-    score += calculateUnexploredScore(nextPos, map) * EXPLORATION_WEIGHT;
-
-    // Use LocalMap's visit tracking instead of heat map
-    Map<Point, Double> visitHeatmap = map.getVisitedHeatmap();
-    double visitScore = 1.0 - visitHeatmap.getOrDefault(nextPos, 0.0);
-    score += visitScore * EXPLORATION_WEIGHT;
-
-    // Boundary distance (higher is better)
-    score += calculateBoundaryDistance(nextPos, map) * BOUNDARY_WEIGHT;
-
-    return score;
-  }
-
   public void triggerPathRecompute(
     String agName,
     Point startPoint,
@@ -356,7 +360,7 @@ public class Exploration {
     String triggerDirection
   ) {
     try {
-      debug(
+      log.debug(
         "[%s] Triggering path recompute. Reason: %s, Direction: %s",
         agName,
         reason,
@@ -372,10 +376,10 @@ public class Exploration {
       );
       if (newPath.success) {
         activePaths.put(agName, newPath);
-        debug("[%s] New path computed successfully", agName);
+        log.debug("[%s] New path computed successfully", agName);
       } else {
         activePaths.remove(agName);
-        debug("[%s] Failed to compute new path", agName);
+        log.debug("[%s] Failed to compute new path", agName);
       }
     } catch (Exception e) {
       logger.log(
@@ -407,44 +411,7 @@ public class Exploration {
       throw new IllegalArgumentException("Invalid direction: " + direction);
     }
 
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        throw new IllegalStateException("Unexpected direction: " + direction);
-    }
-  }
-
-  private double calculateUnexploredScore(Point pos, LocalMap map) {
-    int unexploredCount = 0;
-    int totalNeighbors = 0;
-
-    // Check surrounding cells
-    for (int dx = -1; dx <= 1; dx++) {
-      for (int dy = -1; dy <= 1; dy++) {
-        if (dx == 0 && dy == 0) continue;
-        Point neighbor = new Point(pos.x + dx, pos.y + dy);
-        if (!map.isOutOfBounds(neighbor)) {
-          totalNeighbors++;
-          if (!map.isExplored(neighbor)) {
-            unexploredCount++;
-          }
-        }
-      }
-    }
-
-    return totalNeighbors > 0 ? (double) unexploredCount / totalNeighbors : 0.0;
-  }
-
-  private double calculateBoundaryDistance(Point pos, LocalMap map) {
-    // Implementation needed
-    return 0.0; // Placeholder return, actual implementation needed
+    return Direction.next(current, direction);
   }
 
   private boolean isPathStillValid(
@@ -454,7 +421,7 @@ public class Exploration {
   ) {
     try {
       if (path == null || path.targetPosition == null || currentPos == null) {
-        debug("Path validation failed: null check failed");
+        log.debug("Path validation failed: null check failed");
         return false;
       }
 
@@ -463,7 +430,7 @@ public class Exploration {
         map.hasObstacle(path.targetPosition) ||
         map.isOutOfBounds(path.targetPosition)
       ) {
-        debug(
+        log.debug(
           "Path validation failed: target position is blocked or out of bounds"
         );
         return false;
@@ -473,7 +440,7 @@ public class Exploration {
       if (
         !isPositionNearPath(currentPos, path.startPosition, path.targetPosition)
       ) {
-        debug(
+        log.debug(
           "Path validation failed: current position is too far from planned path"
         );
         return false;
@@ -509,19 +476,7 @@ public class Exploration {
   }
 
   private String getOppositeDirection(String direction) {
-    if (direction == null) return null;
-    switch (direction) {
-      case "n":
-        return "s";
-      case "s":
-        return "n";
-      case "e":
-        return "w";
-      case "w":
-        return "e";
-      default:
-        return null;
-    }
+    return Direction.opposite(direction);
   }
 
   private PathResult findNewPath(
@@ -532,7 +487,7 @@ public class Exploration {
     String triggerDirection
   ) {
     try {
-      debug(
+      log.debug(
         "[%s] Finding new path. Reason: %s, Trigger Direction: %s",
         agName,
         reason,
@@ -575,7 +530,7 @@ public class Exploration {
     String stuckDirection
   ) {
     try {
-      debug(
+      log.debug(
         "[%s] Handling stuck case. Stuck direction: %s",
         agName,
         stuckDirection
@@ -583,10 +538,10 @@ public class Exploration {
 
       // Use the trigger direction as the stuck direction
       String oppositeDir = getOppositeDirection(stuckDirection);
-      debug("[%s] Attempting opposite direction: %s", agName, oppositeDir);
+      log.debug("[%s] Attempting opposite direction: %s", agName, oppositeDir);
 
       // Add very high heat to stuck area
-      addStuckPenalty(current);
+      addStuckPenalty(current, map);
 
       // Get available directions excluding the stuck direction
       List<String> availableDirections = getAvailableDirections(current, map);
@@ -595,7 +550,7 @@ public class Exploration {
       // Prioritize opposite direction if available
       if (oppositeDir != null && availableDirections.contains(oppositeDir)) {
         Point nextPos = calculateNextPosition(current, oppositeDir);
-        debug("[%s] Using opposite direction for escape", agName);
+        log.debug("[%s] Using opposite direction for escape", agName);
         return new PathResult(
           current,
           Collections.singletonList(oppositeDir),
@@ -605,7 +560,7 @@ public class Exploration {
         );
       }
 
-      debug(
+      log.debug(
         "[%s] Opposite direction not available, finding alternative escape path",
         agName
       );
@@ -631,7 +586,7 @@ public class Exploration {
     String oscillatingDirection
   ) {
     try {
-      debug(
+      log.debug(
         "[%s] Handling oscillation case. Oscillating direction: %s",
         agName,
         oscillatingDirection
@@ -642,7 +597,7 @@ public class Exploration {
       oscillatingDirections.add(getOppositeDirection(oscillatingDirection));
 
       // Add very high heat to oscillation area
-      addOscillationPenalty(current);
+      addOscillationPenalty(current, map);
 
       // Get available directions excluding oscillating ones
       List<String> availableDirections = getAvailableDirections(current, map);
@@ -656,7 +611,7 @@ public class Exploration {
         for (String dir : perpendicularDirs) {
           Point nextPos = calculateNextPosition(current, dir);
           if (!map.hasObstacle(nextPos) && !map.isOutOfBounds(nextPos)) {
-            debug("[%s] Using perpendicular direction: %s", agName, dir);
+            log.debug("[%s] Using perpendicular direction: %s", agName, dir);
             return new PathResult(
               current,
               Collections.singletonList(dir),
@@ -669,7 +624,10 @@ public class Exploration {
         return new PathResult(false);
       }
 
-      debug("[%s] Finding escape path avoiding oscillation directions", agName);
+      log.debug(
+        "[%s] Finding escape path avoiding oscillation directions",
+        agName
+      );
       return findEscapePath(current, map, availableDirections);
     } catch (Exception e) {
       logger.log(
@@ -692,7 +650,7 @@ public class Exploration {
     String triggerDirection
   ) {
     try {
-      debug(
+      log.debug(
         "[%s] Handling default recompute. Trigger direction: %s",
         agName,
         triggerDirection
@@ -703,7 +661,7 @@ public class Exploration {
       availableDirections.remove(triggerDirection);
 
       if (availableDirections.isEmpty()) {
-        debug("[%s] No available directions for default recompute", agName);
+        log.debug("[%s] No available directions for default recompute", agName);
         return new PathResult(false);
       }
 
@@ -742,7 +700,7 @@ public class Exploration {
       // 2. Heat map value (lower is better)
       // 3. Number of available moves from next position
       double distanceScore = 1.0; // Base score
-      double heatScore = 1.0 - heatMap.getOrDefault(nextPos, 0.0);
+      double heatScore = 1.0 - map.getHeatScore(nextPos);
       int availableMoves = countAvailableMoves(nextPos, map);
 
       double score =
@@ -781,39 +739,16 @@ public class Exploration {
   }
 
   private List<String> getPerpendicularDirections(String direction) {
-    List<String> perpendicular = new ArrayList<>();
-    if (direction == null) return perpendicular;
-
-    switch (direction) {
-      case "n":
-      case "s":
-        perpendicular.add("e");
-        perpendicular.add("w");
-        break;
-      case "e":
-      case "w":
-        perpendicular.add("n");
-        perpendicular.add("s");
-        break;
-    }
-    return perpendicular;
+    return Direction.perpendicular(direction);
   }
 
   private static class ExplorationSearch {
     private static final String[] DIRECTIONS = { "n", "e", "s", "w" };
-    private static final Map<String, Point> DIRECTION_VECTORS = new HashMap<>();
     private static final int MAX_DEPTH = 10;
     private static final double UNEXPLORED_WEIGHT = 0.6;
     private static final double HEAT_WEIGHT = 0.3;
     private static final double DISTANCE_WEIGHT = 0.1;
 
-    static {
-      DIRECTION_VECTORS.put("n", new Point(0, -1));
-      DIRECTION_VECTORS.put("e", new Point(1, 0));
-      DIRECTION_VECTORS.put("s", new Point(0, 1));
-      DIRECTION_VECTORS.put("w", new Point(-1, 0));
-    }
-
     private static class SearchNode implements Comparable<SearchNode> {
       Point position;
       SearchNode parent;
@@ -841,11 +776,7 @@ public class Exploration {
       }
     }
 
-    public PathResult findExplorationPath(
-      Point start,
-      LocalMap map,
-      Map<Point, Double> heatMap
-    ) {
+    public PathResult findExplorationPath(Point start, LocalMap map) {
       PriorityQueue<SearchNode> frontier = new PriorityQueue<>();
       Set<Point> visited = new HashSet<>();
       SearchNode bestNode = null;
@@ -859,7 +790,7 @@ public class Exploration {
         if (visited.contains(current.position)) continue;
         visited.add(current.position);
 
-        double currentScore = evaluateExplorationScore(current, map, heatMap);
+        double currentScore = evaluateExplorationScore(current, map);
         if (currentScore > bestScore) {
           bestScore = currentScore;
           bestNode = current;
@@ -873,7 +804,6 @@ public class Exploration {
             double nextScore = calculateDirectionScore(
               nextPos,
               map,
-              heatMap,
               current.depth + 1
             );
             frontier.add(
@@ -899,12 +829,11 @@ public class Exploration {
     private double calculateDirectionScore(
       Point pos,
       LocalMap map,
-      Map<Point, Double> heatMap,
       int depth
     ) {
       int unexploredCount = countUnexploredNeighbors(pos, map);
       double unexploredScore = unexploredCount / 4.0;
-      double heatPenalty = heatMap.getOrDefault(pos, 0.0);
+      double heatPenalty = map.getHeatScore(pos);
       double distancePenalty = depth / (double) MAX_DEPTH;
 
       return (
@@ -925,12 +854,8 @@ public class Exploration {
       return count;
     }
 
-    private double evaluateExplorationScore(
-      SearchNode node,
-      LocalMap map,
-      Map<Point, Double> heatMap
-    ) {
-      return calculateDirectionScore(node.position, map, heatMap, node.depth);
+    private double evaluateExplorationScore(SearchNode node, LocalMap map) {
+      return calculateDirectionScore(node.position, map, node.depth);
     }
 
     private boolean isValidMove(Point pos, LocalMap map) {
@@ -938,8 +863,7 @@ public class Exploration {
     }
 
     private Point getNextPosition(Point current, String direction) {
-      Point vector = DIRECTION_VECTORS.get(direction);
-      return new Point(current.x + vector.x, current.y + vector.y);
+      return Direction.next(current, direction);
     }
 
     private PathResult reconstructPath(SearchNode node) {
@@ -961,34 +885,30 @@ public class Exploration {
 
   // Add validation helper method
   private boolean isValidDirection(String direction) {
-    return (
-      direction != null && Arrays.asList("n", "s", "e", "w").contains(direction)
-    );
+    return Direction.fromSymbol(direction) != null;
   }
 
   // Add heat map management methods
-  private void addStuckPenalty(Point position) {
+  private void addStuckPenalty(Point position, LocalMap map) {
     try {
-      double currentHeat = heatMap.getOrDefault(position, 0.0);
-      heatMap.put(position, currentHeat + STUCK_PENALTY);
-      debug(
+      map.addHeat(position, STUCK_PENALTY);
+      log.debug(
         "Added stuck penalty to position %s. New heat: %f",
         position,
-        currentHeat + STUCK_PENALTY
+        map.getHeatScore(position)
       );
     } catch (Exception e) {
       logger.warning("Error adding stuck penalty: " + e.getMessage());
     }
   }
 
-  private void addOscillationPenalty(Point position) {
+  private void addOscillationPenalty(Point position, LocalMap map) {
     try {
-      double currentHeat = heatMap.getOrDefault(position, 0.0);
-      heatMap.put(position, currentHeat + OSCILLATION_PENALTY);
-      debug(
+      map.addHeat(position, OSCILLATION_PENALTY);
+      log.debug(
         "Added oscillation penalty to position %s. New heat: %f",
         position,
-        currentHeat + OSCILLATION_PENALTY
+        map.getHeatScore(position)
       );
     } catch (Exception e) {
       logger.warning("Error adding oscillation penalty: " + e.getMessage());
@@ -998,17 +918,7 @@ public class Exploration {
   // Add direction validation method
   private List<String> getAvailableDirections(Point current, LocalMap map) {
     try {
-      List<String> directions = new ArrayList<>();
-      String[] possibleDirs = { "n", "s", "e", "w" };
-
-      for (String dir : possibleDirs) {
-        Point nextPos = calculateNextPosition(current, dir);
-        if (!map.hasObstacle(nextPos) && !map.isOutOfBounds(nextPos)) {
-          directions.add(dir);
-        }
-      }
-
-      return directions;
+      return Footprint.available(map, current);
     } catch (Exception e) {
       logger.warning("Error getting available directions: " + e.getMessage());
       return new ArrayList<>();
@@ -0,0 +1,81 @@
+package jason.eis.movements;
+
+import jason.eis.LocalMap;
+import jason.eis.Point;
+
+/**
+ * Scores the four moves from the agent's position for exploration in one
+ * pass. The 8-neighbourhoods of the four next cells overlap, so bounds and
+ * explored flags are read once for the 5x5 window around the agent and
+ * shared by all four moves, and visit heat is looked up per cell instead of
+ * copying the whole visit heat map per candidate.
+ *
+ * Scores are a double[Direction.COUNT] indexed by ordinal; blocked moves
+ * are NaN.
+ */
+final class ExplorationScorer {
+  private static final int RADIUS = 2;
+  private static final int SIDE = 2 * RADIUS + 1;
+
+  private ExplorationScorer() {}
+
+  private static int index(int dx, int dy) {
+    return (dy + RADIUS) * SIDE + dx + RADIUS;
+  }
+
+  /**
+   * Exploration score of each move: the share of unexplored in-bounds
+   * neighbours of the next cell plus how cold its visit heat is, both
+   * weighted by explorationWeight.
+   */
+  static double[] score(Point current, LocalMap map, double explorationWeight) {
+    boolean[] inBounds = new boolean[SIDE * SIDE];
+    boolean[] explored = new boolean[SIDE * SIDE];
+    for (int dy = -RADIUS; dy <= RADIUS; dy++) {
+      for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+        // Corners are no move's neighbour
+        if (Math.abs(dx) == RADIUS && Math.abs(dy) == RADIUS) continue;
+        Point cell = new Point(current.x + dx, current.y + dy);
+        int i = index(dx, dy);
+        inBounds[i] = !map.isOutOfBounds(cell);
+        explored[i] = inBounds[i] && map.isExplored(cell);
+      }
+    }
+
+    double[] scores = Direction.newScores();
+    long now = System.currentTimeMillis();
+    for (Direction d : Direction.all()) {
+      if (!inBounds[index(d.dx, d.dy)]) continue;
+      Point next = d.next(current);
+      if (map.hasObstacle(next)) continue;
+
+      int unexplored = 0;
+      int total = 0;
+      for (int oy = -1; oy <= 1; oy++) {
+        for (int ox = -1; ox <= 1; ox++) {
+          if (ox == 0 && oy == 0) continue;
+          int i = index(d.dx + ox, d.dy + oy);
+          if (!inBounds[i]) continue;
+          total++;
+          if (!explored[i]) unexplored++;
+        }
+      }
+      double unexploredScore = total > 0 ? (double) unexplored / total : 0.0;
+      double visitScore = 1.0 - map.getVisitHeat(next, now);
+      scores[d.ordinal()] = (unexploredScore + visitScore) * explorationWeight;
+    }
+    return scores;
+  }
+
+  /** Visit heat of each move's next cell; blocked moves are NaN. */
+  static double[] visitHeat(Point current, LocalMap map) {
+    double[] heat = Direction.newScores();
+    long now = System.currentTimeMillis();
+    for (Direction d : Direction.all()) {
+      Point next = d.next(current);
+      if (map.isOutOfBounds(next) || map.hasObstacle(next)) continue;
+      heat[d.ordinal()] = map.getVisitHeat(next, now);
+    }
+    return heat;
+  }
+}
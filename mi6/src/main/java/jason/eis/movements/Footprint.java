@@ -0,0 +1,184 @@
+package jason.eis.movements;
+
+import jason.eis.LocalMap;
+import jason.eis.ObstacleBitmap;
+import jason.eis.Point;
+import jason.eis.WorldExtent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cells an agent covers and sweeps when it moves one step, precomputed
+ * per (size, block direction, move direction) as one 64-bit mask per row.
+ * As in the agent code, a shape of size n is the agent plus n - 1 blocks in
+ * a line towards the block direction; without a block it is the agent's
+ * own cell.
+ *
+ * A move is possible when no cell the shape enters is blocked or outside
+ * the known world. canMove() tests that with one AND per row against
+ * LocalMap's ObstacleBitmap and the extent's edges, so filtering the four
+ * candidate directions costs a handful of word operations and allocates
+ * nothing. Templates are immutable and shared by all agents.
+ */
+public final class Footprint {
+  public static final int MAX_SIZE = Long.SIZE - 1; // Swept line fits a row
+
+  private static final int CACHED_SIZES = 8;
+  private static final Footprint[][][] CACHE = buildCache();
+
+  private final int minDx; // Offsets of bit 0 and row 0 from the agent
+  private final int minDy;
+  private final long[] entered; // Cells swept by the move, minus the start
+
+  private Footprint(int size, Direction block, Direction move) {
+    Point[] shape = shape(size, block);
+    int minDx = Math.min(0, move.dx);
+    int minDy = Math.min(0, move.dy);
+    int maxDx = Math.max(0, move.dx);
+    int maxDy = Math.max(0, move.dy);
+    for (Point cell : shape) {
+      minDx = Math.min(minDx, cell.x + Math.min(0, move.dx));
+      minDy = Math.min(minDy, cell.y + Math.min(0, move.dy));
+      maxDx = Math.max(maxDx, cell.x + Math.max(0, move.dx));
+      maxDy = Math.max(maxDy, cell.y + Math.max(0, move.dy));
+    }
+    this.minDx = minDx;
+    this.minDy = minDy;
+    int rows = maxDy - minDy + 1;
+    long[] start = new long[rows];
+    long[] occupied = new long[rows];
+    for (Point cell : shape) {
+      start[cell.y - minDy] |= 1L << (cell.x - minDx);
+      occupied[cell.y + move.dy - minDy] |= 1L << (cell.x + move.dx - minDx);
+    }
+    // One step moves every cell to a neighbour, so the swept area is just
+    // the start and end shapes; only cells not covered before are entered
+    entered = new long[rows];
+    for (int row = 0; row < rows; row++) {
+      entered[row] = occupied[row] & ~start[row];
+    }
+  }
+
+  private static Point[] shape(int size, Direction block) {
+    if (block == null) return new Point[] { new Point(0, 0) };
+    Point[] cells = new Point[size];
+    for (int i = 0; i < size; i++) {
+      cells[i] = new Point(block.dx * i, block.dy * i);
+    }
+    return cells;
+  }
+
+  private static Footprint[][][] buildCache() {
+    Footprint[][][] cache =
+      new Footprint[CACHED_SIZES + 1][Direction.COUNT + 1][Direction.COUNT];
+    for (int size = 1; size <= CACHED_SIZES; size++) {
+      for (int block = 0; block <= Direction.COUNT; block++) {
+        for (Direction move : Direction.all()) {
+          cache[size][block][move.ordinal()] =
+            new Footprint(
+              size,
+              block == 0 ? null : Direction.ofOrdinal(block - 1),
+              move
+            );
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Template for an agent of the given size carrying its blocks towards
+   * blockDirection ("n", "e", "s", "w"; null or anything else for none)
+   * and moving in move. Sizes below 2 or without a block give the single
+   * cell shape.
+   */
+  public static Footprint of(int size, String blockDirection, Direction move) {
+    Direction block = Direction.fromSymbol(blockDirection);
+    if (block == null || size < 2) {
+      size = 1;
+      block = null;
+    }
+    size = Math.min(size, MAX_SIZE);
+    int blockIndex = block == null ? 0 : block.ordinal() + 1;
+    if (size <= CACHED_SIZES) return CACHE[size][blockIndex][move.ordinal()];
+    return new Footprint(size, block, move);
+  }
+
+  /** Template for the agent as the map currently records it. */
+  public static Footprint of(LocalMap map, Direction move) {
+    return of(map.getAgentSize(), map.getBlockAttachment(), move);
+  }
+
+  /**
+   * Whether the shape can make this move from agentPos: every cell it enters
+   * is free of known obstacles and inside the world's known edges.
+   */
+  public boolean canMove(LocalMap map, Point agentPos) {
+    return fits(
+      entered,
+      map.getObstacleBitmap(),
+      map.getWorldExtent(),
+      agentPos
+    );
+  }
+
+  private boolean fits(
+    long[] mask,
+    ObstacleBitmap bits,
+    WorldExtent extent,
+    Point agentPos
+  ) {
+    int x = agentPos.x + minDx;
+    long outside = outsideColumns(extent, x);
+    for (int row = 0; row < mask.length; row++) {
+      long cells = mask[row];
+      if (cells == 0) continue;
+      int y = agentPos.y + minDy + row;
+      if (y < extent.minY || y > extent.maxY) return false;
+      if ((cells & outside) != 0) return false;
+      if ((cells & bits.window(x, y)) != 0) return false;
+    }
+    return true;
+  }
+
+  // Bits of the 64 columns from x on that lie beyond the left or right edge
+  private static long outsideColumns(WorldExtent extent, int x) {
+    long left = Math.max(0, Math.min(Long.SIZE, (long) extent.minX - x));
+    long right = Math.max(0, Math.min(Long.SIZE, (long) extent.maxX - x + 1));
+    long mask = left == Long.SIZE ? -1L : (1L << left) - 1;
+    if (right < Long.SIZE) mask |= -1L << right;
+    return mask;
+  }
+
+  /**
+   * Of the candidate directions, those the map's agent can move in from
+   * agentPos, in the same order. Unknown symbols are dropped.
+   */
+  public static List<String> filter(
+    LocalMap map,
+    Point agentPos,
+    List<String> candidates
+  ) {
+    int size = map.getAgentSize();
+    String block = map.getBlockAttachment();
+    List<String> free = new ArrayList<>(candidates.size());
+    for (String symbol : candidates) {
+      Direction move = Direction.fromSymbol(symbol);
+      if (move != null && of(size, block, move).canMove(map, agentPos)) {
+        free.add(symbol);
+      }
+    }
+    return free;
+  }
+
+  /** All directions the map's agent can move in from agentPos. */
+  public static List<String> available(LocalMap map, Point agentPos) {
+    int size = map.getAgentSize();
+    String block = map.getBlockAttachment();
+    List<String> free = new ArrayList<>(Direction.COUNT);
+    for (Direction move : Direction.all()) {
+      if (of(size, block, move).canMove(map, agentPos)) free.add(move.symbol);
+    }
+    return free;
+  }
+}
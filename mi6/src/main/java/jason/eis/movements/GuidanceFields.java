@@ -0,0 +1,190 @@
+package jason.eis.movements;
+
+import jason.eis.LocalMap;
+import jason.eis.Point;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Target fields for the agents' guidance, built once per step as soon as a
+ * step's percepts are applied. An agent gets a field for every target type
+ * it asked RequestGuidance for in the last few steps, built from the map
+ * snapshot of that step through PlannedMovement.planFields, one ForkJoin
+ * task per target type on a pool of its own. Every guidance call of the
+ * step then reads its path off the field, from wherever the agent stands
+ * and for any size, instead of probing the nearest targets with A*.
+ *
+ * Guidance never waits for a field: one that is not ready, or that the
+ * map has moved past, is not used and the caller plans as before. Each
+ * agent keeps its own map frame, so fields are per agent; planFields
+ * already shares a field between requests on the same map.
+ */
+public final class GuidanceFields {
+  // Target types not asked for in this many steps are no longer built
+  private static final long TARGET_MEMORY_STEPS = 10;
+
+  private static final class AgentFields {
+    final LocalMap view;
+    final ForkJoinTask<Map<Search.TargetType, TargetField>> task;
+
+    AgentFields(
+      LocalMap view,
+      ForkJoinTask<Map<Search.TargetType, TargetField>> task
+    ) {
+      this.view = view;
+      this.task = task;
+    }
+  }
+
+  private final PlannedMovement plannedMovement;
+  private final ForkJoinPool pool;
+  // Per agent, the step each target type was last asked for in
+  private final Map<String, Map<Search.TargetType, Long>> requested = new ConcurrentHashMap<>();
+  private final Map<String, Long> steps = new ConcurrentHashMap<>();
+  private final Map<String, AgentFields> latest = new ConcurrentHashMap<>();
+
+  public GuidanceFields(PlannedMovement plannedMovement) {
+    this(
+      plannedMovement,
+      Integer.getInteger(
+        "mi6.guidance.threads",
+        Runtime.getRuntime().availableProcessors()
+      )
+    );
+  }
+
+  public GuidanceFields(PlannedMovement plannedMovement, int threads) {
+    this.plannedMovement = plannedMovement;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.pool =
+      new ForkJoinPool(
+        Math.max(1, threads),
+        p -> {
+          ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(
+            p
+          );
+          t.setName("mi6-guidance-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        },
+        null,
+        false
+      );
+  }
+
+  /** Remembers that the agent plans towards targetType this step. */
+  public void noteTarget(String agentName, Search.TargetType targetType) {
+    Long step = steps.get(agentName);
+    if (step == null || targetType == null) return;
+    requested
+      .computeIfAbsent(agentName, k -> new ConcurrentHashMap<>())
+      .put(targetType, step);
+  }
+
+  /**
+   * Starts building the agent's fields for the step just applied to its
+   * map. view should be the snapshot published for that step.
+   */
+  public void prepare(String agentName, long step, LocalMap view) {
+    steps.put(agentName, step);
+    AgentFields previous = latest.remove(agentName);
+    if (previous != null) previous.task.cancel(false);
+
+    Map<Search.TargetType, Long> types = requested.get(agentName);
+    Point start = view.getCurrentPosition();
+    if (types == null || start == null) return;
+
+    List<PlannedMovement.PlanRequest> requests = new ArrayList<>();
+    Iterator<Map.Entry<Search.TargetType, Long>> it = types
+      .entrySet()
+      .iterator();
+    while (it.hasNext()) {
+      Map.Entry<Search.TargetType, Long> entry = it.next();
+      long age = step - entry.getValue();
+      // A negative age means a new match counting from 0 again
+      if (age < 0 || age > TARGET_MEMORY_STEPS) {
+        it.remove();
+        continue;
+      }
+      requests.add(
+        new PlannedMovement.PlanRequest(
+          agentName,
+          view,
+          start,
+          entry.getKey()
+        )
+      );
+    }
+    if (requests.isEmpty()) return;
+
+    ForkJoinTask<Map<Search.TargetType, TargetField>> task = ForkJoinTask.adapt(
+      () -> byTargetType(plannedMovement.planFields(requests))
+    );
+    latest.put(agentName, new AgentFields(view, task));
+    pool.execute(task);
+  }
+
+  private static Map<Search.TargetType, TargetField> byTargetType(
+    Map<PlannedMovement.PlanRequest, TargetField> fields
+  ) {
+    Map<Search.TargetType, TargetField> byType = new EnumMap<>(
+      Search.TargetType.class
+    );
+    for (TargetField field : fields.values()) {
+      byType.put(field.targetType(), field);
+    }
+    return byType;
+  }
+
+  /**
+   * The path from where the agent stands on view to the nearest target of
+   * targetType, read off the agent's field, or null if the field is not
+   * ready, has no path, or no longer matches view.
+   */
+  public Search.PathResult pathFor(
+    String agentName,
+    LocalMap view,
+    Search.TargetType targetType
+  ) {
+    AgentFields fields = latest.get(agentName);
+    if (
+      fields == null ||
+      !fields.task.isDone() ||
+      fields.task.isCompletedAbnormally()
+    ) {
+      return null;
+    }
+    TargetField field = fields.task.join().get(targetType);
+    if (field == null) return null;
+
+    Search.PathResult path = field.pathFrom(view.getCurrentPosition());
+    if (path == null || view == fields.view) return path;
+    // Written to since the field was built: the path must still be clear
+    // and still end on a target
+    for (Point cell : path.points) {
+      if (view.isForbidden(cell) || view.hasObstacle(cell)) return null;
+    }
+    Point end = path.points.get(path.points.size() - 1);
+    return plannedMovement.isTargetOf(view, end, targetType) ? path : null;
+  }
+
+  /** Forgets the agent's fields and targets, e.g. when a new match starts. */
+  public void reset(String agentName) {
+    requested.remove(agentName);
+    steps.remove(agentName);
+    AgentFields previous = latest.remove(agentName);
+    if (previous != null) previous.task.cancel(false);
+  }
+
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+}
@@ -13,19 +13,6 @@ public abstract class Movement {
   protected final Random random = new Random();
   protected final Map<String, LocalMap> agentMaps;
 
-  // Pre-compute direction opposites for O(1) lookup
-  protected static final Map<String, String> OPPOSITE_DIRECTIONS = new HashMap<>(
-    4
-  ) {
-
-    {
-      put("n", "s");
-      put("s", "n");
-      put("e", "w");
-      put("w", "e");
-    }
-  };
-
   // Movement status constants
   protected static final String FAILED_PATH = "failed_path";
   protected static final String FAILED_FORBIDDEN = "failed_forbidden";
@@ -56,15 +43,9 @@ public abstract class Movement {
   }
 
   protected List<String> getPerpendicularDirections(String direction) {
-    List<String> perpDirs = new ArrayList<>(2);
-    if ("n".equals(direction) || "s".equals(direction)) {
-      perpDirs.add("e");
-      perpDirs.add("w");
-    } else {
-      perpDirs.add("n");
-      perpDirs.add("s");
-    }
-    return perpDirs;
+    Direction d = Direction.fromSymbol(direction);
+    // Anything that is not north/south counts as horizontal
+    return Direction.perpendicular(d != null && d.isVertical() ? "n" : "e");
   }
 
   protected boolean isTowardsTarget(
@@ -72,27 +53,12 @@ public abstract class Movement {
     int targetX,
     int targetY
   ) {
-    return (
-      (direction.equals("e") && targetX > 0) ||
-      (direction.equals("w") && targetX < 0) ||
-      (direction.equals("s") && targetY > 0) ||
-      (direction.equals("n") && targetY < 0)
-    );
+    Direction d = Direction.fromSymbol(direction);
+    return d != null && d.dx * targetX + d.dy * targetY > 0;
   }
 
   protected Point calculateNewPosition(Point current, String direction) {
-    switch (direction.toLowerCase()) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
+    return Direction.next(current, direction);
   }
 
   protected String getRandomDirection() {
@@ -100,7 +66,7 @@ public abstract class Movement {
   }
 
   protected String getOppositeDirection(String direction) {
-    return OPPOSITE_DIRECTIONS.get(direction);
+    return Direction.opposite(direction);
   }
 
   // Make these abstract methods that subclasses must implement
@@ -0,0 +1,56 @@
+package jason.eis.movements;
+
+import jason.eis.movements.collision.handlers.OscillationHandler;
+import jason.eis.movements.collision.handlers.StuckHandler;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The mutable movement state of one agent. AgentCollisionHandler, its
+ * handlers and PlannedMovement are shared by the team and keep no state of
+ * their own; they read and update the context of the agent they work for.
+ * An agent's context is only used from that agent's reasoning, one internal
+ * action at a time, so nothing in it is locked and agents never wait for
+ * or overwrite each other.
+ */
+public final class MovementContext {
+  private final String agentName;
+  private final StuckHandler.State stuck = new StuckHandler.State();
+  private final OscillationHandler.State oscillation = new OscillationHandler.State();
+
+  // Target and path of planned movement, null without a target
+  PlannedMovement.MovementState planned;
+
+  private MovementContext(String agentName) {
+    this.agentName = agentName;
+  }
+
+  public String agentName() {
+    return agentName;
+  }
+
+  public StuckHandler.State stuck() {
+    return stuck;
+  }
+
+  public OscillationHandler.State oscillation() {
+    return oscillation;
+  }
+
+  /** Contexts of all agents, created on first use. */
+  public static final class Registry {
+    private final Map<String, MovementContext> contexts = new ConcurrentHashMap<>();
+
+    public MovementContext of(String agentName) {
+      // A plain get is lock free; computeIfAbsent only for the first use
+      MovementContext context = contexts.get(agentName);
+      if (context != null) return context;
+      return contexts.computeIfAbsent(agentName, MovementContext::new);
+    }
+
+    /** Forgets the agent's state, e.g. when a new match starts. */
+    public void reset(String agentName) {
+      contexts.remove(agentName);
+    }
+  }
+}
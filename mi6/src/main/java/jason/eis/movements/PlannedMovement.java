@@ -4,8 +4,14 @@ import jason.eis.LocalMap;
 import jason.eis.LocalMap.ObstacleInfo;
 import jason.eis.MI6Model;
 import jason.eis.Point;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
 import jason.eis.movements.collision.CollisionResolution;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -13,7 +19,7 @@ public class PlannedMovement implements MovementStrategy {
   private static final Logger logger = Logger.getLogger(
     PlannedMovement.class.getName()
   );
-  private static final boolean DEBUG = true;
+  private static final SubsystemLog log = AsyncLog.forSubsystem("planning");
   private static final int MAX_SEARCH_RANGE = 50; // Configurable max range
   private static final int PATH_TIMEOUT = 5000; // 5 seconds before recalculating path
   private static final int MAX_TARGETS_TO_CHECK = 5;
@@ -23,23 +29,37 @@ public class PlannedMovement implements MovementStrategy {
   private static final int LOOKAHEAD_STEPS = 3; // Number of steps to check ahead
   private static final int MAX_DEVIATION_ATTEMPTS = 3; // Max attempts to deviate before full recalc
   private static final double COLLISION_RISK_THRESHOLD = 0.7; // Risk threshold for path deviation
+  private static final double OCCUPANCY_PENALTY = 3.0; // Cells of detour worth avoiding an agent
 
-  private final Random random = new Random();
   private final BoundaryManager boundaryManager = new BoundaryManager();
   private final ObstacleManager obstacleManager = new ObstacleManager();
 
   private final Search search;
-  private final Map<String, MovementState> agentStates;
   private final AgentCollisionHandler collisionHandler;
-  private final Map<String, Deque<String>> plannedPaths = new HashMap<>();
+  // Each agent's target and path live in its MovementContext
+  private final MovementContext.Registry contexts;
 
-  public PlannedMovement() {
+  /**
+   * One agent's request for the path to the nearest target of a type, as
+   * passed to planBatch. map should be a snapshot the caller owns.
+   */
+  public record PlanRequest(
+    String agentName,
+    LocalMap map,
+    Point start,
+    Search.TargetType targetType
+  ) {}
+
+  public PlannedMovement(
+    AgentCollisionHandler collisionHandler,
+    MovementContext.Registry contexts
+  ) {
     this.search = new Search();
-    this.agentStates = new HashMap<>();
-    this.collisionHandler = new AgentCollisionHandler();
+    this.collisionHandler = collisionHandler;
+    this.contexts = contexts;
   }
 
-  private static class MovementState {
+  static class MovementState {
     String agentName;
     Point targetPosition;
     Search.TargetType targetType;
@@ -146,7 +166,7 @@ public class PlannedMovement implements MovementStrategy {
 
       List<Point> targets = getTargetsOfType(map, targetType);
       if (targets.isEmpty()) {
-        debug("No targets found for type: %s", targetType);
+        log.debug("No targets found for type: %s", targetType);
         return null;
       }
 
@@ -338,9 +358,9 @@ public class PlannedMovement implements MovementStrategy {
         return null;
       }
 
-      MovementState state = agentStates.get(agName);
+      MovementState state = contexts.of(agName).planned;
       if (state == null) {
-        debug("No movement state for agent: %s", agName);
+        log.debug("No movement state for agent: %s", agName);
         return null;
       }
 
@@ -350,7 +370,7 @@ public class PlannedMovement implements MovementStrategy {
         return null;
       }
 
-      debug(
+      log.debug(
         "[%s] Processing movement at pos %s to target %s (type: %s)",
         agName,
         currentPos,
@@ -368,7 +388,7 @@ public class PlannedMovement implements MovementStrategy {
         state
       );
       if (availableDirections.isEmpty()) {
-        debug(
+        log.debug(
           "[%s] No available directions at position %s",
           agName,
           currentPos
@@ -387,7 +407,7 @@ public class PlannedMovement implements MovementStrategy {
         availableDirections
       );
       if (collisionDirection != null) {
-        debug(
+        log.debug(
           "[%s] Using collision resolution direction: %s",
           agName,
           collisionDirection
@@ -397,7 +417,11 @@ public class PlannedMovement implements MovementStrategy {
 
       // Check if we've reached the target
       if (hasReachedTarget(currentPos, state.targetPosition, size)) {
-        debug("[%s] Reached target position %s", agName, state.targetPosition);
+        log.debug(
+          "[%s] Reached target position %s",
+          agName,
+          state.targetPosition
+        );
         clearTarget(agName);
         return null;
       }
@@ -410,8 +434,12 @@ public class PlannedMovement implements MovementStrategy {
         size,
         blockDirection
       );
-      if (plannedMove != null && availableDirections.contains(plannedMove)) {
-        debug("[%s] Using planned move: %s", agName, plannedMove);
+      if (
+        plannedMove != null &&
+        availableDirections.contains(plannedMove) &&
+        !isPredictedOccupied(map, currentPos, plannedMove)
+      ) {
+        log.debug("[%s] Using planned move: %s", agName, plannedMove);
         state.currentPathIndex++;
         return plannedMove;
       }
@@ -423,7 +451,11 @@ public class PlannedMovement implements MovementStrategy {
         state.targetPosition,
         map
       );
-      debug("[%s] Using best available direction: %s", agName, bestDirection);
+      log.debug(
+        "[%s] Using best available direction: %s",
+        agName,
+        bestDirection
+      );
       handleDeviation(
         state,
         bestDirection,
@@ -472,10 +504,10 @@ public class PlannedMovement implements MovementStrategy {
       // Then apply obstacle constraints
       directions = obstacleManager.filterDirections(agName, map, directions);
 
-      debug(
+      log.debug(
         "[%s] Valid directions after filtering: %s",
         agName,
-        String.join(",", directions)
+        directions
       );
       return directions;
     } catch (Exception e) {
@@ -513,7 +545,7 @@ public class PlannedMovement implements MovementStrategy {
 
       if (resolution != null) {
         String direction = resolution.getDirection();
-        debug(
+        log.debug(
           "[%s] Collision resolved with direction: %s, reason: %s",
           agName,
           direction,
@@ -523,7 +555,7 @@ public class PlannedMovement implements MovementStrategy {
         // Clear planned path if we're stuck
         if ("STUCK".equals(resolution.getReason())) {
           state.plannedPath.clear();
-          debug("[%s] Clearing planned path due to STUCK state", agName);
+          log.debug("[%s] Clearing planned path due to STUCK state", agName);
         }
 
         // Handle the deviation
@@ -563,11 +595,6 @@ public class PlannedMovement implements MovementStrategy {
     return size == 1 ? distance == 0 : distance <= 1;
   }
 
-  private void debug(String format, Object... args) {
-    if (DEBUG) {
-      logger.fine(String.format(format, args));
-    }
-  }
 
   private String chooseBestDirection(
     List<String> availableDirections,
@@ -582,8 +609,11 @@ public class PlannedMovement implements MovementStrategy {
       Point nextPos = calculateNextPosition(currentPos, direction);
       double score = -getManhattanDistance(nextPos, target); // Negative because closer is better
 
+      // Cells another agent is likely to step into cost a detour
+      score -= OCCUPANCY_PENALTY * map.getPredictedOccupancy(nextPos, 1);
+
       // Add some randomization to break ties
-      score += random.nextDouble() * 0.1;
+      score += ThreadLocalRandom.current().nextDouble() * 0.1;
 
       if (score > bestScore) {
         bestScore = score;
@@ -594,6 +624,24 @@ public class PlannedMovement implements MovementStrategy {
     return bestDir != null ? bestDir : availableDirections.get(0);
   }
 
+  // Whether a tracked agent is likely in the cell when the move lands
+  private boolean isPredictedOccupied(
+    LocalMap map,
+    Point currentPos,
+    String direction
+  ) {
+    Point nextPos = calculateNextPosition(currentPos, direction);
+    double risk = map.getPredictedOccupancy(nextPos, 1);
+    if (risk < COLLISION_RISK_THRESHOLD) return false;
+    log.debug(
+      "Planned move %s into %s has occupancy %.2f",
+      direction,
+      nextPos,
+      risk
+    );
+    return true;
+  }
+
   private void handleDeviation(
     MovementState state,
     String deviationMove,
@@ -636,8 +684,7 @@ public class PlannedMovement implements MovementStrategy {
         logger.warning("Null agent name in setTarget");
         return;
       }
-      MovementState state = new MovementState(agName, target, type);
-      agentStates.put(agName, state);
+      contexts.of(agName).planned = new MovementState(agName, target, type);
     } catch (Exception e) {
       logger.warning(formatLog("Error in setTarget: %s", e.getMessage()));
     }
@@ -650,7 +697,7 @@ public class PlannedMovement implements MovementStrategy {
   public void clearTarget(String agName) {
     try {
       if (agName != null) {
-        agentStates.remove(agName);
+        contexts.of(agName).planned = null;
       }
     } catch (Exception e) {
       logger.warning("Error clearing target: " + e.getMessage());
@@ -659,11 +706,9 @@ public class PlannedMovement implements MovementStrategy {
 
   public boolean hasTarget(String agName) {
     try {
-      return (
-        agName != null &&
-        agentStates.containsKey(agName) &&
-        agentStates.get(agName).targetPosition != null
-      );
+      if (agName == null) return false;
+      MovementState state = contexts.of(agName).planned;
+      return state != null && state.targetPosition != null;
     } catch (Exception e) {
       logger.warning("Error checking target: " + e.getMessage());
       return false;
@@ -672,14 +717,14 @@ public class PlannedMovement implements MovementStrategy {
 
   public void moveSucceeded(String agName) {
     try {
-      MovementState state = agentStates.get(agName);
+      MovementState state = contexts.of(agName).planned;
       if (state == null) {
-        debug("[%s] No state found for move success", agName);
+        log.debug("[%s] No state found for move success", agName);
         return;
       }
 
       state.currentPathIndex++;
-      debug(
+      log.debug(
         "[%s] Move succeeded, new path index: %d",
         agName,
         state.currentPathIndex
@@ -698,8 +743,8 @@ public class PlannedMovement implements MovementStrategy {
         return;
       }
 
-      agentStates.remove(agName);
-      debug("[%s] Move failed, cleared movement state", agName);
+      contexts.of(agName).planned = null;
+      log.debug("[%s] Move failed, cleared movement state", agName);
     } catch (Exception e) {
       logger.warning(
         String.format("[%s] Error in moveFailed: %s", agName, e.getMessage())
@@ -743,6 +788,91 @@ public class PlannedMovement implements MovementStrategy {
     }
   }
 
+  /**
+   * Plans all requests together. Requests on the same map towards the same
+   * target type share one TargetField covering all their starts; the fields
+   * are built in parallel as ForkJoin tasks (in the caller's pool when
+   * called from one, otherwise the common pool). Agent size and block
+   * direction do not change which moves Search allows, so they do not split
+   * requests. Agents with no reachable target, or standing on one, are left
+   * out of the result.
+   */
+  public Map<String, Search.PathResult> planBatch(
+    Collection<PlanRequest> requests
+  ) {
+    Map<String, Search.PathResult> paths = new HashMap<>();
+    for (Map.Entry<PlanRequest, TargetField> entry : planFields(requests)
+      .entrySet()) {
+      PlanRequest request = entry.getKey();
+      Search.PathResult path = entry.getValue().pathFrom(request.start());
+      if (path != null) paths.put(request.agentName(), path);
+    }
+    return paths;
+  }
+
+  // The field of every valid request with a target in sight; requests that
+  // share a map and target type get the same field
+  Map<PlanRequest, TargetField> planFields(Collection<PlanRequest> requests) {
+    Map<LocalMap, Map<Search.TargetType, List<PlanRequest>>> groups = new IdentityHashMap<>();
+    for (PlanRequest request : requests) {
+      if (
+        request.map() == null ||
+        request.start() == null ||
+        request.targetType() == null
+      ) {
+        continue;
+      }
+      groups
+        .computeIfAbsent(
+          request.map(),
+          k -> new EnumMap<>(Search.TargetType.class)
+        )
+        .computeIfAbsent(request.targetType(), k -> new ArrayList<>())
+        .add(request);
+    }
+
+    Map<PlanRequest, TargetField> fields = new ConcurrentHashMap<>();
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (Map<Search.TargetType, List<PlanRequest>> byType : groups.values()) {
+      for (List<PlanRequest> group : byType.values()) {
+        tasks.add(ForkJoinTask.adapt(() -> planGroup(group, fields)));
+      }
+    }
+    ForkJoinTask.invokeAll(tasks);
+    return fields;
+  }
+
+  private void planGroup(
+    List<PlanRequest> group,
+    Map<PlanRequest, TargetField> fields
+  ) {
+    try {
+      PlanRequest first = group.get(0);
+      List<Point> targets = getTargetsOfType(first.map(), first.targetType());
+      if (targets.isEmpty()) return;
+
+      List<Point> starts = new ArrayList<>(group.size());
+      for (PlanRequest request : group) starts.add(request.start());
+      TargetField field = TargetField.build(
+        first.map(),
+        first.targetType(),
+        targets,
+        starts,
+        MAX_SEARCH_RANGE
+      );
+      for (PlanRequest request : group) fields.put(request, field);
+    } catch (Exception e) {
+      logger.warning(
+        String.format("Error in batch planning: %s", e.getMessage())
+      );
+    }
+  }
+
+  // Whether cell is still a target of the type on map
+  boolean isTargetOf(LocalMap map, Point cell, Search.TargetType targetType) {
+    return getTargetsOfType(map, targetType).contains(cell);
+  }
+
   public Search.PathResult calculatePath(
     LocalMap map,
     Point start,
@@ -762,13 +892,39 @@ public class PlannedMovement implements MovementStrategy {
     );
   }
 
+  /**
+   * Time-budgeted path calculation. Keeps improving the path until the
+   * budget runs out and reports every better path to onImprovement.
+   */
+  public Search.PathResult calculatePath(
+    LocalMap map,
+    Point start,
+    Point goal,
+    Search.TargetType targetType,
+    int size,
+    String blockDirection,
+    long budgetNanos,
+    Consumer<Search.PathResult> onImprovement
+  ) {
+    return search.findPathAnytime(
+      start,
+      goal,
+      map,
+      targetType,
+      size,
+      blockDirection,
+      budgetNanos,
+      onImprovement
+    );
+  }
+
   public Search.PathResult getFullPathResult(
     String agName,
     LocalMap map,
     int size,
     String blockDirection
   ) {
-    MovementState state = agentStates.get(agName);
+    MovementState state = contexts.of(agName).planned;
     if (state == null || state.targetPosition == null) {
       return new Search.PathResult(new ArrayList<>(), new ArrayList<>(), false);
     }
@@ -793,13 +949,13 @@ public class PlannedMovement implements MovementStrategy {
   ) {
     try {
       if (!validatePlannedMoveInputs(state, currentPos, map)) {
-        debug("Invalid inputs for planned move");
+        log.debug("Invalid inputs for planned move");
         return null;
       }
 
       // Check if target still exists and is valid
       if (!isTargetStillValid(state, map)) {
-        debug(
+        log.debug(
           "Target no longer valid: %s of type %s",
           state.targetPosition,
           state.targetType
@@ -810,7 +966,7 @@ public class PlannedMovement implements MovementStrategy {
 
       // Handle deviation if needed
       if (state.isDeviating) {
-        debug("Handling deviation for agent %s", state.agentName);
+        log.debug("Handling deviation for agent %s", state.agentName);
         return handleDeviation(state, currentPos, map, size, blockDirection);
       }
 
@@ -818,14 +974,18 @@ public class PlannedMovement implements MovementStrategy {
       if (!state.needsNewPath() && state.getCurrentStep() != null) {
         String nextMove = state.getCurrentStep();
         if (isValidMove(currentPos, nextMove, map, size, blockDirection)) {
-          debug("Using existing path, next move: %s", nextMove);
+          log.debug("Using existing path, next move: %s", nextMove);
           state.currentPathIndex++;
           return nextMove;
         }
       }
 
       // Recompute path if needed
-      debug("Recomputing path from %s to %s", currentPos, state.targetPosition);
+      log.debug(
+        "Recomputing path from %s to %s",
+        currentPos,
+        state.targetPosition
+      );
       return recomputePath(state, currentPos, map, size, blockDirection);
     } catch (Exception e) {
       logger.severe(
@@ -854,7 +1014,7 @@ public class PlannedMovement implements MovementStrategy {
       );
 
       if (newPath == null || !newPath.success) {
-        debug("Deviation path finding failed, clearing state");
+        log.debug("Deviation path finding failed, clearing state");
         state.plannedPath.clear();
         return null;
       }
@@ -896,7 +1056,7 @@ public class PlannedMovement implements MovementStrategy {
       );
 
       if (path == null || !path.success) {
-        debug("Path recomputation failed, clearing state");
+        log.debug("Path recomputation failed, clearing state");
         state.plannedPath.clear();
         return null;
       }
@@ -1000,19 +1160,7 @@ public class PlannedMovement implements MovementStrategy {
    * Calculates the next position based on current position and direction
    */
   private Point calculateNextPosition(Point current, String direction) {
-    if (direction == null) return current;
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
+    return Direction.next(current, direction);
   }
 
   private void logWarning(String message) {
@@ -21,20 +21,12 @@ public class RandomMovement implements MovementStrategy {
   private static final int HIGH_TRAFFIC_THRESHOLD = 2;
   private static final long PATH_TIMEOUT_MS = 10000; // 10 seconds
 
-  private static final boolean DEBUG = true;
   private static final int MEMORY_SIZE = 5;
-  private static final int ZONE_SIZE = 5;
   private static final double EXPLORATION_WEIGHT = 0.6;
-  private static final double SAFETY_THRESHOLD = 3.0;
-  private static final int MAX_ZONE_VISITS = 2;
   private static final double ZONE_WEIGHT = 0.5;
 
-  // Use AgentCollisionHandler's constants instead
-  private static final int AWARENESS_ZONE = 4;
-
   private final Random random = new Random();
   private final AgentCollisionHandler collisionHandler;
-  private final Map<Point, ZoneInfo> zoneMemory = new ConcurrentHashMap<>();
   private final Map<String, Point> startingZones = new ConcurrentHashMap<>();
 
   // Constants
@@ -58,7 +50,6 @@ public class RandomMovement implements MovementStrategy {
   // Updated constants for obstacle avoidance
   private static final double IMMEDIATE_DANGER_THRESHOLD = 0.7;
   private static final double SAFE_SCORE_THRESHOLD = 0.3;
-  private static final int PREDICTION_STEPS = 2;
 
   // Constants for static obstacle and boundary handling
   private static final double BOUNDARY_DANGER_WEIGHT = 1.5; // Boundaries are very dangerous
@@ -75,29 +66,6 @@ public class RandomMovement implements MovementStrategy {
   private final Map<String, Integer> stuckCounter = new ConcurrentHashMap<>();
   private final Map<String, Long> pathStartTimes = new ConcurrentHashMap<>();
 
-  // Add ZoneInfo class
-  private static class ZoneInfo {
-    int visits = 0;
-    long lastVisitTime = 0;
-    double explorationScore = 1.0;
-
-    void visit() {
-      visits++;
-      lastVisitTime = System.currentTimeMillis();
-      explorationScore =
-        Math.max(0.2, 1.0 - (visits / (double) MAX_ZONE_VISITS));
-    }
-
-    void decay() {
-      // Gradually increase exploration score for zones not visited recently
-      long timeSinceVisit = System.currentTimeMillis() - lastVisitTime;
-      if (timeSinceVisit > 30000) { // 30 seconds
-        explorationScore = Math.min(1.0, explorationScore + 0.1);
-        visits = Math.max(0, visits - 1);
-      }
-    }
-  }
-
   // Add these constants for improved collision handling
   private static final int COLLISION_MEMORY_SIZE = 5;
   private static final int STUCK_THRESHOLD = 3;
@@ -109,6 +77,7 @@ public class RandomMovement implements MovementStrategy {
   private static final double BOUNDARY_ESCAPE_CHANCE = 0.8;
 
   private static final double AGENT_AVOIDANCE_WEIGHT = 0.4;
+  private static final double PREDICTED_OCCUPANCY_LIMIT = 0.5; // Above, skip the move
   private static final int AGENT_CRITICAL_DISTANCE = 1; // Direct adjacency
   private static final int AGENT_AWARENESS_DISTANCE = 3; // Awareness radius
 
@@ -163,6 +132,8 @@ public class RandomMovement implements MovementStrategy {
         );
         return getDefaultDirection();
       }
+      availableDirections =
+        avoidPredictedAgents(map, currentPos, availableDirections);
 
       // Handle collision resolution
       try {
@@ -210,35 +181,29 @@ public class RandomMovement implements MovementStrategy {
 
   private List<String> getAvailableDirections(LocalMap map, Point currentPos) {
     try {
-      List<String> directions = new ArrayList<>();
-      String[] dirs = { "n", "s", "e", "w" };
-
-      for (String dir : dirs) {
-        Point nextPos = calculateNextPosition(currentPos, dir);
-        if (isValidPosition(nextPos, map)) {
-          directions.add(dir);
-        }
-      }
-
-      return directions;
+      if (map == null || currentPos == null) return new ArrayList<>();
+      return Footprint.available(map, currentPos);
     } catch (Exception e) {
       logger.warning("Error getting available directions: " + e.getMessage());
       return Arrays.asList("n", "s", "e", "w"); // Return all directions as fallback
     }
   }
 
-  private boolean isValidPosition(Point pos, LocalMap map) {
-    try {
-      return (
-        pos != null &&
-        map != null &&
-        !map.hasObstacle(pos) &&
-        !map.isOutOfBounds(pos)
-      );
-    } catch (Exception e) {
-      logger.warning("Error checking position validity: " + e.getMessage());
-      return false;
+  // Drops moves into cells other agents are likely to enter, unless that
+  // would leave nothing
+  private List<String> avoidPredictedAgents(
+    LocalMap map,
+    Point currentPos,
+    List<String> availableDirections
+  ) {
+    List<String> safe = new ArrayList<>(availableDirections.size());
+    for (String dir : availableDirections) {
+      Point nextPos = calculateNextPosition(currentPos, dir);
+      if (map.getPredictedOccupancy(nextPos, 1) < PREDICTED_OCCUPANCY_LIMIT) {
+        safe.add(dir);
+      }
     }
+    return safe.isEmpty() ? availableDirections : safe;
   }
 
   private void handleCollisionResolution(
@@ -328,159 +293,8 @@ public class RandomMovement implements MovementStrategy {
     }
   }
 
-  private double evaluatePosition(Point targetPos, LocalMap map) {
-    double score = 1.0;
-
-    // Consider open spaces
-    int openSpaces = countAdjacentOpenSpaces(targetPos, map);
-    score *= (1.0 + (openSpaces / 8.0));
-
-    // Consider distance to boundaries
-    Map<String, Point> boundaries = map.getConfirmedBoundariesPositions();
-    if (!boundaries.isEmpty()) {
-      double minBoundaryDistance = Double.MAX_VALUE;
-      for (Map.Entry<String, Point> entry : boundaries.entrySet()) {
-        Point boundaryPoint = entry.getValue();
-        double distance;
-
-        switch (entry.getKey()) {
-          case "n":
-          case "s":
-            distance = Math.abs(targetPos.y - boundaryPoint.y);
-            break;
-          case "e":
-          case "w":
-            distance = Math.abs(targetPos.x - boundaryPoint.x);
-            break;
-          default:
-            continue;
-        }
-        minBoundaryDistance = Math.min(minBoundaryDistance, distance);
-      }
-
-      // Apply boundary distance penalty
-      if (minBoundaryDistance < AWARENESS_ZONE) {
-        score *= (minBoundaryDistance / AWARENESS_ZONE);
-      }
-    }
-
-    return score;
-  }
-
-  private int countAdjacentOpenSpaces(Point pos, LocalMap map) {
-    int count = 0;
-    for (int dx = -1; dx <= 1; dx++) {
-      for (int dy = -1; dy <= 1; dy++) {
-        if (dx == 0 && dy == 0) continue;
-        Point checkPos = new Point(pos.x + dx, pos.y + dy);
-        if (!map.hasObstacle(checkPos) && !map.isOutOfBounds(checkPos)) {
-          count++;
-        }
-      }
-    }
-    return count;
-  }
-
-  private String selectBestDirection(
-    Map<String, Double> scores,
-    List<String> availableDirections
-  ) {
-    if (scores.isEmpty()) {
-      return getRandomDirection(availableDirections);
-    }
-
-    return scores
-      .entrySet()
-      .stream()
-      .max(Map.Entry.comparingByValue())
-      .map(Map.Entry::getKey)
-      .orElseGet(() -> getRandomDirection(availableDirections));
-  }
-
-  private Point calculateTargetPosition(Point current, String direction) {
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
-  }
-
   private Point calculateNextPosition(Point current, String direction) {
-    if (direction == null) return current;
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
-  }
-
-  private double getObstacleAvoidanceScore(
-    String agName,
-    LocalMap map,
-    Point currentPos,
-    Point targetPos
-  ) {
-    double score = 1.0;
-
-    // Check if path is safe using LocalMap's improved path checking
-    if (!map.isPathSafe(currentPos, targetPos)) {
-      return 0.0; // Immediate danger
-    }
-
-    // Get dynamic obstacles and their predicted positions
-    Map<Point, ObstacleInfo> dynamicObstacles = map.getDynamicObstacles();
-
-    if (!dynamicObstacles.isEmpty()) {
-      double minDanger = 1.0;
-
-      for (ObstacleInfo obstacle : dynamicObstacles.values()) {
-        // Check current and predicted positions
-        for (int step = 0; step <= PREDICTION_STEPS; step++) {
-          Point predictedPos = obstacle.predictPosition(step);
-          double distance = euclideanDistance(targetPos, predictedPos);
-
-          // Calculate danger based on distance and prediction step
-          double stepDanger = calculateStepDanger(distance, step);
-          minDanger = Math.min(minDanger, stepDanger);
-        }
-      }
-
-      score *= minDanger;
-    }
-
-    return score;
-  }
-
-  private double calculateStepDanger(double distance, int predictionStep) {
-    if (distance <= LocalMap.CRITICAL_DISTANCE) {
-      return 0.0; // Maximum danger
-    }
-
-    if (distance >= LocalMap.AWARENESS_DISTANCE) {
-      return 1.0; // No danger
-    }
-
-    // Danger decreases with distance and prediction uncertainty
-    double baseDanger =
-      (distance - LocalMap.CRITICAL_DISTANCE) /
-      (LocalMap.AWARENESS_DISTANCE - LocalMap.CRITICAL_DISTANCE);
-
-    // Reduce danger impact for further future predictions
-    return baseDanger * (1.0 + predictionStep * 0.2);
+    return Direction.next(current, direction);
   }
 
   private double euclideanDistance(Point p1, Point p2) {
@@ -509,88 +323,6 @@ public class RandomMovement implements MovementStrategy {
     return availableDirections.get(random.nextInt(availableDirections.size()));
   }
 
-  private boolean isMovingTowardsBoundary(
-    Point current,
-    Point target,
-    String boundaryDir
-  ) {
-    switch (boundaryDir) {
-      case "n":
-        return target.y < current.y;
-      case "s":
-        return target.y > current.y;
-      case "e":
-        return target.x > current.x;
-      case "w":
-        return target.x < current.x;
-      default:
-        return false;
-    }
-  }
-
-  private double getDistanceToBoundary(
-    LocalMap map,
-    Point pos,
-    String direction
-  ) {
-    int distance = 0;
-    int x = pos.x;
-    int y = pos.y;
-
-    while (distance < AWARENESS_ZONE) {
-      switch (direction) {
-        case "n":
-          y--;
-          break;
-        case "s":
-          y++;
-          break;
-        case "e":
-          x++;
-          break;
-        case "w":
-          x--;
-          break;
-      }
-
-      Point checkPos = new Point(x, y);
-      if (map.isOutOfBounds(checkPos)) {
-        return distance;
-      }
-      distance++;
-    }
-    return AWARENESS_ZONE;
-  }
-
-  private Point getCurrentZone(Point position) {
-    return new Point(
-      (int) Math.floor(position.x / (double) ZONE_SIZE),
-      (int) Math.floor(position.y / (double) ZONE_SIZE)
-    );
-  }
-
-  private double getZoneScore(Point targetPos) {
-    Point zone = getCurrentZone(targetPos);
-    ZoneInfo info = zoneMemory.computeIfAbsent(zone, k -> new ZoneInfo());
-    info.decay();
-    return info.explorationScore;
-  }
-
-  private double calculateSafetyScore(Point targetPos, LocalMap map) {
-    Map<Point, ObstacleInfo> dynamicObstacles = map.getDynamicObstacles();
-
-    if (dynamicObstacles.isEmpty()) return 1.0;
-
-    double minDistance = Double.MAX_VALUE;
-    for (ObstacleInfo obstacle : dynamicObstacles.values()) {
-      Point obstaclePos = obstacle.getPosition();
-      double distance = euclideanDistance(targetPos, obstaclePos);
-      minDistance = Math.min(minDistance, distance);
-    }
-
-    return Math.min(1.0, minDistance / SAFETY_THRESHOLD);
-  }
-
   private String getParallelDirection(
     String boundaryDirection,
     List<String> availableDirections
@@ -598,19 +330,8 @@ public class RandomMovement implements MovementStrategy {
     if (boundaryDirection == null) return null;
 
     // Get directions parallel to the boundary
-    List<String> parallelDirs = new ArrayList<>();
-    switch (boundaryDirection) {
-      case "n":
-      case "s":
-        if (availableDirections.contains("e")) parallelDirs.add("e");
-        if (availableDirections.contains("w")) parallelDirs.add("w");
-        break;
-      case "e":
-      case "w":
-        if (availableDirections.contains("n")) parallelDirs.add("n");
-        if (availableDirections.contains("s")) parallelDirs.add("s");
-        break;
-    }
+    List<String> parallelDirs = Direction.perpendicular(boundaryDirection);
+    parallelDirs.retainAll(availableDirections);
 
     if (parallelDirs.isEmpty()) return null;
     return parallelDirs.get(random.nextInt(parallelDirs.size()));
@@ -626,20 +347,12 @@ public class RandomMovement implements MovementStrategy {
 
     for (Map.Entry<String, Point> entry : boundaries.entrySet()) {
       Point boundaryPos = entry.getValue();
-      int distance;
-
-      switch (entry.getKey()) {
-        case "n":
-        case "s":
-          distance = Math.abs(boundaryPos.y - currentPos.y);
-          break;
-        case "e":
-        case "w":
-          distance = Math.abs(boundaryPos.x - currentPos.x);
-          break;
-        default:
-          continue;
-      }
+      Direction boundaryDir = Direction.fromSymbol(entry.getKey());
+      if (boundaryDir == null) continue;
+
+      int distance = boundaryDir.isVertical()
+        ? Math.abs(boundaryPos.y - currentPos.y)
+        : Math.abs(boundaryPos.x - currentPos.x);
 
       if (distance < minDistance) {
         minDistance = distance;
@@ -757,57 +470,15 @@ public class RandomMovement implements MovementStrategy {
 
   // Move helper methods to main class
   private String getOppositeDirection(String direction) {
-    if (direction == null) return null;
-    switch (direction) {
-      case "n":
-        return "s";
-      case "s":
-        return "n";
-      case "e":
-        return "w";
-      case "w":
-        return "e";
-      default:
-        return null;
-    }
+    return Direction.opposite(direction);
   }
 
   private List<String> getParallelDirections(String boundaryDirection) {
-    List<String> parallel = new ArrayList<>();
-    if (boundaryDirection == null) return parallel;
-
-    switch (boundaryDirection) {
-      case "n":
-      case "s":
-        parallel.add("e");
-        parallel.add("w");
-        break;
-      case "e":
-      case "w":
-        parallel.add("n");
-        parallel.add("s");
-        break;
-    }
-    return parallel;
+    return Direction.perpendicular(boundaryDirection);
   }
 
   private List<String> getPerpendicularDirections(String direction) {
-    List<String> perpendicular = new ArrayList<>();
-    if (direction == null) return perpendicular;
-
-    switch (direction) {
-      case "n":
-      case "s":
-        perpendicular.add("e");
-        perpendicular.add("w");
-        break;
-      case "e":
-      case "w":
-        perpendicular.add("n");
-        perpendicular.add("s");
-        break;
-    }
-    return perpendicular;
+    return Direction.perpendicular(direction);
   }
 
   private boolean isPathTimeout(String agName) {
@@ -2,8 +2,10 @@ package jason.eis.movements;
 
 import jason.eis.LocalMap;
 import jason.eis.Point;
+import jason.eis.metrics.PathSearchEvent;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 public class Search {
@@ -16,20 +18,22 @@ public class Search {
   private static final int NEARBY_ITERATIONS = 15;
   private static final int MINIMUM_PROGRESS = 5;
 
+  // Anytime search: weighted A* passes with decreasing inflation factor
+  private static final double[] ANYTIME_EPSILONS = { 3.0, 2.0, 1.5, 1.25, 1.0 };
+  private static final int ANYTIME_MAX_EXPANSIONS = 20000; // Hard cap per pass
+  private static final int DEADLINE_CHECK_INTERVAL = 64; // Expansions between clock reads
+
+  // Nodes expanded by the current findPath call on this thread, for profiling
+  private static final ThreadLocal<int[]> EXPANSIONS = ThreadLocal.withInitial(
+    () -> new int[1]
+  );
+
   // Existing constants
   private static final String[] DIRECTIONS = { "n", "e", "s", "w" };
-  private static final Map<String, Point> DIRECTION_VECTORS = new HashMap<>();
   private final ObstacleManager obstacleManager;
   private static final double PROGRESS_WEIGHT = 0.8; // Weight for progress towards target
   private static final double CLEARANCE_WEIGHT = 0.2; // Weight for clear space
 
-  static {
-    DIRECTION_VECTORS.put("n", new Point(0, -1));
-    DIRECTION_VECTORS.put("e", new Point(1, 0));
-    DIRECTION_VECTORS.put("s", new Point(0, 1));
-    DIRECTION_VECTORS.put("w", new Point(-1, 0));
-  }
-
   public enum TargetType {
     DISPENSER,
     BLOCK,
@@ -70,6 +74,51 @@ public class Search {
     int agentSize,
     String blockDirection,
     PathRecomputeReason reason
+  ) {
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    EXPANSIONS.get()[0] = 0;
+    PathResult result = null;
+    try {
+      result =
+        findPathUntraced(
+          start,
+          target,
+          map,
+          targetType,
+          agentSize,
+          blockDirection,
+          reason
+        );
+      return result;
+    } finally {
+      commitSearchEvent(event, reason != null ? reason.name() : null, result);
+    }
+  }
+
+  private void commitSearchEvent(
+    PathSearchEvent event,
+    String reason,
+    PathResult result
+  ) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.reason = reason;
+      event.expansions = EXPANSIONS.get()[0];
+      event.pathLength = result != null ? result.directions.size() : 0;
+      event.success = result != null && result.success;
+      event.commit();
+    }
+  }
+
+  private PathResult findPathUntraced(
+    Point start,
+    Point target,
+    LocalMap map,
+    TargetType targetType,
+    int agentSize,
+    String blockDirection,
+    PathRecomputeReason reason
   ) {
     try {
       if (!validateInputs(start, target, map, targetType, agentSize)) {
@@ -147,6 +196,208 @@ public class Search {
     }
   }
 
+  /**
+   * Anytime variant of findPath. Runs weighted A* with a decreasing
+   * inflation factor (3.0 down to 1.0) until the budget runs out, pruning
+   * every pass with the cost of the best path found so far. Each strictly
+   * shorter path is passed to onImprovement (may be null) as soon as it is
+   * found. If no complete path fits in the budget, returns a partial path
+   * towards the node that got closest to the target.
+   */
+  public PathResult findPathAnytime(
+    Point start,
+    Point target,
+    LocalMap map,
+    TargetType targetType,
+    int agentSize,
+    String blockDirection,
+    long budgetNanos,
+    Consumer<PathResult> onImprovement
+  ) {
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    EXPANSIONS.get()[0] = 0;
+    PathResult result = null;
+    try {
+      result =
+        findPathAnytimeUntraced(
+          start,
+          target,
+          map,
+          targetType,
+          agentSize,
+          blockDirection,
+          budgetNanos,
+          onImprovement
+        );
+      return result;
+    } finally {
+      commitSearchEvent(event, "ANYTIME", result);
+    }
+  }
+
+  private PathResult findPathAnytimeUntraced(
+    Point start,
+    Point target,
+    LocalMap map,
+    TargetType targetType,
+    int agentSize,
+    String blockDirection,
+    long budgetNanos,
+    Consumer<PathResult> onImprovement
+  ) {
+    try {
+      if (!validateInputs(start, target, map, targetType, agentSize)) {
+        return null;
+      }
+
+      long deadline = System.nanoTime() + Math.max(0, budgetNanos);
+      AnytimeState state = new AnytimeState(start, target);
+
+      for (double epsilon : ANYTIME_EPSILONS) {
+        if (isOutOfTime(deadline)) break;
+
+        SearchNode goal = weightedAStar(
+          start,
+          target,
+          map,
+          agentSize,
+          blockDirection,
+          epsilon,
+          deadline,
+          state
+        );
+        if (goal != null && goal.gScore < state.bestCost) {
+          state.bestCost = goal.gScore;
+          state.bestPath = reconstructPath(goal);
+          debug(
+            "Anytime pass eps=%.2f found path of length %d",
+            epsilon,
+            state.bestPath.directions.size()
+          );
+          if (onImprovement != null) onImprovement.accept(state.bestPath);
+        }
+
+        // A complete pass at epsilon 1 is optimal, nothing left to improve
+        if (goal != null && epsilon == 1.0) break;
+      }
+
+      if (state.bestPath != null) {
+        return state.bestPath;
+      }
+
+      // Out of time without reaching the target, head towards the closest node
+      if (state.closestNode != null && state.closestNode.parent != null) {
+        PathResult partial = reconstructPath(state.closestNode);
+        if (onImprovement != null) onImprovement.accept(partial);
+        return partial;
+      }
+
+      return null;
+    } catch (Exception e) {
+      logger.warning(
+        String.format(
+          "Error in anytime path finding: %s. Start: %s, Target: %s",
+          e.getMessage(),
+          start,
+          target
+        )
+      );
+      return null;
+    }
+  }
+
+  private static class AnytimeState {
+    double bestCost = Double.POSITIVE_INFINITY;
+    PathResult bestPath = null;
+    SearchNode closestNode = null;
+    double closestDistance;
+
+    AnytimeState(Point start, Point target) {
+      this.closestDistance =
+        Math.abs(start.x - target.x) + Math.abs(start.y - target.y);
+    }
+  }
+
+  private SearchNode weightedAStar(
+    Point start,
+    Point target,
+    LocalMap map,
+    int agentSize,
+    String blockDirection,
+    double epsilon,
+    long deadline,
+    AnytimeState state
+  ) {
+    Queue<SearchNode> open = new PriorityQueue<>(
+      Comparator.comparingDouble(n -> n.fScore)
+    );
+    Map<Point, Double> bestG = new HashMap<>();
+
+    open.offer(
+      new SearchNode(
+        start,
+        null,
+        0,
+        epsilon * getManhattanDistance(start, target)
+      )
+    );
+    bestG.put(start, 0.0);
+
+    int expansions = 0;
+    while (!open.isEmpty() && expansions < ANYTIME_MAX_EXPANSIONS) {
+      if (
+        expansions % DEADLINE_CHECK_INTERVAL == 0 && isOutOfTime(deadline)
+      ) {
+        return null;
+      }
+
+      SearchNode current = open.poll();
+      if (current.gScore > bestG.getOrDefault(current.position, current.gScore)) {
+        continue; // Stale queue entry
+      }
+
+      if (current.position.equals(target)) {
+        return current;
+      }
+      expansions++;
+      EXPANSIONS.get()[0]++;
+
+      double h = getManhattanDistance(current.position, target);
+      if (h < state.closestDistance) {
+        state.closestDistance = h;
+        state.closestNode = current;
+      }
+
+      for (String dir : DIRECTIONS) {
+        Point next = getNextPoint(current.position, dir);
+        double newG = current.gScore + 1;
+        double nextH = getManhattanDistance(next, target);
+
+        // Admissible bound: can't beat the incumbent through this node
+        if (newG + nextH >= state.bestCost) continue;
+        if (newG >= bestG.getOrDefault(next, Double.POSITIVE_INFINITY)) {
+          continue;
+        }
+        if (
+          !isValidMove(current.position, dir, map, agentSize, blockDirection)
+        ) continue;
+
+        bestG.put(next, newG);
+        open.offer(
+          new SearchNode(next, current, newG, newG + epsilon * nextH, dir)
+        );
+      }
+    }
+    return null;
+  }
+
+  private boolean isOutOfTime(long deadline) {
+    return (
+      System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()
+    );
+  }
+
   private boolean validateInputs(
     Point start,
     Point target,
@@ -272,6 +523,7 @@ public class Search {
 
       // Update best partial path if this is better
       updateBestPartialPath(current, target, state);
+      EXPANSIONS.get()[0]++;
 
       // Try all possible directions
       for (String dir : DIRECTIONS) {
@@ -427,9 +679,7 @@ public class Search {
   }
 
   private Point getNextPoint(Point current, String direction) {
-    Point vector = DIRECTION_VECTORS.get(direction);
-    if (vector == null) return current;
-    return new Point(current.x + vector.x, current.y + vector.y);
+    return Direction.next(current, direction);
   }
 
   private int countClearDirections(Point pos, LocalMap map) {
@@ -670,6 +920,7 @@ public class Search {
         visited.add(current.position);
 
         updateBestPartialPath(current, target, state);
+        EXPANSIONS.get()[0]++;
 
         for (String dir : DIRECTIONS) {
           try {
@@ -0,0 +1,163 @@
+package jason.eis.movements;
+
+import jason.eis.LocalMap;
+import jason.eis.Point;
+import jason.eis.WorldExtent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Step distances to the nearest of a set of targets over one map, from a
+ * breadth-first search started at all targets at once. Every path towards
+ * those targets on that map, from any cell of the field, is read off the
+ * one search instead of searching per request.
+ *
+ * Moves are valid as in Search: into any cell that is neither forbidden nor
+ * an obstacle, at cost 1, so distances equal what A* with epsilon 1 finds.
+ * The field covers range cells around each of its centers, clipped to the
+ * known world extent; targets outside are ignored.
+ */
+final class TargetField {
+  private static final int UNREACHED = -1;
+
+  private final LocalMap map;
+  private final Search.TargetType targetType;
+  private final int minX;
+  private final int minY;
+  private final int width;
+  private final int height;
+  private final int[] distance;
+
+  private TargetField(
+    LocalMap map,
+    Search.TargetType targetType,
+    int minX,
+    int minY,
+    int maxX,
+    int maxY
+  ) {
+    this.map = map;
+    this.targetType = targetType;
+    this.minX = minX;
+    this.minY = minY;
+    this.width = Math.max(0, maxX - minX + 1);
+    this.height = Math.max(0, maxY - minY + 1);
+    this.distance = new int[width * height];
+    Arrays.fill(distance, UNREACHED);
+  }
+
+  static TargetField build(
+    LocalMap map,
+    Search.TargetType targetType,
+    Collection<Point> targets,
+    Collection<Point> centers,
+    int range
+  ) {
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    for (Point center : centers) {
+      minX = Math.min(minX, center.x - range);
+      minY = Math.min(minY, center.y - range);
+      maxX = Math.max(maxX, center.x + range);
+      maxY = Math.max(maxY, center.y + range);
+    }
+    WorldExtent extent = map.getWorldExtent();
+    TargetField field = new TargetField(
+      map,
+      targetType,
+      Math.max(minX, extent.minX),
+      Math.max(minY, extent.minY),
+      Math.min(maxX, extent.maxX),
+      Math.min(maxY, extent.maxY)
+    );
+    field.flood(targets);
+    return field;
+  }
+
+  private void flood(Collection<Point> targets) {
+    int[] queue = new int[distance.length];
+    int head = 0;
+    int tail = 0;
+    for (Point target : targets) {
+      int index = indexOf(target.x, target.y);
+      if (index < 0 || distance[index] == 0 || !isFree(target)) continue;
+      distance[index] = 0;
+      queue[tail++] = index;
+    }
+
+    while (head < tail) {
+      int index = queue[head++];
+      int x = minX + index % width;
+      int y = minY + index / width;
+      int next = distance[index] + 1;
+      // Cells are entered from their neighbours, so a cell is expanded
+      // only if it can be moved into; a start itself need not be
+      if (distance[index] > 0 && !isFree(new Point(x, y))) continue;
+      for (Direction dir : Direction.all()) {
+        int neighbour = indexOf(x + dir.dx, y + dir.dy);
+        if (neighbour < 0 || distance[neighbour] != UNREACHED) continue;
+        distance[neighbour] = next;
+        queue[tail++] = neighbour;
+      }
+    }
+  }
+
+  LocalMap map() {
+    return map;
+  }
+
+  Search.TargetType targetType() {
+    return targetType;
+  }
+
+  /**
+   * Shortest path from start to the nearest target, or null if no target is
+   * reachable inside the field or the start is a target itself.
+   */
+  Search.PathResult pathFrom(Point start) {
+    int index = indexOf(start.x, start.y);
+    if (index < 0 || distance[index] <= 0) return null;
+
+    int remaining = distance[index];
+    List<String> directions = new ArrayList<>(remaining);
+    List<Point> points = new ArrayList<>(remaining);
+    int x = start.x;
+    int y = start.y;
+    while (remaining > 0) {
+      Direction step = null;
+      // Same tie order as Search: n, e, s, w
+      for (Direction dir : Direction.all()) {
+        int neighbour = indexOf(x + dir.dx, y + dir.dy);
+        if (neighbour >= 0 && distance[neighbour] == remaining - 1) {
+          Point cell = new Point(x + dir.dx, y + dir.dy);
+          if (isFree(cell)) {
+            step = dir;
+            break;
+          }
+        }
+      }
+      if (step == null) return null; // Cannot happen on an unchanged map
+      x += step.dx;
+      y += step.dy;
+      directions.add(step.symbol);
+      points.add(new Point(x, y));
+      remaining--;
+    }
+    return new Search.PathResult(directions, points, true);
+  }
+
+  private boolean isFree(Point cell) {
+    return !map.isForbidden(cell) && !map.hasObstacle(cell);
+  }
+
+  private int indexOf(int x, int y) {
+    int col = x - minX;
+    int row = y - minY;
+    if (col < 0 || row < 0 || col >= width || row >= height) return -1;
+    return row * width + col;
+  }
+}
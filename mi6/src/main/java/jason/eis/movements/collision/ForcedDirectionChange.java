@@ -2,7 +2,10 @@ package jason.eis.movements.collision;
 
 import jason.eis.LocalMap;
 import jason.eis.Point;
+import jason.eis.movements.Direction;
+import jason.eis.movements.collision.data.MoveHistory;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Logger;
 
 public class ForcedDirectionChange {
@@ -23,14 +26,16 @@ public class ForcedDirectionChange {
     List<String> availableDirections
   ) {
     try {
-      String lastDirection = map.getLastDirection();
-      if (lastDirection == null) {
+      MoveHistory history = map.getMoveHistory();
+      Direction last = history.lastDirection();
+      if (last == null) {
         return null;
       }
+      String lastDirection = last.symbol;
 
       // Check if we should start forced direction change
       if (
-        map.getSameDirectionCount() >= DIRECTION_CHANGE_THRESHOLD &&
+        history.sameDirectionRun() >= DIRECTION_CHANGE_THRESHOLD &&
         !map.isWatchingForcedChange()
       ) {
         debug("Starting forced direction change for agent %s", agentId);
@@ -59,7 +64,7 @@ public class ForcedDirectionChange {
 
         if (!untried.isEmpty()) {
           String newDirection = untried.get(
-            new Random().nextInt(untried.size())
+            ThreadLocalRandom.current().nextInt(untried.size())
           );
           debug("Trying new direction %s for forced change", newDirection);
           map.incrementForcedDirectionTry(newDirection);
@@ -80,19 +85,7 @@ public class ForcedDirectionChange {
   }
 
   private String getOppositeDirection(String direction) {
-    if (direction == null) return null;
-    switch (direction) {
-      case "n":
-        return "s";
-      case "s":
-        return "n";
-      case "e":
-        return "w";
-      case "w":
-        return "e";
-      default:
-        return null;
-    }
+    return Direction.opposite(direction);
   }
 
   private void debug(String format, Object... args) {
@@ -4,18 +4,12 @@ import jason.eis.Point;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+// Move history is kept once per agent, in LocalMap's MoveHistory
 public class BaseCollisionState {
-  // Movement history constants
-  public static final int MOVEMENT_HISTORY_SIZE = 9;
-  private static final int MEMORY_SIZE = 5;
-
-  // Core movement tracking
-  private final Map<String, Deque<MovementRecord>> movementHistory = new ConcurrentHashMap<>();
   private final Map<String, Integer> agentSizes = new ConcurrentHashMap<>();
   private final Map<String, String> blockAttachments = new ConcurrentHashMap<>();
 
   // Agent state tracking
-  private final Map<String, Deque<String>> lastMoves = new ConcurrentHashMap<>();
   private final Map<String, Point> lastPositions = new ConcurrentHashMap<>();
   private final Map<String, String> lastRecommendedDirections = new ConcurrentHashMap<>();
 
@@ -29,26 +23,6 @@ public class BaseCollisionState {
     Point position,
     String intendedDirection
   ) {
-    // Record movement history
-    Deque<MovementRecord> history = movementHistory.computeIfAbsent(
-      agentId,
-      k -> new LinkedList<>()
-    );
-    history.addFirst(new MovementRecord(position, intendedDirection));
-    if (history.size() > MOVEMENT_HISTORY_SIZE) {
-      history.removeLast();
-    }
-
-    // Update last moves
-    Deque<String> moves = lastMoves.computeIfAbsent(
-      agentId,
-      k -> new ArrayDeque<>(MEMORY_SIZE)
-    );
-    if (moves.size() >= MEMORY_SIZE) {
-      moves.removeLast();
-    }
-    moves.addFirst(intendedDirection);
-
     // Update position
     lastPositions.put(agentId, position);
     lastRecommendedDirections.put(agentId, intendedDirection);
@@ -67,16 +41,6 @@ public class BaseCollisionState {
     }
   }
 
-  public List<MovementRecord> getMovementHistory(String agentId) {
-    Deque<MovementRecord> history = movementHistory.get(agentId);
-    return history != null ? new ArrayList<>(history) : new ArrayList<>();
-  }
-
-  public MovementRecord getLastMovement(String agentId) {
-    Deque<MovementRecord> history = movementHistory.get(agentId);
-    return history != null && !history.isEmpty() ? history.getFirst() : null;
-  }
-
   public int getAgentSize(String agentId) {
     return agentSizes.getOrDefault(agentId, 1);
   }
@@ -86,11 +50,6 @@ public class BaseCollisionState {
   }
 
   // Movement state getters
-  public String getLastDirection(String agentId) {
-    Deque<String> moves = lastMoves.get(agentId);
-    return moves != null && !moves.isEmpty() ? moves.getFirst() : null;
-  }
-
   public Point getLastPosition(String agentId) {
     return lastPositions.get(agentId);
   }
@@ -125,10 +84,8 @@ public class BaseCollisionState {
   }
 
   public void resetAgentState(String agentId) {
-    movementHistory.remove(agentId);
     agentSizes.remove(agentId);
     blockAttachments.remove(agentId);
-    lastMoves.remove(agentId);
     lastPositions.remove(agentId);
     lastRecommendedDirections.remove(agentId);
     boundaryAttempts.remove(agentId);
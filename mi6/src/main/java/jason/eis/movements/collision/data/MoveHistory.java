@@ -0,0 +1,158 @@
+package jason.eis.movements.collision.data;
+
+import jason.eis.Point;
+import jason.eis.movements.Direction;
+import java.util.Collection;
+
+/**
+ * An agent's last moves in a fixed ring of packed positions and direction
+ * bytes, with the state the collision handlers ask for kept up to date as
+ * each move is recorded: the run of moves in the same direction, the run of
+ * moves that left the agent where it was, and the last 32 directions packed
+ * two bits each into one long. Repeated 2, 3 and 4 move patterns are then a
+ * mask and compare on that long, so checking for oscillation is O(1) per
+ * move and allocates nothing.
+ *
+ * Ages count back from the newest move, which has age 0. Not thread safe;
+ * LocalMap records under its position lock and copies it into snapshots.
+ */
+public final class MoveHistory {
+  public static final int CAPACITY = 16; // Power of 2, see slot()
+  private static final int DIRECTION_BITS = 2;
+  private static final int PACKED_MOVES = Long.SIZE / DIRECTION_BITS;
+
+  private final long[] positions = new long[CAPACITY];
+  private final byte[] directions = new byte[CAPACITY];
+  private int head = 0; // Slot of the next move
+  private int size = 0;
+  private long count = 0; // Moves recorded, for the packed window
+
+  private long packedDirections = 0; // Newest in the low bits
+  private int sameDirectionRun = 0;
+  private int samePositionRun = 0;
+
+  public MoveHistory copy() {
+    MoveHistory copy = new MoveHistory();
+    System.arraycopy(positions, 0, copy.positions, 0, CAPACITY);
+    System.arraycopy(directions, 0, copy.directions, 0, CAPACITY);
+    copy.head = head;
+    copy.size = size;
+    copy.count = count;
+    copy.packedDirections = packedDirections;
+    copy.sameDirectionRun = sameDirectionRun;
+    copy.samePositionRun = samePositionRun;
+    return copy;
+  }
+
+  /** Records a move in direction that ended at position. */
+  public void record(Point position, Direction direction) {
+    long packed = pack(position);
+    if (size > 0) {
+      int newest = slot(0);
+      sameDirectionRun =
+        directions[newest] == direction.ordinal() ? sameDirectionRun + 1 : 1;
+      samePositionRun =
+        positions[newest] == packed ? samePositionRun + 1 : 1;
+    } else {
+      sameDirectionRun = 1;
+      samePositionRun = 1;
+    }
+
+    positions[head] = packed;
+    directions[head] = (byte) direction.ordinal();
+    head = (head + 1) & (CAPACITY - 1);
+    if (size < CAPACITY) size++;
+    count++;
+    packedDirections =
+      (packedDirections << DIRECTION_BITS) | direction.ordinal();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Position after the move of the given age, 0 being the newest. */
+  public Point positionAt(int age) {
+    long packed = positions[slot(age)];
+    return new Point((int) (packed >> 32), (int) packed);
+  }
+
+  public boolean wasAt(Point position, int age) {
+    return positions[slot(age)] == pack(position);
+  }
+
+  public Direction directionAt(int age) {
+    return Direction.ofOrdinal(directions[slot(age)]);
+  }
+
+  /** Newest direction, or null before the first move. */
+  public Direction lastDirection() {
+    return size > 0 ? directionAt(0) : null;
+  }
+
+  /** Moves in a row, up to the newest, in the newest move's direction. */
+  public int sameDirectionRun() {
+    return sameDirectionRun;
+  }
+
+  /** Moves in a row, up to the newest, that ended on the same position. */
+  public int samePositionRun() {
+    return samePositionRun;
+  }
+
+  /** Whether the two newest moves went back and forth. */
+  public boolean isBackAndForth() {
+    return size >= 2 && directionAt(0).opposite() == directionAt(1);
+  }
+
+  /**
+   * Whether the length moves starting at age first equal, in order, the
+   * length moves starting at age second. Both windows must lie within the
+   * last 32 moves.
+   */
+  public boolean sameMoves(int first, int second, int length) {
+    int oldest = Math.max(first, second) + length;
+    if (oldest > count || oldest > PACKED_MOVES) return false;
+    return window(first, length) == window(second, length);
+  }
+
+  /**
+   * Whether the newest period moves were done the given number of times in
+   * a row, e.g. repeats(2, 3) for ABABAB.
+   */
+  public boolean repeats(int period, int times) {
+    for (int i = 1; i < times; i++) {
+      if (!sameMoves(0, i * period, period)) return false;
+    }
+    return true;
+  }
+
+  /** Adds the directions of the length moves starting at age to out. */
+  public void addSymbols(int age, int length, Collection<String> out) {
+    for (int i = age; i < age + length && i < size; i++) {
+      out.add(directionAt(i).symbol);
+    }
+  }
+
+  private long window(int age, int length) {
+    long mask = (1L << (length * DIRECTION_BITS)) - 1;
+    return (packedDirections >>> (age * DIRECTION_BITS)) & mask;
+  }
+
+  private int slot(int age) {
+    if (age < 0 || age >= size) {
+      throw new IndexOutOfBoundsException(
+        "Move age " + age + " of " + size + " moves"
+      );
+    }
+    return (head - 1 - age) & (CAPACITY - 1);
+  }
+
+  private static long pack(Point position) {
+    return ((long) position.x << 32) | (position.y & 0xFFFFFFFFL);
+  }
+}
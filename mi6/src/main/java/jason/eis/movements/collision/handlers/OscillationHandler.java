@@ -3,7 +3,11 @@ package jason.eis.movements.collision.handlers;
 import jason.eis.LocalMap;
 import jason.eis.LocalMap.ObstacleInfo;
 import jason.eis.Point;
+import jason.eis.logging.AsyncLog;
+import jason.eis.logging.SubsystemLog;
+import jason.eis.movements.Direction;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -11,47 +15,46 @@ public class OscillationHandler {
   private static final Logger logger = Logger.getLogger(
     OscillationHandler.class.getName()
   );
-  private static final boolean DEBUG = true;
+  private static final SubsystemLog log = AsyncLog.forSubsystem("collision");
   private static final int AGENT_PROXIMITY_RANGE = 1;
   private static final double DIRECTION_WEIGHT = 0.6;
   private static final double DISTANCE_WEIGHT = 0.4;
   private static final int YIELD_THRESHOLD = 3; // Number of oscillations before yielding
   private static final long YIELD_DURATION = 1000; // Time to yield in milliseconds
-  private final Random random = new Random();
-  private long lastYieldTime = 0;
-  private int oscillationCount = 0;
+
+  /** One agent's oscillation resolution state, kept in its MovementContext. */
+  public static final class State {
+    private long lastYieldTime = 0;
+    private int oscillationCount = 0;
+  }
 
   public String resolveOscillation(
     LocalMap localMap,
     Point currentPos,
     String intendedDirection,
     List<String> availableDirections,
-    String blockAttachment
+    String blockAttachment,
+    State state
   ) {
     try {
       if (localMap.isOscillating()) {
-        oscillationCount++;
+        state.oscillationCount++;
       } else {
-        oscillationCount = 0;
+        state.oscillationCount = 0;
       }
 
-      if (DEBUG) {
-        logger.info(
-          String.format(
-            "Checking oscillation at %s moving %s (count: %d)",
-            currentPos,
-            intendedDirection,
-            oscillationCount
-          )
-        );
-      }
+      log.debug(
+        "Checking oscillation at %s moving %s (count: %d)",
+        currentPos,
+        intendedDirection,
+        state.oscillationCount
+      );
 
       // Check if we're oscillating
       if (localMap.isOscillating()) {
         // Check for nearby agents
-        Map<Point, ObstacleInfo> dynamicObstacles = localMap.getDynamicObstacles();
-        boolean hasNearbyAgents = dynamicObstacles
-          .values()
+        boolean hasNearbyAgents = localMap
+          .getDynamicObstaclesInRange(currentPos, AGENT_PROXIMITY_RANGE)
           .stream()
           .anyMatch(
             obs ->
@@ -64,8 +67,9 @@ public class OscillationHandler {
             localMap,
             currentPos,
             availableDirections,
-            dynamicObstacles,
-            blockAttachment
+            localMap.getDynamicObstacles(),
+            blockAttachment,
+            state
           );
         } else {
           return resolveSimpleOscillation(
@@ -89,10 +93,11 @@ public class OscillationHandler {
     Point currentPos,
     List<String> availableDirections,
     Map<Point, ObstacleInfo> dynamicObstacles,
-    String blockAttachment
+    String blockAttachment,
+    State state
   ) {
     // Score directions based on agent positions and movement patterns
-    Map<String, Double> directionScores = new HashMap<>();
+    double[] directionScores = Direction.newScores();
 
     for (String direction : availableDirections) {
       Point nextPos = calculateNextPosition(currentPos, direction);
@@ -102,31 +107,25 @@ public class OscillationHandler {
         nextPos,
         direction,
         dynamicObstacles,
-        blockAttachment
+        blockAttachment,
+        state
       );
-      directionScores.put(direction, score);
+      Direction.setScore(directionScores, direction, score);
     }
 
-    // Filter out oscillating directions unless they're significantly better
-    Set<String> oscillatingDirs = localMap.getOscillatingDirections();
-    List<Map.Entry<String, Double>> sortedDirections = directionScores
-      .entrySet()
-      .stream()
-      .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-      .collect(Collectors.toList());
-
     // Try to find a non-oscillating direction with a good score
-    Optional<Map.Entry<String, Double>> bestNonOscillating = sortedDirections
-      .stream()
-      .filter(e -> !oscillatingDirs.contains(e.getKey()))
-      .findFirst();
-
-    if (bestNonOscillating.isPresent()) {
-      return bestNonOscillating.get().getKey();
+    Set<String> oscillatingDirs = localMap.getOscillatingDirections();
+    double[] nonOscillatingScores = directionScores.clone();
+    for (String oscillating : oscillatingDirs) {
+      Direction.setScore(nonOscillatingScores, oscillating, Double.NaN);
+    }
+    String bestNonOscillating = Direction.bestSymbol(nonOscillatingScores);
+    if (bestNonOscillating != null) {
+      return bestNonOscillating;
     }
 
     // If all directions are oscillating, pick the best scoring one
-    return sortedDirections.get(0).getKey();
+    return Direction.bestSymbol(directionScores);
   }
 
   private double calculateDirectionScore(
@@ -135,7 +134,8 @@ public class OscillationHandler {
     Point nextPos,
     String direction,
     Map<Point, ObstacleInfo> dynamicObstacles,
-    String blockAttachment
+    String blockAttachment,
+    State state
   ) {
     double score = 1.0;
 
@@ -188,7 +188,7 @@ public class OscillationHandler {
     }
 
     // Consider yielding behavior
-    if (shouldYield()) {
+    if (shouldYield(state)) {
       score *= 0.3; // Significant reduction in score to encourage waiting
     }
 
@@ -221,18 +221,18 @@ public class OscillationHandler {
     return count;
   }
 
-  private boolean shouldYield() {
+  private boolean shouldYield(State state) {
     long currentTime = System.currentTimeMillis();
 
     // Check if we're still in yield period
-    if (currentTime - lastYieldTime < YIELD_DURATION) {
+    if (currentTime - state.lastYieldTime < YIELD_DURATION) {
       return true;
     }
 
     // Start new yield if oscillation count exceeds threshold
-    if (oscillationCount >= YIELD_THRESHOLD) {
-      lastYieldTime = currentTime;
-      oscillationCount = 0;
+    if (state.oscillationCount >= YIELD_THRESHOLD) {
+      state.lastYieldTime = currentTime;
+      state.oscillationCount = 0;
       return true;
     }
 
@@ -262,26 +262,13 @@ public class OscillationHandler {
   }
 
   private double getPerpendicularAlignment(String direction, Vector2D vector) {
-    double dx = 0, dy = 0;
-    switch (direction) {
-      case "n":
-        dy = -1;
-        break;
-      case "s":
-        dy = 1;
-        break;
-      case "e":
-        dx = 1;
-        break;
-      case "w":
-        dx = -1;
-        break;
-    }
+    Direction d = Direction.fromSymbol(direction);
+    if (d == null) return 0;
 
     // Calculate dot product with perpendicular vector
     double perpX = -vector.y;
     double perpY = vector.x;
-    return Math.abs(dx * perpX + dy * perpY);
+    return Math.abs(d.dx * perpX + d.dy * perpY);
   }
 
   private String resolveSimpleOscillation(
@@ -305,7 +292,7 @@ public class OscillationHandler {
         .collect(Collectors.toList());
 
       if (!perpDirs.isEmpty()) {
-        return perpDirs.get(random.nextInt(perpDirs.size()));
+        return perpDirs.get(random().nextInt(perpDirs.size()));
       }
     }
 
@@ -315,10 +302,16 @@ public class OscillationHandler {
       .collect(Collectors.toList());
 
     if (!validDirs.isEmpty()) {
-      return validDirs.get(random.nextInt(validDirs.size()));
+      return validDirs.get(random().nextInt(validDirs.size()));
     }
 
-    return availableDirections.get(random.nextInt(availableDirections.size()));
+    return availableDirections.get(
+      random().nextInt(availableDirections.size())
+    );
+  }
+
+  private static Random random() {
+    return ThreadLocalRandom.current();
   }
 
   // Helper class for vector calculations
@@ -337,18 +330,7 @@ public class OscillationHandler {
   }
 
   private Point calculateNextPosition(Point current, String direction) {
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
+    return Direction.next(current, direction);
   }
 
   private boolean isValidBlockMove(String direction, String blockAttachment) {
@@ -361,19 +343,7 @@ public class OscillationHandler {
     String direction,
     String blockAttachment
   ) {
-    List<String> perpDirs = new ArrayList<>();
-    switch (direction) {
-      case "n":
-      case "s":
-        perpDirs.add("e");
-        perpDirs.add("w");
-        break;
-      case "e":
-      case "w":
-        perpDirs.add("n");
-        perpDirs.add("s");
-        break;
-    }
+    List<String> perpDirs = Direction.perpendicular(direction);
 
     // If block attached, filter out conflicting directions
     if (blockAttachment != null) {
@@ -388,18 +358,6 @@ public class OscillationHandler {
   }
 
   private String getOppositeDirection(String direction) {
-    if (direction == null) return null;
-    switch (direction) {
-      case "n":
-        return "s";
-      case "s":
-        return "n";
-      case "e":
-        return "w";
-      case "w":
-        return "e";
-      default:
-        return null;
-    }
+    return Direction.opposite(direction);
   }
 }
@@ -1,19 +1,24 @@
 package jason.eis.movements.collision.handlers;
 
 import jason.eis.LocalMap;
-import jason.eis.LocalMap.MovementRecord;
 import jason.eis.LocalMap.ObstacleInfo;
 import jason.eis.Point;
+import jason.eis.movements.Direction;
+import jason.eis.movements.collision.data.MoveHistory;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class StuckHandler {
-  private final Random random = new Random();
   private static final int AGENT_PROXIMITY_RANGE = 1;
   private static final double DIRECTION_SCORE_THRESHOLD = 0.7;
   private static final int YIELD_THRESHOLD = 3;
   private static final long YIELD_DURATION = 1000;
-  private long lastYieldTime = 0;
-  private int stuckCount = 0;
+
+  /** One agent's stuck resolution state, kept in its MovementContext. */
+  public static final class State {
+    private long lastYieldTime = 0;
+    private int stuckCount = 0;
+  }
 
   private double getDistance(Point p1, Point p2) {
     return Math.sqrt(Math.pow(p2.x - p1.x, 2) + Math.pow(p2.y - p1.y, 2));
@@ -21,19 +26,8 @@ public class StuckHandler {
 
   // Helper method for direction opposites
   private boolean isOpposite(String dir1, String dir2) {
-    if (dir1 == null || dir2 == null) return false;
-    switch (dir1) {
-      case "n":
-        return dir2.equals("s");
-      case "s":
-        return dir2.equals("n");
-      case "e":
-        return dir2.equals("w");
-      case "w":
-        return dir2.equals("e");
-      default:
-        return false;
-    }
+    Direction first = Direction.fromSymbol(dir1);
+    return first != null && first.opposite() == Direction.fromSymbol(dir2);
   }
 
   // Helper method for alternating patterns
@@ -49,23 +43,23 @@ public class StuckHandler {
   public String resolveStuck(
     String agentName,
     LocalMap map,
-    List<String> availableDirections
+    List<String> availableDirections,
+    State state
   ) {
     if (!map.isStuck()) {
-      stuckCount = 0;
+      state.stuckCount = 0;
       return null;
     }
 
-    stuckCount++;
+    state.stuckCount++;
     Point currentPos = map.getCurrentPosition();
     int agentSize = map.getAgentSize();
     String blockAttachment = map.getBlockAttachment();
     Set<String> triedDirections = map.getTriedDirections();
 
     // Check if there are nearby agents
-    Map<Point, ObstacleInfo> dynamicObstacles = map.getDynamicObstacles();
-    boolean hasNearbyAgents = dynamicObstacles
-      .values()
+    boolean hasNearbyAgents = map
+      .getDynamicObstaclesInRange(currentPos, AGENT_PROXIMITY_RANGE)
       .stream()
       .anyMatch(
         obs ->
@@ -78,7 +72,8 @@ public class StuckHandler {
         map,
         availableDirections,
         currentPos,
-        dynamicObstacles
+        map.getDynamicObstacles(),
+        state
       );
     } else if (agentSize > 1 || blockAttachment != null) {
       return resolveBlockStuck(map, availableDirections, blockAttachment);
@@ -98,7 +93,7 @@ public class StuckHandler {
     );
 
     if (!safeDirections.isEmpty()) {
-      return safeDirections.get(random.nextInt(safeDirections.size()));
+      return safeDirections.get(random().nextInt(safeDirections.size()));
     }
 
     List<String> rotationSafeDirections = getRotationSafeDirections(
@@ -109,13 +104,13 @@ public class StuckHandler {
 
     if (!rotationSafeDirections.isEmpty()) {
       return rotationSafeDirections.get(
-        random.nextInt(rotationSafeDirections.size())
+        random().nextInt(rotationSafeDirections.size())
       );
     }
 
     if (!availableDirections.isEmpty()) {
       return availableDirections.get(
-        random.nextInt(availableDirections.size())
+        random().nextInt(availableDirections.size())
       );
     }
 
@@ -178,81 +173,41 @@ public class StuckHandler {
   private boolean isParallelToAttachment(String direction, String attachment) {
     if (attachment == null) return true;
 
-    switch (attachment) {
-      case "n":
-      case "s":
-        return direction.equals("n") || direction.equals("s");
-      case "e":
-      case "w":
-        return direction.equals("e") || direction.equals("w");
-      default:
-        return false;
-    }
+    Direction attached = Direction.fromSymbol(attachment);
+    Direction move = Direction.fromSymbol(direction);
+    return (
+      attached != null &&
+      move != null &&
+      move.isVertical() == attached.isVertical()
+    );
   }
 
   private List<String> getPerpendicularDirections(
     String lastDir,
     List<String> availableDirections
   ) {
-    if (lastDir == null) return new ArrayList<>();
-
-    List<String> perpendicular = new ArrayList<>();
-
-    switch (lastDir) {
-      case "n":
-      case "s":
-        if (availableDirections.contains("e")) perpendicular.add("e");
-        if (availableDirections.contains("w")) perpendicular.add("w");
-        break;
-      case "e":
-      case "w":
-        if (availableDirections.contains("n")) perpendicular.add("n");
-        if (availableDirections.contains("s")) perpendicular.add("s");
-        break;
-    }
-
+    List<String> perpendicular = Direction.perpendicular(lastDir);
+    perpendicular.retainAll(availableDirections);
     return perpendicular;
   }
 
   private String getOppositeDirection(String direction) {
-    if (direction == null) return null;
-    switch (direction) {
-      case "n":
-        return "s";
-      case "s":
-        return "n";
-      case "e":
-        return "w";
-      case "w":
-        return "e";
-      default:
-        return null;
-    }
+    return Direction.opposite(direction);
   }
 
   private Point calculateNextPosition(Point current, String direction) {
-    switch (direction) {
-      case "n":
-        return new Point(current.x, current.y - 1);
-      case "s":
-        return new Point(current.x, current.y + 1);
-      case "e":
-        return new Point(current.x + 1, current.y);
-      case "w":
-        return new Point(current.x - 1, current.y);
-      default:
-        return current;
-    }
+    return Direction.next(current, direction);
   }
 
   private String resolveAgentStuck(
     LocalMap map,
     List<String> availableDirections,
     Point currentPos,
-    Map<Point, ObstacleInfo> dynamicObstacles
+    Map<Point, ObstacleInfo> dynamicObstacles,
+    State state
   ) {
     // Score each available direction based on multiple factors
-    Map<String, Double> directionScores = new HashMap<>();
+    double[] directionScores = Direction.newScores();
 
     for (String direction : availableDirections) {
       Point nextPos = calculateNextPosition(currentPos, direction);
@@ -261,20 +216,19 @@ public class StuckHandler {
         currentPos,
         nextPos,
         direction,
-        dynamicObstacles
+        dynamicObstacles,
+        state
       );
-      directionScores.put(direction, score);
+      Direction.setScore(directionScores, direction, score);
     }
 
-    // Get the best direction that exceeds our threshold
-    Optional<Map.Entry<String, Double>> bestDirection = directionScores
-      .entrySet()
-      .stream()
-      .filter(e -> e.getValue() >= DIRECTION_SCORE_THRESHOLD)
-      .max(Map.Entry.comparingByValue());
-
-    if (bestDirection.isPresent()) {
-      return bestDirection.get().getKey();
+    // Take the best direction if it exceeds our threshold
+    Direction bestDirection = Direction.best(directionScores);
+    if (
+      bestDirection != null &&
+      directionScores[bestDirection.ordinal()] >= DIRECTION_SCORE_THRESHOLD
+    ) {
+      return bestDirection.symbol;
     }
 
     // If no good direction found, try perpendicular to last movement
@@ -283,12 +237,12 @@ public class StuckHandler {
       availableDirections
     );
     if (!perpendicularDirs.isEmpty()) {
-      return perpendicularDirs.get(random.nextInt(perpendicularDirs.size()));
+      return perpendicularDirs.get(random().nextInt(perpendicularDirs.size()));
     }
 
     // Last resort: random available direction
     return !availableDirections.isEmpty()
-      ? availableDirections.get(random.nextInt(availableDirections.size()))
+      ? availableDirections.get(random().nextInt(availableDirections.size()))
       : null;
   }
 
@@ -312,11 +266,11 @@ public class StuckHandler {
     List<String> untriedDirs = new ArrayList<>(availableDirections);
     untriedDirs.removeAll(triedDirections);
     if (!untriedDirs.isEmpty()) {
-      return untriedDirs.get(random.nextInt(untriedDirs.size()));
+      return untriedDirs.get(random().nextInt(untriedDirs.size()));
     }
 
     return !availableDirections.isEmpty()
-      ? availableDirections.get(random.nextInt(availableDirections.size()))
+      ? availableDirections.get(random().nextInt(availableDirections.size()))
       : null;
   }
 
@@ -325,7 +279,8 @@ public class StuckHandler {
     Point currentPos,
     Point nextPos,
     String direction,
-    Map<Point, ObstacleInfo> dynamicObstacles
+    Map<Point, ObstacleInfo> dynamicObstacles,
+    State state
   ) {
     double score = 1.0;
 
@@ -363,19 +318,16 @@ public class StuckHandler {
     }
 
     // Enhanced history consideration
-    List<MovementRecord> history = map.getMovementHistory();
-    if (!history.isEmpty()) {
-      // Avoid recent positions more strongly
-      for (int i = 0; i < Math.min(3, history.size()); i++) {
-        Point histPos = history.get(i).position;
-        if (nextPos.equals(histPos)) {
-          score *= 0.7; // Penalty for revisiting recent positions
-        }
+    MoveHistory history = map.getMoveHistory();
+    // Avoid recent positions more strongly
+    for (int i = 0; i < Math.min(3, history.size()); i++) {
+      if (history.wasAt(nextPos, i)) {
+        score *= 0.7; // Penalty for revisiting recent positions
       }
     }
 
     // Consider yielding behavior
-    if (shouldYield()) {
+    if (shouldYield(state)) {
       score *= 0.3;
     }
 
@@ -394,29 +346,26 @@ public class StuckHandler {
   }
 
   private boolean isPerpendicularDirection(String dir1, String dir2) {
-    if (dir1 == null || dir2 == null) return false;
-
-    return (
-      (dir1.equals("n") || dir1.equals("s")) &&
-      (dir2.equals("e") || dir2.equals("w")) ||
-      (dir1.equals("e") || dir1.equals("w")) &&
-      (dir2.equals("n") || dir2.equals("s"))
-    );
+    return Direction.arePerpendicular(dir1, dir2);
   }
 
-  private boolean shouldYield() {
+  private boolean shouldYield(State state) {
     long currentTime = System.currentTimeMillis();
-    if (currentTime - lastYieldTime < YIELD_DURATION) {
+    if (currentTime - state.lastYieldTime < YIELD_DURATION) {
       return true;
     }
-    if (stuckCount >= YIELD_THRESHOLD) {
-      lastYieldTime = currentTime;
-      stuckCount = 0;
+    if (state.stuckCount >= YIELD_THRESHOLD) {
+      state.lastYieldTime = currentTime;
+      state.stuckCount = 0;
       return true;
     }
     return false;
   }
 
+  private static Random random() {
+    return ThreadLocalRandom.current();
+  }
+
   private int countAgentsTowardsSamePoint(
     Point targetPoint,
     Map<Point, ObstacleInfo> dynamicObstacles
@@ -0,0 +1,19 @@
+package jason.eis.percepts;
+
+import java.util.List;
+
+/** lastAction, lastActionResult and lastActionParams of the previous step. */
+public record ActionResultPercept(
+  String action,
+  String result,
+  List<String> params
+) {
+  public boolean isSuccess() {
+    return "success".equals(result);
+  }
+
+  /** First parameter, e.g. the direction of a move, or null. */
+  public String firstParam() {
+    return params.isEmpty() ? null : params.get(0);
+  }
+}
@@ -0,0 +1,4 @@
+package jason.eis.percepts;
+
+/** attached(X, Y), relative to the agent. */
+public record AttachedPercept(int x, int y) {}
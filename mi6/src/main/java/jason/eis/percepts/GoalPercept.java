@@ -0,0 +1,4 @@
+package jason.eis.percepts;
+
+/** goal(X, Y), relative to the agent. */
+public record GoalPercept(int x, int y) {}
@@ -0,0 +1,4 @@
+package jason.eis.percepts;
+
+/** obstacle(X, Y), relative to the agent. */
+public record ObstaclePercept(int x, int y) {}
@@ -0,0 +1,185 @@
+package jason.eis.percepts;
+
+import eis.iilang.Function;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.Parameter;
+import eis.iilang.ParameterList;
+import eis.iilang.Percept;
+import eis.iilang.TruthValue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.logging.Logger;
+
+/**
+ * Decodes the EIS percepts of one agent into a PerceptSnapshot. Percepts
+ * the team does not use are skipped, and a malformed percept is dropped on
+ * its own without affecting the rest of the batch.
+ */
+public final class PerceptDecoder {
+  private static final Logger logger = Logger.getLogger(
+    PerceptDecoder.class.getName()
+  );
+
+  private PerceptDecoder() {}
+
+  public static PerceptSnapshot decode(Collection<Percept> percepts) {
+    long step = -1;
+    long timestamp = -1;
+    long deadline = -1;
+    boolean simEnd = false;
+    String lastAction = null;
+    String lastActionResult = null;
+    List<String> lastActionParams = Collections.emptyList();
+    List<ThingPercept> things = new ArrayList<>();
+    List<ObstaclePercept> obstacles = new ArrayList<>();
+    List<GoalPercept> goals = new ArrayList<>();
+    List<TaskPercept> tasks = new ArrayList<>();
+    List<AttachedPercept> attached = new ArrayList<>();
+
+    for (Percept p : percepts) {
+      List<Parameter> params = p.getParameters();
+      try {
+        switch (p.getName()) {
+          case "step":
+            step = toLong(params.get(0));
+            break;
+          case "timestamp":
+            timestamp = toLong(params.get(0));
+            break;
+          case "deadline":
+            deadline = toLong(params.get(0));
+            break;
+          case "simEnd":
+            simEnd = true;
+            break;
+          case "thing":
+            things.add(
+              new ThingPercept(
+                toInt(params.get(0)),
+                toInt(params.get(1)),
+                toText(params.get(2)),
+                params.size() > 3 ? toText(params.get(3)) : ""
+              )
+            );
+            break;
+          case "obstacle":
+            obstacles.add(
+              new ObstaclePercept(toInt(params.get(0)), toInt(params.get(1)))
+            );
+            break;
+          case "goal":
+            goals.add(
+              new GoalPercept(toInt(params.get(0)), toInt(params.get(1)))
+            );
+            break;
+          case "attached":
+            attached.add(
+              new AttachedPercept(toInt(params.get(0)), toInt(params.get(1)))
+            );
+            break;
+          case "task":
+            tasks.add(decodeTask(params));
+            break;
+          case "lastAction":
+            lastAction = toText(params.get(0));
+            break;
+          case "lastActionResult":
+            lastActionResult = toText(params.get(0));
+            break;
+          case "lastActionParams":
+            lastActionParams = decodeTextList(params.get(0));
+            break;
+          default:
+            break;
+        }
+      } catch (RuntimeException e) {
+        logger.warning("Skipping malformed percept " + p + ": " + e);
+      }
+    }
+
+    return new PerceptSnapshot(
+      step >= 0 ? new StepPercept(step, timestamp, deadline) : null,
+      things,
+      obstacles,
+      goals,
+      tasks,
+      attached,
+      lastAction != null
+        ? new ActionResultPercept(lastAction, lastActionResult, lastActionParams)
+        : null,
+      simEnd
+    );
+  }
+
+  private static TaskPercept decodeTask(List<Parameter> params) {
+    List<TaskPercept.Requirement> requirements = new ArrayList<>();
+    if (params.size() > 3 && params.get(3) instanceof ParameterList) {
+      for (Parameter req : (ParameterList) params.get(3)) {
+        if (!(req instanceof Function)) continue;
+        List<Parameter> reqParams = ((Function) req).getParameters();
+        requirements.add(
+          new TaskPercept.Requirement(
+            toInt(reqParams.get(0)),
+            toInt(reqParams.get(1)),
+            toText(reqParams.get(2))
+          )
+        );
+      }
+    }
+    return new TaskPercept(
+      toText(params.get(0)),
+      toLong(params.get(1)),
+      toInt(params.get(2)),
+      requirements
+    );
+  }
+
+  private static List<String> decodeTextList(Parameter parameter) {
+    if (!(parameter instanceof ParameterList)) return Collections.emptyList();
+    List<String> values = new ArrayList<>();
+    for (Parameter p : (ParameterList) parameter) {
+      values.add(toText(p));
+    }
+    return values;
+  }
+
+  private static int toInt(Parameter parameter) {
+    return ((Numeral) parameter).getValue().intValue();
+  }
+
+  private static long toLong(Parameter parameter) {
+    return ((Numeral) parameter).getValue().longValue();
+  }
+
+  // Built from the typed values; IILElement.toString() is deprecated
+  private static String toText(Parameter parameter) {
+    if (parameter instanceof Identifier) {
+      return ((Identifier) parameter).getValue();
+    }
+    if (parameter instanceof Numeral) {
+      return String.valueOf(((Numeral) parameter).getValue());
+    }
+    if (parameter instanceof TruthValue) {
+      return ((TruthValue) parameter).getValue();
+    }
+    if (parameter instanceof Function) {
+      Function function = (Function) parameter;
+      String args = joinText(function.getParameters());
+      return function.getName() + "(" + args + ")";
+    }
+    if (parameter instanceof ParameterList) {
+      return "[" + joinText((ParameterList) parameter) + "]";
+    }
+    return ""; // No other kinds of parameter exist
+  }
+
+  private static String joinText(Iterable<Parameter> parameters) {
+    StringJoiner text = new StringJoiner(",");
+    for (Parameter p : parameters) text.add(toText(p));
+    return text.toString();
+  }
+}
@@ -0,0 +1,23 @@
+package jason.eis.percepts;
+
+import java.util.List;
+
+/**
+ * Everything the team's Java code needs from one batch of an agent's
+ * percepts, decoded once by PerceptDecoder. step is null when the batch
+ * carried no step percept (e.g. before the match starts).
+ */
+public record PerceptSnapshot(
+  StepPercept step,
+  List<ThingPercept> things,
+  List<ObstaclePercept> obstacles,
+  List<GoalPercept> goals,
+  List<TaskPercept> tasks,
+  List<AttachedPercept> attached,
+  ActionResultPercept lastAction,
+  boolean simEnd
+) {
+  public boolean hasStep() {
+    return step != null;
+  }
+}
@@ -0,0 +1,7 @@
+package jason.eis.percepts;
+
+/**
+ * step, timestamp and deadline of the current step. timestamp and deadline
+ * are server times in milliseconds, -1 when they were not sent.
+ */
+public record StepPercept(long step, long timestamp, long deadline) {}
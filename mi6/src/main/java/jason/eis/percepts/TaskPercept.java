@@ -0,0 +1,13 @@
+package jason.eis.percepts;
+
+import java.util.List;
+
+/** task(Name, Deadline, Reward, [req(X, Y, Type), ...]). */
+public record TaskPercept(
+  String name,
+  long deadline,
+  int reward,
+  List<Requirement> requirements
+) {
+  public record Requirement(int x, int y, String type) {}
+}
@@ -0,0 +1,8 @@
+package jason.eis.percepts;
+
+/** thing(X, Y, Type, Details), coordinates relative to the agent. */
+public record ThingPercept(int x, int y, String type, String details) {
+  public boolean isSelf() {
+    return x == 0 && y == 0 && "entity".equals(type);
+  }
+}
@@ -0,0 +1,212 @@
+package jason.eis.planning;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Runs path planning for the agents on a dedicated, bounded pool so a slow
+ * search can never hold an agent past its step deadline. Each agent has at
+ * most one request in flight: submitting a new one cancels the previous.
+ * When the deadline passes, the caller gets the best partial result the job
+ * published so far (possibly null) instead of waiting for completion.
+ *
+ * The pool has a thread per agent, growing as agents join, unless
+ * mi6.planning.threads fixes its size. A request that still finds every
+ * thread busy and the queue full is planned on the caller's thread, within
+ * the same deadline, rather than dropped.
+ */
+public class PlanningExecutor {
+  private static final Logger logger = Logger.getLogger(
+    PlanningExecutor.class.getName()
+  );
+  private static final boolean DEBUG = false;
+
+  private static final int MIN_THREADS = 2;
+  private static final int QUEUE_CAPACITY_PER_THREAD = 2;
+
+  /**
+   * Handed to every planning job. Jobs publish improving results through
+   * offer() and should poll shouldStop() to give up once they are no
+   * longer wanted.
+   */
+  public static class PlanningContext<T> {
+    private final long deadlineNanos;
+    private final AtomicReference<T> bestSoFar = new AtomicReference<>();
+    private volatile boolean cancelled = false;
+
+    PlanningContext(long deadlineNanos) {
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    public void offer(T result) {
+      if (result != null) bestSoFar.set(result);
+    }
+
+    public T getBestSoFar() {
+      return bestSoFar.get();
+    }
+
+    public long getDeadlineNanos() {
+      return deadlineNanos;
+    }
+
+    public long remainingNanos() {
+      return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean shouldStop() {
+      return (
+        cancelled ||
+        Thread.currentThread().isInterrupted() ||
+        remainingNanos() <= 0
+      );
+    }
+  }
+
+  @FunctionalInterface
+  public interface PlanningJob<T> {
+    T plan(PlanningContext<T> context) throws Exception;
+  }
+
+  private static class Submission {
+    final FutureTask<?> task;
+    final PlanningContext<?> context;
+
+    Submission(FutureTask<?> task, PlanningContext<?> context) {
+      this.task = task;
+      this.context = context;
+    }
+  }
+
+  private final ThreadPoolExecutor pool;
+  private final Map<String, Submission> inFlight = new ConcurrentHashMap<>();
+  // Set by mi6.planning.threads or the constructor, never grown
+  private final boolean fixedSize;
+
+  public PlanningExecutor() {
+    this(Integer.getInteger("mi6.planning.threads", -1));
+  }
+
+  /** A pool of the given size; not positive to grow with the agents. */
+  public PlanningExecutor(int threads) {
+    this.fixedSize = threads > 0;
+    if (!fixedSize) threads = MIN_THREADS;
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory factory = r -> {
+      Thread t = new Thread(r, "mi6-planner-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+    this.pool =
+      new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD),
+        factory,
+        new ThreadPoolExecutor.AbortPolicy()
+      );
+  }
+
+  /**
+   * Grows the pool to one thread per agent, as each agent has at most one
+   * request in flight. Does nothing if the size was fixed.
+   */
+  public synchronized void ensureThreads(int agents) {
+    if (fixedSize || agents <= pool.getMaximumPoolSize()) return;
+    pool.setMaximumPoolSize(agents);
+    pool.setCorePoolSize(agents);
+  }
+
+  /**
+   * Runs a planning job for an agent and waits for it until deadlineNanos
+   * (a System.nanoTime() value). Returns the job's result, or the best
+   * partial result it offered if it did not finish in time, failed or was
+   * superseded. Returns null when nothing useful was produced.
+   */
+  public <T> T plan(String agentName, PlanningJob<T> job, long deadlineNanos) {
+    PlanningContext<T> context = new PlanningContext<>(deadlineNanos);
+    if (context.remainingNanos() <= 0) {
+      if (DEBUG) logger.info(
+        String.format("[%s] No planning time left this step", agentName)
+      );
+      return null;
+    }
+
+    FutureTask<T> task = new FutureTask<>(() -> job.plan(context));
+    Submission submission = new Submission(task, context);
+
+    Submission superseded = inFlight.put(agentName, submission);
+    if (superseded != null) {
+      cancel(superseded);
+    }
+
+    try {
+      try {
+        pool.execute(task);
+      } catch (RejectedExecutionException e) {
+        if (DEBUG) logger.info(
+          String.format("[%s] Planning queue full, planning inline", agentName)
+        );
+        task.run();
+      }
+      T result = task.get(context.remainingNanos(), TimeUnit.NANOSECONDS);
+      return result != null ? result : context.getBestSoFar();
+    } catch (TimeoutException | CancellationException e) {
+      cancel(submission);
+      if (DEBUG) logger.info(
+        String.format(
+          "[%s] Planning stopped at deadline, using best partial result",
+          agentName
+        )
+      );
+      return context.getBestSoFar();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel(submission);
+      return context.getBestSoFar();
+    } catch (ExecutionException e) {
+      logger.warning(
+        String.format(
+          "[%s] Planning failed: %s",
+          agentName,
+          e.getCause() != null ? e.getCause().getMessage() : e.getMessage()
+        )
+      );
+      return context.getBestSoFar();
+    } finally {
+      inFlight.remove(agentName, submission);
+    }
+  }
+
+  /** Cancels the agent's in-flight request, if any. */
+  public void cancel(String agentName) {
+    Submission submission = inFlight.remove(agentName);
+    if (submission != null) {
+      cancel(submission);
+    }
+  }
+
+  private void cancel(Submission submission) {
+    submission.context.cancelled = true;
+    submission.task.cancel(true);
+    pool.remove(submission.task);
+  }
+
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+}
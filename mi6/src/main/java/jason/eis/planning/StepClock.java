@@ -0,0 +1,100 @@
+package jason.eis.planning;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks when each agent's current step started and how long it has to
+ * answer. The server's timestamp/deadline percepts are turned into a local
+ * budget measured from when we first saw the step, so clock skew between
+ * us and the server does not matter.
+ */
+public class StepClock {
+  public static final long DEFAULT_AGENT_TIMEOUT_MS = 4000; // server agentTimeout
+  private static final long ACTION_RESERVE_MS = 500; // left for the rest of the reasoning cycle and sending the action
+
+  private static class StepInfo {
+    final long step;
+    final long startNanos;
+    final long budgetNanos;
+
+    StepInfo(long step, long startNanos, long budgetNanos) {
+      this.step = step;
+      this.startNanos = startNanos;
+      this.budgetNanos = budgetNanos;
+    }
+  }
+
+  private final Map<String, StepInfo> steps = new ConcurrentHashMap<>();
+
+  /**
+   * Records the step percepts of an agent. Only the first call for a given
+   * step starts the clock; repeated calls within the same step are ignored.
+   * Pass a non-positive timestamp or deadline when the server did not send
+   * one and the default agent timeout will be used.
+   */
+  public void onStepPercept(
+    String agentName,
+    long step,
+    long serverTimestamp,
+    long serverDeadline
+  ) {
+    StepInfo current = steps.get(agentName);
+    if (current != null && current.step == step) return;
+
+    long budgetMs = serverTimestamp > 0 && serverDeadline > serverTimestamp
+      ? serverDeadline - serverTimestamp
+      : DEFAULT_AGENT_TIMEOUT_MS;
+    steps.put(
+      agentName,
+      new StepInfo(
+        step,
+        System.nanoTime(),
+        TimeUnit.MILLISECONDS.toNanos(budgetMs)
+      )
+    );
+  }
+
+  public long getCurrentStep(String agentName) {
+    StepInfo info = steps.get(agentName);
+    return info != null ? info.step : -1;
+  }
+
+  /** System.nanoTime() at which the agent's current step started, or -1. */
+  public long getStepStartNanos(String agentName) {
+    StepInfo info = steps.get(agentName);
+    return info != null ? info.startNanos : -1;
+  }
+
+  /** Time the server allows for the agent's current step, or -1. */
+  public long getStepBudgetNanos(String agentName) {
+    StepInfo info = steps.get(agentName);
+    return info != null ? info.budgetNanos : -1;
+  }
+
+  /**
+   * Absolute System.nanoTime() by which planning for the agent's current
+   * step must be finished. Never earlier than now, so an overrun step yields
+   * a zero budget rather than a negative one.
+   */
+  public long getPlanningDeadline(String agentName) {
+    long now = System.nanoTime();
+    long reserve = TimeUnit.MILLISECONDS.toNanos(ACTION_RESERVE_MS);
+    StepInfo info = steps.get(agentName);
+
+    if (info == null) {
+      // No step seen yet, assume the step has just started
+      return (
+        now + TimeUnit.MILLISECONDS.toNanos(DEFAULT_AGENT_TIMEOUT_MS) - reserve
+      );
+    }
+
+    return Math.max(now, info.startNanos + info.budgetNanos - reserve);
+  }
+
+  /** Remaining planning time for the agent's current step, in nanoseconds. */
+  public long getRemainingNanos(String agentName) {
+    return getPlanningDeadline(agentName) - System.nanoTime();
+  }
+}
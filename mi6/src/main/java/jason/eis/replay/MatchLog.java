@@ -0,0 +1,192 @@
+package jason.eis.replay;
+
+import eis.iilang.Action;
+import eis.iilang.Function;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.Parameter;
+import eis.iilang.ParameterList;
+import eis.iilang.Percept;
+import eis.iilang.TruthValue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Reads a log written by MatchRecorder through a read-only memory mapping
+ * and hands its records to a Visitor in file order. Runs appended to the
+ * same file are read one after the other.
+ */
+public final class MatchLog {
+
+  public interface Visitor {
+    void percepts(long nanos, String agName, List<Percept> percepts);
+
+    void action(long nanos, String agName, Action action, boolean accepted);
+
+    void guidance(
+      long nanos,
+      String agName,
+      String target,
+      int size,
+      String blockDirection
+    );
+  }
+
+  private final ByteBuffer in;
+  private final List<String> strings = new ArrayList<>();
+
+  private MatchLog(ByteBuffer in) {
+    this.in = in;
+  }
+
+  /** Visits every record of the file; a truncated last record is skipped. */
+  public static void read(Path file, Visitor visitor) throws IOException {
+    try (
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)
+    ) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Match log over 2GB, split it: " + file);
+      }
+      new MatchLog(channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+        .visit(visitor);
+    }
+  }
+
+  private void visit(Visitor visitor) throws IOException {
+    while (in.hasRemaining()) {
+      int start = in.position();
+      try {
+        if (!readRecord(visitor)) return;
+      } catch (java.nio.BufferUnderflowException e) {
+        // The recording process died mid-write; everything before is fine
+        in.position(start);
+        return;
+      }
+    }
+  }
+
+  private boolean readRecord(Visitor visitor) throws IOException {
+    byte tag = in.get(in.position());
+    if (tag == (byte) (MatchRecorder.MAGIC >>> 24)) {
+      if (in.getInt() != MatchRecorder.MAGIC) {
+        throw new IOException("Bad match log header at " + in.position());
+      }
+      short version = in.getShort();
+      if (version != MatchRecorder.VERSION) {
+        throw new IOException("Unsupported match log version " + version);
+      }
+      strings.clear(); // Every run interns its strings anew
+      return true;
+    }
+
+    in.get();
+    switch (tag) {
+      case MatchRecorder.DEFINE:
+        {
+          int id = in.getInt();
+          String text = readUtf();
+          while (strings.size() <= id) strings.add(null);
+          strings.set(id, text);
+          return true;
+        }
+      case MatchRecorder.PERCEPTS:
+        {
+          long nanos = in.getLong();
+          String agName = string(in.getInt());
+          int count = in.getInt();
+          List<Percept> percepts = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            String name = string(in.getInt());
+            percepts.add(new Percept(name, readParams()));
+          }
+          visitor.percepts(nanos, agName, percepts);
+          return true;
+        }
+      case MatchRecorder.ACTION:
+        {
+          long nanos = in.getLong();
+          String agName = string(in.getInt());
+          boolean accepted = in.get() != 0;
+          String name = string(in.getInt());
+          Action action = new Action(name, readParams());
+          visitor.action(nanos, agName, action, accepted);
+          return true;
+        }
+      case MatchRecorder.GUIDANCE:
+        {
+          long nanos = in.getLong();
+          String agName = string(in.getInt());
+          String target = string(in.getInt());
+          int size = in.getInt();
+          int blockId = in.getInt();
+          visitor.guidance(
+            nanos,
+            agName,
+            target,
+            size,
+            blockId >= 0 ? string(blockId) : null
+          );
+          return true;
+        }
+      default:
+        throw new IOException(
+          "Unknown record tag " + tag + " at " + (in.position() - 1)
+        );
+    }
+  }
+
+  private LinkedList<Parameter> readParams() throws IOException {
+    int count = in.getInt();
+    LinkedList<Parameter> params = new LinkedList<>();
+    for (int i = 0; i < count; i++) params.add(readParam());
+    return params;
+  }
+
+  private Parameter readParam() throws IOException {
+    byte tag = in.get();
+    switch (tag) {
+      case MatchRecorder.PARAM_IDENTIFIER:
+        return new Identifier(string(in.getInt()));
+      case MatchRecorder.PARAM_INT:
+        return new Numeral(in.getInt());
+      case MatchRecorder.PARAM_LONG:
+        return new Numeral(in.getLong());
+      case MatchRecorder.PARAM_DOUBLE:
+        return new Numeral(in.getDouble());
+      case MatchRecorder.PARAM_LIST:
+        return new ParameterList(readParams());
+      case MatchRecorder.PARAM_TRUTH:
+        return new TruthValue(string(in.getInt()));
+      case MatchRecorder.PARAM_FUNCTION:
+        {
+          String name = string(in.getInt());
+          return new Function(name, readParams());
+        }
+      default:
+        throw new IOException("Unknown parameter tag " + tag);
+    }
+  }
+
+  private String string(int id) throws IOException {
+    if (id < 0 || id >= strings.size() || strings.get(id) == null) {
+      throw new IOException("Undefined string id " + id);
+    }
+    return strings.get(id);
+  }
+
+  // writeUTF: unsigned short length, then modified UTF-8 (plain UTF-8 for
+  // the ASCII names and identifiers MASSim sends)
+  private String readUtf() {
+    byte[] bytes = new byte[in.getShort() & 0xFFFF];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
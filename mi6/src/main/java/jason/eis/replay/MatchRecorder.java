@@ -0,0 +1,282 @@
+package jason.eis.replay;
+
+import eis.iilang.DataContainer;
+import eis.iilang.Function;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.Parameter;
+import eis.iilang.ParameterList;
+import eis.iilang.Percept;
+import eis.iilang.TruthValue;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records what the agents saw and did during a match so it can be re-run
+ * without a server by ReplayDriver: every percept batch as received from
+ * EIS, every action sent with whether EIS accepted it, and the arguments of
+ * every RequestGuidance call. Action results reach the agents as
+ * lastAction/lastActionResult percepts and are recorded with those.
+ *
+ * Enabled with -Dmi6.record=match.rec; the file is appended to, so several
+ * matches (or runs) end up in one log. Records are encoded under one lock
+ * and written through a FileChannel in 64KB chunks.
+ *
+ * Layout (big endian, as DataOutputStream writes it):
+ *   header    int magic 'MI6R', short version   (at the start of each run)
+ *   define    byte 0x01, int id, utf text
+ *   percepts  byte 0x02, long nanos, int agentId, int count, container...
+ *   action    byte 0x03, long nanos, int agentId, boolean accepted,
+ *             container
+ *   guidance  byte 0x04, long nanos, int agentId, int targetId, int size,
+ *             int blockDirectionId (-1 for none)
+ *   container int nameId, int paramCount, param...
+ *   param     byte tag: 0 identifier (int id) | 1 int | 2 long
+ *             | 3 double | 4 list (int count, param...)
+ *             | 5 function (int nameId, int count, param...)
+ *             | 6 truth value (int id)
+ * nanos count from the start of the run. Strings are interned per run:
+ * the first use of a text is preceded by its define record.
+ */
+public final class MatchRecorder {
+  private static final Logger logger = Logger.getLogger(
+    MatchRecorder.class.getName()
+  );
+
+  static final int MAGIC = 0x4D493652; // "MI6R"
+  static final short VERSION = 1;
+
+  static final byte DEFINE = 0x01;
+  static final byte PERCEPTS = 0x02;
+  static final byte ACTION = 0x03;
+  static final byte GUIDANCE = 0x04;
+
+  static final byte PARAM_IDENTIFIER = 0;
+  static final byte PARAM_INT = 1;
+  static final byte PARAM_LONG = 2;
+  static final byte PARAM_DOUBLE = 3;
+  static final byte PARAM_LIST = 4;
+  static final byte PARAM_FUNCTION = 5;
+  static final byte PARAM_TRUTH = 6;
+
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private static final MatchRecorder INSTANCE = open();
+
+  private final FileChannel channel;
+  private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+  private final ByteArrayOutputStream defineBytes = new ByteArrayOutputStream();
+  private final DataOutputStream defines = new DataOutputStream(defineBytes);
+  private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+  private final DataOutputStream record = new DataOutputStream(recordBytes);
+  private final Map<String, Integer> stringIds = new HashMap<>();
+  private final long startNanos = System.nanoTime();
+  private boolean failed = false;
+
+  private MatchRecorder(FileChannel channel) throws IOException {
+    this.channel = channel;
+    record.writeInt(MAGIC);
+    record.writeShort(VERSION);
+    append();
+  }
+
+  private static MatchRecorder open() {
+    String path = System.getProperty("mi6.record");
+    if (path == null || path.isBlank()) return null;
+    try {
+      Path file = Paths.get(path);
+      MatchRecorder recorder = new MatchRecorder(
+        FileChannel.open(
+          file,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.APPEND
+        )
+      );
+      logger.info("Recording percepts and actions to " + file.toAbsolutePath());
+      return recorder;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not open match record " + path, e);
+      return null;
+    }
+  }
+
+  /** The run's recorder, or null when recording is off. */
+  public static MatchRecorder get() {
+    return INSTANCE;
+  }
+
+  public synchronized void recordPercepts(
+    String agName,
+    Collection<Percept> percepts
+  ) {
+    if (failed) return;
+    try {
+      record.writeByte(PERCEPTS);
+      record.writeLong(System.nanoTime() - startNanos);
+      record.writeInt(intern(agName));
+      record.writeInt(percepts.size());
+      for (Percept percept : percepts) writeContainer(percept);
+      append();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  public synchronized void recordAction(
+    String agName,
+    DataContainer action,
+    boolean accepted
+  ) {
+    if (failed) return;
+    try {
+      record.writeByte(ACTION);
+      record.writeLong(System.nanoTime() - startNanos);
+      record.writeInt(intern(agName));
+      record.writeBoolean(accepted);
+      writeContainer(action);
+      append();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  public synchronized void recordGuidance(
+    String agName,
+    String target,
+    int size,
+    String blockDirection
+  ) {
+    if (failed) return;
+    try {
+      record.writeByte(GUIDANCE);
+      record.writeLong(System.nanoTime() - startNanos);
+      record.writeInt(intern(agName));
+      record.writeInt(intern(target));
+      record.writeInt(size);
+      record.writeInt(blockDirection != null ? intern(blockDirection) : -1);
+      append();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /** Writes buffered records to the file, e.g. when a match ends. */
+  public synchronized void flush() {
+    if (failed) return;
+    try {
+      drain();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  public synchronized void close() {
+    flush();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not close match record", e);
+    }
+    failed = true;
+  }
+
+  private void writeContainer(DataContainer container) throws IOException {
+    record.writeInt(intern(container.getName()));
+    List<Parameter> params = container.getParameters();
+    record.writeInt(params.size());
+    for (Parameter param : params) writeParam(param);
+  }
+
+  private void writeParam(Parameter param) throws IOException {
+    if (param instanceof Numeral) {
+      Number value = ((Numeral) param).getValue();
+      if (
+        value instanceof Integer ||
+        value instanceof Short ||
+        value instanceof Byte
+      ) {
+        record.writeByte(PARAM_INT);
+        record.writeInt(value.intValue());
+      } else if (value instanceof Long) {
+        record.writeByte(PARAM_LONG);
+        record.writeLong(value.longValue());
+      } else {
+        record.writeByte(PARAM_DOUBLE);
+        record.writeDouble(value != null ? value.doubleValue() : Double.NaN);
+      }
+    } else if (param instanceof ParameterList) {
+      ParameterList list = (ParameterList) param;
+      record.writeByte(PARAM_LIST);
+      record.writeInt(list.size());
+      for (Parameter item : list) writeParam(item);
+    } else if (param instanceof Function) {
+      Function function = (Function) param;
+      record.writeByte(PARAM_FUNCTION);
+      record.writeInt(intern(function.getName()));
+      record.writeInt(function.getParameters().size());
+      for (Parameter item : function.getParameters()) writeParam(item);
+    } else if (param instanceof Identifier) {
+      record.writeByte(PARAM_IDENTIFIER);
+      record.writeInt(intern(((Identifier) param).getValue()));
+    } else if (param instanceof TruthValue) {
+      record.writeByte(PARAM_TRUTH);
+      record.writeInt(intern(((TruthValue) param).getValue()));
+    } else {
+      throw new IOException("Unsupported parameter " + param.getClass());
+    }
+  }
+
+  private int intern(String text) throws IOException {
+    Integer id = stringIds.get(text);
+    if (id != null) return id;
+    int newId = stringIds.size();
+    stringIds.put(text, newId);
+    defines.writeByte(DEFINE);
+    defines.writeInt(newId);
+    defines.writeUTF(text);
+    return newId;
+  }
+
+  // Moves the defines and the record just encoded into the chunk, in order
+  private void append() throws IOException {
+    put(defineBytes);
+    put(recordBytes);
+  }
+
+  private void put(ByteArrayOutputStream bytes) throws IOException {
+    if (bytes.size() == 0) return;
+    if (bytes.size() > chunk.remaining()) drain();
+    if (bytes.size() > chunk.capacity()) {
+      ByteBuffer large = ByteBuffer.wrap(bytes.toByteArray());
+      while (large.hasRemaining()) channel.write(large);
+    } else {
+      chunk.put(bytes.toByteArray());
+    }
+    bytes.reset();
+  }
+
+  private void drain() throws IOException {
+    chunk.flip();
+    while (chunk.hasRemaining()) channel.write(chunk);
+    chunk.clear();
+  }
+
+  // A broken record file must not disturb the match; stop recording
+  private void fail(IOException e) {
+    failed = true;
+    logger.log(Level.WARNING, "Match recording stopped", e);
+  }
+}
@@ -0,0 +1,157 @@
+package jason.eis.replay;
+
+import eis.iilang.Action;
+import eis.iilang.Percept;
+import helpermodels.RequestGuidance;
+import jason.eis.LocalMap;
+import jason.eis.MI6Model;
+import jason.eis.movements.Search;
+import jason.eis.percepts.PerceptDecoder;
+import jason.eis.percepts.PerceptSnapshot;
+import jason.eis.percepts.StepPercept;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds a MatchRecorder log back through MI6Model without a server:
+ * percept batches go through PerceptDecoder and ingestPercepts as
+ * EISAdapter does, and every recorded RequestGuidance call is planned
+ * again on the agent's map as it was at that point. The Jason agents are
+ * not run, so this measures and debugs the Java side only. Agents move as
+ * in a live run: ingestPercepts applies each step's lastAction and
+ * lastActionResult, advancing the position only for a successful move.
+ *
+ * Usage: ReplayDriver match.rec [passes] [stepMs]
+ *   passes  how often to replay the log, each on a fresh model (default 1)
+ *   stepMs  step budget to plan against instead of the recorded deadlines;
+ *           small values replay much faster than the match ran
+ *
+ * As in a live run, the map store stays off unless mi6.mapstore.dir is
+ * set.
+ */
+public final class ReplayDriver implements MatchLog.Visitor {
+  private final MI6Model model;
+  private final long stepMs;
+
+  private long percepts = 0;
+  private long steps = 0;
+  private long actions = 0;
+  private long rejectedActions = 0;
+  private long guidanceCalls = 0;
+  private long pathsFound = 0;
+  private long ingestNanos = 0;
+  private long planningNanos = 0;
+
+  private ReplayDriver(MI6Model model, long stepMs) {
+    this.model = model;
+    this.stepMs = stepMs;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: ReplayDriver match.rec [passes] [stepMs]");
+      System.exit(2);
+    }
+    Path file = Paths.get(args[0]);
+    int passes = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    long stepMs = args.length > 2 ? Long.parseLong(args[2]) : -1;
+
+    for (int pass = 1; pass <= passes; pass++) {
+      MI6Model model = new MI6Model(null);
+      ReplayDriver driver = new ReplayDriver(model, stepMs);
+      long start = System.nanoTime();
+      try {
+        MatchLog.read(file, driver);
+      } finally {
+        model.shutdown();
+      }
+      System.out.println(driver.summary(pass, System.nanoTime() - start));
+      if (pass == passes) {
+        System.out.println(model.getStepMetrics().getSummary());
+      }
+    }
+  }
+
+  @Override
+  public void percepts(long nanos, String agName, List<Percept> batch) {
+    long start = System.nanoTime();
+    model.initializeAgent(agName);
+    PerceptSnapshot snapshot = PerceptDecoder.decode(batch);
+    StepPercept step = snapshot.step();
+    if (step != null) {
+      steps++;
+      // A fixed budget is passed as a step from timestamp 1 to 1 + stepMs
+      long timestamp = stepMs > 0 ? 1 : step.timestamp();
+      long deadline = stepMs > 0 ? 1 + stepMs : step.deadline();
+      model
+        .getStepClock()
+        .onStepPercept(agName, step.step(), timestamp, deadline);
+    }
+    model.ingestPercepts(agName, snapshot);
+    if (snapshot.simEnd()) model.getStepMetrics().logSummaryIfPending();
+    percepts += batch.size();
+    ingestNanos += System.nanoTime() - start;
+  }
+
+  @Override
+  public void action(
+    long nanos,
+    String agName,
+    Action action,
+    boolean accepted
+  ) {
+    // Not applied here: whether a move happened is only known from the
+    // next step's lastActionResult, which ingestPercepts applies
+    actions++;
+    if (!accepted) rejectedActions++;
+  }
+
+  @Override
+  public void guidance(
+    long nanos,
+    String agName,
+    String target,
+    int size,
+    String blockDirection
+  ) {
+    LocalMap map = model.findAgentMap(agName);
+    if (map == null || map.getCurrentPosition() == null) return;
+
+    long start = System.nanoTime();
+    map.updateAgentState(size, blockDirection);
+    Search.PathResult result = RequestGuidance.planPath(
+      model,
+      agName,
+      map.snapshot(),
+      target,
+      size,
+      blockDirection
+    );
+    guidanceCalls++;
+    if (result != null && result.success && !result.directions.isEmpty()) {
+      pathsFound++;
+    }
+    planningNanos += System.nanoTime() - start;
+  }
+
+  private String summary(int pass, long wallNanos) {
+    return String.format(
+      "Replay pass %d: %d steps, %d percepts, %d actions (%d rejected), " +
+      "%d guidance calls (%d paths found); ingest %d ms, planning %d ms, " +
+      "wall %d ms",
+      pass,
+      steps,
+      percepts,
+      actions,
+      rejectedActions,
+      guidanceCalls,
+      pathsFound,
+      TimeUnit.NANOSECONDS.toMillis(ingestNanos),
+      TimeUnit.NANOSECONDS.toMillis(planningNanos),
+      TimeUnit.NANOSECONDS.toMillis(wallNanos)
+    );
+  }
+}